@@ -6,7 +6,7 @@ import time
 from socket import timeout
 from typing import Optional
 
-from src.comm.types import BookFacilityReq, BookFacilityResp, CancelBookingReq, CancelBookingResp, EditBookingReq, EditBookingResp, ListAvailabilityReq, ListAvailabilityResp, NotifyCallbackReq, RegisterCallbackReq, RegisterCallbackResp, RequestType, SocketLostType, SocketSwitchingReq, UnmarshalResult
+from src.comm.types import BookFacilityReq, BookFacilityResp, CancelBookingReq, CancelBookingResp, EditBookingReq, EditBookingResp, ExtendBookingResp, ListAvailabilityReq, ListAvailabilityResp, NotModifiedObj, NotifyCallbackReq, NotifyCallbackResp, RegisterCallbackReq, RegisterCallbackResp, RequestType, SocketLostType, SocketSwitchingReq, UnmarshalResult
 from src.comm.parser import Parser
 from src.comm.socket import AtLeastOnceSocket, AtMostOnceSocket, Socket
 from src.utils.logger import setup_logger
@@ -30,6 +30,8 @@ with open(inteface_path, "r", encoding="utf-8") as f:
 with open(services_path, "r", encoding="utf-8") as f:
     services_schema = json.load(f)
 parser: Parser = Parser(interface_schema, services_schema)
+# Last ListAvailability response per (facility, days), revalidated by version
+availability_cache: dict[tuple[str, str], ListAvailabilityResp] = {}
 socket = None
 bind_port = 11999
 while socket is None:
@@ -105,18 +107,27 @@ while True:
             if user_confirmation == 1:
                 logger.info("User confirmed query.")
                 print("Sending query request...")
-                request = ListAvailabilityReq(facility_name, result)
+                cached = availability_cache.get((facility_name, result))
+                request = ListAvailabilityReq(
+                    facility_name, result, cached.version if cached is not None else None)
                 response, err = socket.send(request, 1, RequestType.REQUEST)
                 if err is not None:
                     logger.error(err)
                     print(f"Receive error from server: {err.errorMessage}")
                 else:
+                    if isinstance(response, NotModifiedObj):
+                        logger.info("Availability not modified since version %d", cached.version)
+                        response = cached
+                    elif response.version >= 0:
+                        availability_cache[(facility_name, result)] = response
                     availability_response: ListAvailabilityResp = response
                     logger.info(availability_response)
                     availabilities_list = availability_response.availabilities.split(
                         ":")
                     for availability in availabilities_list:
-                        print(availability)
+                        # Facilities that take several bookings at once append ";<places left>"
+                        time_slot, _, remaining = availability.partition(";")
+                        print(f"{time_slot} ({remaining} left)" if remaining else time_slot)
             else:
                 logger.info("User cancelled query.")
                 print("Operation cancelled.")
@@ -148,6 +159,10 @@ while True:
                 if err is not None:
                     logger.error(err)
                     print(f"Receive error from server: {err.errorMessage}")
+                    if err.alternatives:
+                        print("Nearest free time slots:")
+                        for alternative in err.alternatives.split(":"):
+                            print(f"  {alternative}")
                 else:
                     booking_response: BookFacilityResp = response
                     logger.info(booking_response)
@@ -179,7 +194,7 @@ while True:
                 else:
                     change_response: EditBookingResp = response
                     logger.info(change_response)
-                    print("Change successful!")
+                    print(f"Change successful! New time slot: {change_response.timeSlot}")
             else:
                 logger.info("User cancelled change.")
                 print("Operation cancelled.")
@@ -215,10 +230,12 @@ while True:
                         # Busy wait for notifications
                         response: Optional[UnmarshalResult] = socket.non_blocking_listen()
                         logger.info(response)
-                        if response:
+                        if response and response.request_type == RequestType.REQUEST:
                             notify_request: NotifyCallbackReq = response.obj
                             print(
                                 f"Notification received for {notify_request.availabilities}.")
+                            # Let the server know, so it does not retransmit the notification
+                            socket.reply(response, NotifyCallbackResp(True))
 
                     print(
                         f"Listening period of {monitoring_period_in_minutes} minutes has ended. Stopping listening.")
@@ -270,9 +287,9 @@ while True:
                     logger.error(err)
                     print(f"Receive error from server: {err.errorMessage}")
                 else:
-                    extend_response: EditBookingResp = response
+                    extend_response: ExtendBookingResp = response
                     logger.info(extend_response)
-                    print("Extend successful!")
+                    print(f"Extend successful! New time slot: {extend_response.timeSlot}")
             else:
                 logger.info("User cancelled extend.")
                 print("Operation cancelled.")
@@ -2,7 +2,7 @@ import struct
 from uuid import UUID
 import uuid
 
-from src.comm.types import ACKObj, BaseModel, ErrorObj, RequestType, UnmarshalResult
+from src.comm.types import ACKObj, BaseModel, ErrorCode, ErrorObj, NotModifiedObj, RequestType, UnmarshalResult
 
 
 class Parser():
@@ -34,6 +34,12 @@ class Parser():
             self.services[obj_id]['name'] = obj['name']
             self.services[obj_id]['request'] = obj['request']
             self.services[obj_id]['response'] = obj['response']
+            self.services[obj_id]['idempotent'] = obj.get('idempotent', False)
+
+    def is_idempotent(self, service_id: int) -> bool:
+        # Replies of idempotent services are not kept by the server, so they need no ACK
+        service = self.services.get(service_id)
+        return service is not None and service['idempotent']
 
     def get_request_type(self, receive_byte: int) -> RequestType:
         return RequestType(receive_byte)
@@ -61,10 +67,25 @@ class Parser():
             return self._unmarshal_error(recv_bytes, request_id, service_id)
         elif request_type == RequestType.ACK:
             return self._unmarshal_ack(request_id, service_id)
+        elif request_type == RequestType.NOT_MODIFIED:
+            return UnmarshalResult(NotModifiedObj(), request_id, service_id, RequestType.NOT_MODIFIED)
 
     def _unmarshal_error(self, recv_bytes: bytes, request_id: uuid.UUID, service_id: int) -> UnmarshalResult:
-        error_message = recv_bytes[19:].decode("utf-8")
-        return UnmarshalResult(ErrorObj(error_message), request_id, service_id, RequestType.ERROR)
+        # A u16 error code, optionally followed by the message and then the
+        # suggested alternatives, each as a str field
+        error_code = ErrorCode.from_code(int.from_bytes(recv_bytes[19:21], byteorder='big'))
+        error_message = ""
+        alternatives = ""
+        offset = 21
+        if len(recv_bytes) > offset:
+            length = int.from_bytes(recv_bytes[offset:offset + 2], byteorder='big')
+            error_message = recv_bytes[offset + 2:offset + 2 + length].decode("utf-8")
+            offset += 2 + length
+        if len(recv_bytes) > offset:
+            length = int.from_bytes(recv_bytes[offset:offset + 2], byteorder='big')
+            alternatives = recv_bytes[offset + 2:offset + 2 + length].decode("utf-8")
+        return UnmarshalResult(ErrorObj(error_message, error_code, alternatives), request_id, service_id,
+                               RequestType.ERROR)
 
     def _unmarshal_normal(self, recv_bytes: bytes, request_id: uuid.UUID, service_id: int, request_type: RequestType) -> UnmarshalResult:
         data_format = self.data[self.services[service_id]
@@ -94,8 +115,9 @@ class Parser():
             field_name, field_type = fields[fields_ptr]
             match field_type:
                 case "int":
+                    # ints are signed 32-bit, as on the Java side
                     _value = int.from_bytes(
-                        recv_bytes[bytes_ptr:bytes_ptr+4], byteorder='big')
+                        recv_bytes[bytes_ptr:bytes_ptr+4], byteorder='big', signed=True)
                     obj[field_name] = _value
                     bytes_ptr += 4
                 case "str":
@@ -143,7 +165,12 @@ class Parser():
 
     def _marshal_error(self, request_id: UUID, service_id: int, item: ErrorObj) -> bytes:
         error_message = item.errorMessage.encode("utf-8")
-        return request_id.bytes + service_id.to_bytes(2, byteorder='big') + RequestType.ERROR.to_bytes(1, byteorder='big') + error_message
+        data = request_id.bytes + service_id.to_bytes(2, byteorder='big') + RequestType.ERROR.to_bytes(1, byteorder='big') + \
+            int(item.errorCode).to_bytes(2, byteorder='big') + len(error_message).to_bytes(2, byteorder='big') + error_message
+        if item.alternatives:
+            alternatives = item.alternatives.encode("utf-8")
+            data += len(alternatives).to_bytes(2, byteorder='big') + alternatives
+        return data
 
     def _marshal_normal(self, request_id: UUID, service_id: int, request_type: RequestType, item: BaseModel) -> bytes:
         data_format = self.data[item.obj_name]
@@ -157,10 +184,13 @@ class Parser():
 
         while fields_ptr < len(fields):
             field_name, field_type = fields[fields_ptr]
+            if not hasattr(item, field_name):
+                # trailing fields are optional and may be omitted
+                break
             match field_type:
                 case "int":
                     generated_bytes += item[field_name].to_bytes(
-                        4, byteorder='big')
+                        4, byteorder='big', signed=True)
                 case "str":
                     _value = item[field_name].encode('utf-8')
                     generated_bytes += len(_value).to_bytes(2, byteorder='big')
@@ -44,6 +44,12 @@ class Socket():
     def non_blocking_listen(self):
         pass
 
+    def reply(self, request: UnmarshalResult, message: BaseModel, server_addr: str = "127.0.0.1", port: int = 12000):
+        # Answer a request from the server, e.g. a notification, under its request ID
+        msg_in_bytes = self.parser.marshall(
+            request.request_id, request.service_id, RequestType.RESPONSE, message)
+        self.socket.sendto(msg_in_bytes, (server_addr, port))
+
 class AtLeastOnceSocket(Socket):
     def __str__(self):
         return "AtLeastOnceSocket"
@@ -235,7 +241,10 @@ class AtMostOnceSocket(Socket):
                     "[AtMostOnceSocket] Simulated packet loss after sending to server")
                 result = None
 
-        if self.has_lost(SocketLostType.ACK):
+        if self.parser.is_idempotent(service_id):
+            logger.debug(
+                "[AtMostOnceSocket] Service %s is idempotent, not sending ACK", service_id)
+        elif self.has_lost(SocketLostType.ACK):
             print("ACK packet lost in transit.")
             logger.info(
                 "[AtMostOnceSocket] Simulated ACK packet loss in transit")
@@ -1,4 +1,5 @@
 from enum import IntEnum
+from typing import Optional
 
 
 class BaseModel():
@@ -28,6 +29,7 @@ class RequestType(IntEnum):
     RESPONSE = 1
     ERROR = 2
     ACK = 3
+    NOT_MODIFIED = 4
 
     def label(self):
         match self:
@@ -39,6 +41,28 @@ class RequestType(IntEnum):
                 return "error"
             case RequestType.ACK:
                 return "ack"
+            case RequestType.NOT_MODIFIED:
+                return "not modified"
+
+class ErrorCode(IntEnum):
+    # Must match ErrorCode.java; codes this client does not know map to UNSPECIFIED
+    UNSPECIFIED = 0
+    INVALID_ARGUMENT = 1
+    FACILITY_NOT_FOUND = 2
+    BOOKING_NOT_FOUND = 3
+    SLOT_UNAVAILABLE = 4
+    OUTSIDE_OPENING_HOURS = 5
+    SPANS_MULTIPLE_DAYS = 6
+    INVALID_TIME_SLOT = 7
+    NOT_REGISTERED = 8
+    UNSUPPORTED = 9
+
+    @classmethod
+    def from_code(cls, code: int) -> "ErrorCode":
+        try:
+            return cls(code)
+        except ValueError:
+            return cls.UNSPECIFIED
 
 class SocketLostType(IntEnum):
     LOST_IN_CLIENT_TO_SERVER = 0
@@ -69,9 +93,13 @@ class UnmarshalResult():
 class ErrorObj(BaseModel):
     obj_name = "ErrorObj"
 
-    def __init__(self, error_message: str = ""):
+    def __init__(self, error_message: str = "", error_code: ErrorCode = ErrorCode.UNSPECIFIED, alternatives: str = ""):
         super().__init__()
-        self.errorMessage = error_message
+        self.errorCode = error_code
+        # The server may send the code alone; fall back to the code's name
+        self.errorMessage = error_message or error_code.name.replace("_", " ").capitalize()
+        # Free time slots suggested instead of a taken one, joined with ":", nearest first
+        self.alternatives = alternatives
 
 class ACKObj(BaseModel):    
     obj_name = "ACKObj"
@@ -79,21 +107,32 @@ class ACKObj(BaseModel):
     def __init__(self):
         super().__init__()
 
+class NotModifiedObj(BaseModel):
+    obj_name = "NotModifiedObj"
+
+    def __init__(self):
+        super().__init__()
+
 class ListAvailabilityReq(BaseModel):
     obj_name = "ListAvailabilityReq"
 
-    def __init__(self, facility_name: str = "", days: str = ""):
+    def __init__(self, facility_name: str = "", days: str = "", known_version: Optional[int] = None):
         super().__init__()
         self.facilityName = facility_name
         self.days = days
+        if known_version is not None:
+            # facilityId must be sent before knownVersion; -1 means look up by name
+            self.facilityId = -1
+            self.knownVersion = known_version
 
 
 class ListAvailabilityResp(BaseModel):
     obj_name = "ListAvailabilityResp"
 
-    def __init__(self, availabilities: str = ""):
+    def __init__(self, availabilities: str = "", version: int = -1):
         super().__init__()
         self.availabilities = availabilities
+        self.version = version
 
 
 class BookFacilityReq(BaseModel):
@@ -123,9 +162,10 @@ class EditBookingReq(BaseModel):
 class EditBookingResp(BaseModel):
     obj_name = "EditBookingResp"
 
-    def __init__(self, success: bool = False):
+    def __init__(self, success: bool = False, time_slot: str = ""):
         super().__init__()
         self.success = success
+        self.timeSlot = time_slot
 
 class RegisterCallbackReq(BaseModel):
     obj_name = "RegisterCallbackReq"
@@ -139,9 +179,12 @@ class RegisterCallbackReq(BaseModel):
 class RegisterCallbackResp(BaseModel):
     obj_name = "RegisterCallbackResp"
 
-    def __init__(self, success: bool = False):
+    def __init__(self, success: bool = False, multicast_group: str = "", multicast_port: int = -1):
         super().__init__()
         self.success = success
+        # Only sent when the client asked for multicast notifications
+        self.multicastGroup = multicast_group
+        self.multicastPort = multicast_port
 
 class NotifyCallbackReq(BaseModel):
     obj_name = "NotifyCallbackReq"
@@ -150,7 +193,51 @@ class NotifyCallbackReq(BaseModel):
         super().__init__()
         self.availabilities = availabilities
 
+class NotifyDeltaReq(BaseModel):
+    obj_name = "NotifyDeltaReq"
+
+    def __init__(self, facility_name: str = "", seq: int = 0, prev_seq: int = 0, added: str = "", removed: str = ""):
+        super().__init__()
+        self.facilityName = facility_name
+        self.seq = seq
+        self.prevSeq = prev_seq
+        self.added = added
+        self.removed = removed
+
 class NotifyCallbackResp(BaseModel):
+    obj_name = "NotifyCallbackResp"
+
+    def __init__(self, success: bool = False):
+        super().__init__()
+        self.success = success
+
+
+class RenewCallbackReq(BaseModel):
+    obj_name = "RenewCallbackReq"
+
+    def __init__(self, facility_name: str = "", monitoring_period_in_minutes: int = 0):
+        super().__init__()
+        self.facilityName = facility_name
+        self.monitoringPeriodInMinutes = monitoring_period_in_minutes
+
+class RenewCallbackResp(BaseModel):
+    obj_name = "RenewCallbackResp"
+
+    def __init__(self, success: bool = False):
+        super().__init__()
+        self.success = success
+
+class DeregisterCallbackReq(BaseModel):
+    obj_name = "DeregisterCallbackReq"
+
+    def __init__(self, facility_name: str = ""):
+        super().__init__()
+        # An empty name deregisters from every facility
+        self.facilityName = facility_name
+
+class DeregisterCallbackResp(BaseModel):
+    obj_name = "DeregisterCallbackResp"
+
     def __init__(self, success: bool = False):
         super().__init__()
         self.success = success
@@ -181,9 +268,10 @@ class ExtendBookingReq(BaseModel):
 class ExtendBookingResp(BaseModel):
     obj_name = "ExtendBookingResp"
 
-    def __init__(self, success: bool = False):
+    def __init__(self, success: bool = False, time_slot: str = ""):
         super().__init__()
         self.success = success
+        self.timeSlot = time_slot
 
 class SocketSwitchingReq(BaseModel):
     obj_name = "SocketSwitchingReq"
@@ -198,3 +286,57 @@ class SocketSwitchingResp(BaseModel):
     def __init__(self, message: bool = False):
         super().__init__()
         self.message = message
+
+class BatchBookReq(BaseModel):
+    obj_name = "BatchBookReq"
+
+    def __init__(self, slots: Optional[list] = None):
+        super().__init__()
+        # (facility name, time slot) pairs, sent as "facility|timeSlot" entries joined with ":"
+        self.slots = ":".join(f"{facility}|{time_slot}" for facility, time_slot in (slots or []))
+
+class BatchBookResp(BaseModel):
+    obj_name = "BatchBookResp"
+
+    def __init__(self, confirmation_ids: str = ""):
+        super().__init__()
+        # Confirmation IDs joined with ":", in the order of the requested slots
+        self.confirmationIDs = confirmation_ids
+
+class BundleBookReq(BaseModel):
+    obj_name = "BundleBookReq"
+
+    def __init__(self, facility_names: Optional[list] = None, time_slot: str = ""):
+        super().__init__()
+        # Facility names joined with ":"
+        self.facilityNames = ":".join(facility_names or [])
+        self.timeSlot = time_slot
+
+class BundleBookResp(BaseModel):
+    obj_name = "BundleBookResp"
+
+    def __init__(self, confirmation_ids: str = ""):
+        super().__init__()
+        # Confirmation IDs joined with ":", in the order of the requested facilities
+        self.confirmationIDs = confirmation_ids
+
+class FindSlotsReq(BaseModel):
+    obj_name = "FindSlotsReq"
+
+    def __init__(self, duration_minutes: int = 60, first_day: str = "Mon", last_day: str = "Sun",
+                 facility_names: Optional[list] = None, max_results: int = 10):
+        super().__init__()
+        self.durationMinutes = duration_minutes
+        self.firstDay = first_day
+        self.lastDay = last_day
+        # Facility names joined with ":"; empty searches every facility
+        self.facilityNames = ":".join(facility_names or [])
+        self.maxResults = max_results
+
+class FindSlotsResp(BaseModel):
+    obj_name = "FindSlotsResp"
+
+    def __init__(self, slots: str = ""):
+        super().__init__()
+        # "facility|timeSlot" entries joined with ":", ordered by start time
+        self.slots = slots
@@ -2,7 +2,7 @@ import json
 import os
 import unittest
 import uuid
-from src.comm.types import BaseModel, ErrorObj, RequestType, UnmarshalResult
+from src.comm.types import BaseModel, ErrorCode, ErrorObj, RequestType, UnmarshalResult
 from src.comm import parser
 
 
@@ -144,7 +144,8 @@ class TestParser(unittest.TestCase):
         - The request ID in bytes
         - The service ID as a 16-bit (2-byte) integer
         - The request type as a single byte
-        - The error message as a UTF-8 encoded string
+        - The error code as a 16-bit (2-byte) integer
+        - The error message as a length-prefixed UTF-8 encoded string
         Asserts:
             The generated bytes from the marshalling process match the expected byte sequence.
         """
@@ -157,13 +158,13 @@ class TestParser(unittest.TestCase):
             services_schema = json.load(f)
         p = parser.Parser(interface_schema, services_schema)
 
-        data = ErrorObj("Error message")
+        data = ErrorObj("Error message", ErrorCode.SLOT_UNAVAILABLE)
         request_id = uuid.uuid4()
         service_id = 1
         generated_bytes = p.marshall(
             request_id, service_id, RequestType.ERROR,  data)
         expected_bytes = request_id.bytes + service_id.to_bytes(
-            2, byteorder='big') + b'\x02' + b'Error message'
+            2, byteorder='big') + b'\x02' + b'\x00\x04' + b'\x00\x0d' + b'Error message'
         self.assertEqual(generated_bytes, expected_bytes)
     
     def test_unmarshal_error(self):
@@ -192,9 +193,23 @@ class TestParser(unittest.TestCase):
         p = parser.Parser(interface_schema, services_schema)
 
         data = b'\x00\x00\x00\x00\x00\x00\x00\x00\x00\x00\x00\x00\x00\x00\x00\x01' + \
-            b'\x00\x01' + b'\x02' + b'Error message'
+            b'\x00\x01' + b'\x02' + b'\x00\x03' + b'\x00\x0d' + b'Error message'
         request_id = uuid.UUID('00000000-0000-0000-0000-000000000001')
         generated_data: UnmarshalResult = p.unmarshall(data)
         self.assertEqual(generated_data, UnmarshalResult(
-            obj=ErrorObj("Error message"), request_id=request_id, service_id=1, request_type=RequestType.ERROR
-        ))
\ No newline at end of file
+            obj=ErrorObj("Error message", ErrorCode.BOOKING_NOT_FOUND), request_id=request_id, service_id=1,
+            request_type=RequestType.ERROR
+        ))
+
+        # The message is optional
+        generated_data = p.unmarshall(data[:21])
+        self.assertEqual(generated_data.obj.errorCode, ErrorCode.BOOKING_NOT_FOUND)
+        self.assertEqual(generated_data.obj.errorMessage, "Booking not found")
+
+        # Suggested alternatives may follow the message
+        alternatives = b'Mon,10,0 - Mon,11,0:Mon,8,0 - Mon,9,0'
+        with_alternatives = data + len(alternatives).to_bytes(2, byteorder='big') + alternatives
+        generated_data = p.unmarshall(with_alternatives)
+        self.assertEqual(generated_data.obj.errorMessage, "Error message")
+        self.assertEqual(generated_data.obj.alternatives, alternatives.decode("utf-8"))
+        self.assertEqual(p.marshall(request_id, 1, RequestType.ERROR, generated_data.obj), with_alternatives)
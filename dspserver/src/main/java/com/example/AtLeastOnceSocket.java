@@ -68,6 +68,20 @@ public class AtLeastOnceSocket extends CustomSocket {
         }
     }
 
+    @Override
+    protected void sendFanoutPacket(byte[] packet, UUID requestId, RequestType requestType,
+            InetAddress address, int port) throws IOException {
+        // The packet buffer is reused for the next destination, so keep a copy
+        pendingMessages.put(requestId,
+                new PendingMessage(packet.clone(), address, port, System.currentTimeMillis()));
+        sendDatagram(packet, address, port);
+    }
+
+    @Override
+    public void discardPending(UUID requestId) {
+        pendingMessages.remove(requestId);
+    }
+
     @Override
     public SenderResult receive() throws IOException {
         while (true) {
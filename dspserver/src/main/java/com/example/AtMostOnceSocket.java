@@ -12,6 +12,8 @@ import java.util.concurrent.ConcurrentHashMap;
  * Implementation of CustomSocket that guarantees at-most-once message delivery.
  * Tracks received message IDs to detect and discard duplicates.
  * Uses a history table to store responses and clear them upon ACK reception.
+ * Services marked idempotent in services.json skip the history table and the
+ * ACK exchange, since a duplicate request can simply be executed again.
  */
 public class AtMostOnceSocket extends CustomSocket {
     // History table to store responses by requestID
@@ -35,8 +37,13 @@ public class AtMostOnceSocket extends CustomSocket {
                     Parser.Message parsedMessage = createMessage(message, serviceId, requestId, requestType);
                     byte[] data = parser.marshall(parsedMessage);
 
-                    // If this is a response or error, store it in the history table
-                    if (requestType == RequestType.RESPONSE || requestType == RequestType.ERROR) {
+                    // Replies of idempotent services are recomputed for duplicates instead
+                    if (parser.isIdempotent(serviceId)) {
+                        sendDatagram(data, destinationAddress, destinationPort);
+                    }
+                    // If this is a reply, store it in the history table
+                    else if (requestType == RequestType.RESPONSE || requestType == RequestType.ERROR
+                            || requestType == RequestType.NOT_MODIFIED) {
                         // Store the response data in the history table for later use
                         ResponseInfo responseInfo = new ResponseInfo(data, destinationAddress, destinationPort, requestType);
                         historyTable.put(requestId, responseInfo);
@@ -57,6 +64,22 @@ public class AtMostOnceSocket extends CustomSocket {
                 }
             }
 
+    @Override
+    public boolean filtersDuplicates() {
+        return true;
+    }
+
+    @Override
+    protected void sendFanoutPacket(byte[] packet, UUID requestId, RequestType requestType,
+            InetAddress address, int port) throws IOException {
+        if (requestType == RequestType.RESPONSE || requestType == RequestType.ERROR
+                || requestType == RequestType.NOT_MODIFIED) {
+            // The packet buffer is reused for the next destination, so keep a copy
+            historyTable.put(requestId, new ResponseInfo(packet.clone(), address, port, requestType));
+        }
+        sendDatagram(packet, address, port);
+    }
+
     @Override
     public SenderResult receive() throws IOException {
         while (true) {
@@ -99,8 +122,9 @@ public class AtMostOnceSocket extends CustomSocket {
                     }
                 }
                 
-                // Handle incoming responses - send an ACK
-                if (requestType == RequestType.RESPONSE || requestType == RequestType.ERROR) {
+                // Handle incoming responses - send an ACK unless nothing is kept for them
+                if ((requestType == RequestType.RESPONSE || requestType == RequestType.ERROR
+                        || requestType == RequestType.NOT_MODIFIED) && !parser.isIdempotent(serviceId)) {
                     // Send ACK for the response
                     sendAcknowledgment(requestId, serviceId, packet.getAddress(), packet.getPort());
                 }
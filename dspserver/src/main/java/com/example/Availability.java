@@ -0,0 +1,102 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Result of a ListAvailability query, in the forms the server needs to answer it:
+ * the list of slots, the ":"-joined response string and its UTF-8 encoding.
+ * Instances are immutable so they can be cached and shared between requests.
+ */
+public class Availability {
+    private static final long NO_VERSION = -1L;
+
+    private final List<String> slots;
+    private final String payload;
+    private final byte[] encodedPayload;
+    private final long version;
+    private final ErrorCode errorCode;
+
+    private Availability(List<String> slots, long version, ErrorCode errorCode) {
+        this.slots = List.copyOf(slots);
+        this.payload = String.join(":", slots);
+        this.encodedPayload = payload.getBytes(StandardCharsets.UTF_8);
+        this.version = version;
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Creates the availability of a facility at a given schedule version.
+     *
+     * @param slots the available time slots, or a single "No available slots" message
+     * @param version the schedule version the slots were computed from
+     */
+    public Availability(List<String> slots, long version) {
+        this(slots, version, null);
+    }
+
+    /**
+     * Creates a result for a query that could not be answered.
+     *
+     * @param errorCode why the query failed
+     * @param errorMessage the error message, starting with "Error:"
+     * @return the error result
+     */
+    public static Availability error(ErrorCode errorCode, String errorMessage) {
+        return new Availability(List.of(errorMessage), NO_VERSION, errorCode);
+    }
+
+    /**
+     * Gets the available time slots.
+     *
+     * @return an unmodifiable list of time slots, or of the error message
+     */
+    public List<String> getSlots() {
+        return slots;
+    }
+
+    /**
+     * Gets the slots joined with ":" as sent in the availabilities field.
+     *
+     * @return the response string
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Gets the UTF-8 encoding of {@link #getPayload()}. The array is shared and must not be modified.
+     *
+     * @return the encoded response string
+     */
+    public byte[] getEncodedPayload() {
+        return encodedPayload;
+    }
+
+    /**
+     * Gets the schedule version this result was computed from.
+     *
+     * @return the version, or -1 for errors
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks whether this result is an error.
+     *
+     * @return true if the query failed
+     */
+    public boolean isError() {
+        return errorCode != null;
+    }
+
+    /**
+     * Gets why the query failed.
+     *
+     * @return the error code, or null if the query succeeded
+     */
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+}
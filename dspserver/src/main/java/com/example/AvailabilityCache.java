@@ -0,0 +1,195 @@
+package com.example;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of ListAvailability results keyed by facility, normalised day set and
+ * schedule version. Every change to a facility bumps its schedule version, which
+ * makes all cached results for that facility stale; stale entries are dropped
+ * the next time they are looked up.
+ * <p>
+ * Misses are single-flight: identical lookups that miss while a result is
+ * being computed wait for that computation instead of starting their own, so
+ * a burst of identical queries computes and encodes the result once.
+ */
+public class AvailabilityCache {
+    private final Map<Long, Availability> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder invalidations;
+    private final Map<Long, Flight> inFlight;
+    private final LongAdder flights;
+    private final LongAdder joined;
+    private final AtomicLong maxJoined;
+
+    /**
+     * Constructs an empty AvailabilityCache
+     */
+    public AvailabilityCache() {
+        this.entries = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.invalidations = new LongAdder();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.flights = new LongAdder();
+        this.joined = new LongAdder();
+        this.maxJoined = new AtomicLong();
+    }
+
+    /**
+     * Gets the availability of a facility for a set of days, computing it if the
+     * cached result is missing or was computed from an older schedule.
+     *
+     * @param facility the facility
+     * @param dayMask the requested days as a bit mask (bit 0 = Mon)
+     * @param compute computes the availability from a schedule snapshot
+     * @return the availability at the facility's current schedule version
+     */
+    public Availability get(Facility facility, int dayMask, Function<Schedule, Availability> compute) {
+        Schedule snapshot = facility.getSchedule();
+        long key = key(facility, dayMask);
+
+        Availability cached = entries.get(key);
+        if (cached != null) {
+            if (cached.getVersion() == snapshot.getVersion()) {
+                hits.increment();
+                return cached;
+            }
+            // The facility changed since this result was computed
+            if (entries.remove(key, cached)) {
+                invalidations.increment();
+            }
+        }
+
+        Flight flight = new Flight(snapshot.getVersion());
+        Flight running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            if (running.version >= snapshot.getVersion()) {
+                return running.join();
+            }
+            // A computation from an older schedule is still running; do not share it
+            misses.increment();
+            return store(key, compute.apply(snapshot));
+        }
+
+        misses.increment();
+        flights.increment();
+        try {
+            Availability computed = store(key, compute.apply(snapshot));
+            flight.result.complete(computed);
+            return computed;
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+            maxJoined.accumulateAndGet(flight.joined.sum(), Math::max);
+        }
+    }
+
+    private Availability store(long key, Availability computed) {
+        // Never let a slow computation overwrite a result from a newer schedule
+        entries.merge(key, computed,
+                (existing, candidate) -> candidate.getVersion() > existing.getVersion() ? candidate : existing);
+        return computed;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to compute the result.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of cached results dropped because their facility changed.
+     *
+     * @return the invalidation count
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Gets the number of computations started by a miss that no identical
+     * lookup was already computing.
+     *
+     * @return the flight count
+     */
+    public long getFlights() {
+        return flights.sum();
+    }
+
+    /**
+     * Gets the number of missed lookups that waited for an identical lookup's
+     * computation instead of computing the result themselves.
+     *
+     * @return the joined count
+     */
+    public long getJoined() {
+        return joined.sum();
+    }
+
+    /**
+     * Gets the largest number of lookups that joined a single flight.
+     *
+     * @return the maximum joined count
+     */
+    public long getMaxJoined() {
+        return maxJoined.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityCache{hits=" + getHits() + ", misses=" + getMisses()
+                + ", invalidations=" + getInvalidations() + ", flights=" + getFlights()
+                + ", joined=" + getJoined() + ", maxJoined=" + getMaxJoined() + ", size=" + entries.size() + '}';
+    }
+
+    private static long key(Facility facility, int dayMask) {
+        return ((long) facility.getRegistryId() << Schedule.DAYS_PER_WEEK) | dayMask;
+    }
+
+    /**
+     * A computation in progress and the lookups waiting for it.
+     */
+    private final class Flight {
+        final long version;
+        final CompletableFuture<Availability> result = new CompletableFuture<>();
+        final LongAdder joined = new LongAdder();
+
+        Flight(long version) {
+            this.version = version;
+        }
+
+        Availability join() {
+            joined.increment();
+            AvailabilityCache.this.joined.increment();
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
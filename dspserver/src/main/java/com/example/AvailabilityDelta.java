@@ -0,0 +1,110 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The change in a facility's free time slots between two snapshots of its
+ * schedule. Sequence numbers are schedule versions: a subscriber that last saw
+ * version prevSeq applies the delta to reach version seq, and one that holds any
+ * other version has missed a change and must fetch a full snapshot instead.
+ * Only days whose bookings changed are examined, so the cost of a delta depends
+ * on the size of the change rather than the size of the week.
+ * For facilities that take more than one booking at a time, a slot is also
+ * added again whenever its remaining capacity changes, as "slot;n" in the same
+ * format as ListAvailability, so a booking that leaves the slot free still
+ * shows up in the delta.
+ */
+public class AvailabilityDelta {
+    private final long prevSeq;
+    private final long seq;
+    private final List<String> added;
+    private final List<String> removed;
+
+    private AvailabilityDelta(long prevSeq, long seq, List<String> added, List<String> removed) {
+        this.prevSeq = prevSeq;
+        this.seq = seq;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * Computes the delta between two snapshots of a facility's schedule.
+     *
+     * @param facility the facility
+     * @param from the snapshot the subscribers last saw
+     * @param to the current snapshot
+     * @return the slots that became free or changed capacity and the slots that were taken
+     */
+    public static AvailabilityDelta between(Facility facility, Schedule from, Schedule to) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        for (int day = 0; day < Schedule.DAYS_PER_WEEK; day++) {
+            if (from.sameDay(to, day)) {
+                continue;
+            }
+            for (int slot = 0; slot < Facility.getSlotsPerDay(); slot++) {
+                int before = facility.getFreeSlotCapacity(from, day, slot);
+                int after = facility.getFreeSlotCapacity(to, day, slot);
+                if (after == before) {
+                    continue;
+                }
+                String timeSlot = Facility.formatSlot(day, slot);
+                if (after == 0) {
+                    removed.add(timeSlot);
+                } else {
+                    // Facilities that take one booking at a time keep the plain format
+                    added.add(facility.getCapacity() == 1 ? timeSlot : timeSlot + ";" + after);
+                }
+            }
+        }
+        return new AvailabilityDelta(from.getVersion(), to.getVersion(), added, removed);
+    }
+
+    /**
+     * Gets the version this delta applies to.
+     *
+     * @return the previous sequence number
+     */
+    public long getPrevSeq() {
+        return prevSeq;
+    }
+
+    /**
+     * Gets the version this delta leads to.
+     *
+     * @return the sequence number
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Gets the time slots that became free, or whose remaining capacity changed.
+     *
+     * @return the added slots
+     */
+    public List<String> getAdded() {
+        return added;
+    }
+
+    /**
+     * Gets the time slots that are no longer free.
+     *
+     * @return the removed slots
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Checks whether the free slots and their remaining capacity are the same in
+     * both snapshots, e.g. when a booking moved within the slots it already covered.
+     *
+     * @return true if nothing was added or removed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BatchBook (service 13): books several time slots, possibly at different
+ * facilities, all or nothing, and replies with every confirmation ID at once.
+ * Slots are sent as "facility|timeSlot" entries joined with ":", and the
+ * confirmation IDs come back joined with ":" in the same order.
+ */
+public class BatchBookHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchBookHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 13;
+    }
+
+    @Override
+    public String getName() {
+        return "BATCH_BOOK";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public boolean triggersFanout() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("BATCH_BOOK | Slots: {}", request.get("slots"));
+
+        List<BookingService.SlotRequest> slots = parseSlots(request.getString("slots"));
+        if (slots == null) {
+            request.replyError(ErrorCode.INVALID_ARGUMENT,
+                    "Error: Slots must be \"facility|timeSlot\" entries joined with \":\"");
+            return;
+        }
+
+        Result<List<String>> result = request.getBookingService().bookAll(slots);
+        if (!result.isOk()) {
+            request.replyError(result);
+            LOGGER.info("RESPONSE | BATCH_BOOK | Client: {} | {}", request.getClientInfo(), result.getMessage());
+            return;
+        }
+
+        Map<String, Object> batchBookResp = new HashMap<>();
+        batchBookResp.put("confirmationIDs", String.join(":", result.getValue()));
+        request.reply(batchBookResp);
+        LOGGER.info("RESPONSE | BATCH_BOOK | Client: {} | Booked: {}", request.getClientInfo(),
+                result.getValue().size());
+
+        // Recorded once per facility, however many of its slots were booked
+        for (BookingService.SlotRequest slot : slots) {
+            request.facilityChanged(slot.getFacilityName());
+        }
+    }
+
+    /**
+     * Splits the slots field into slot requests.
+     *
+     * @param encoded the slots field
+     * @return the slot requests, or null if an entry is malformed
+     */
+    static List<BookingService.SlotRequest> parseSlots(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return null;
+        }
+        List<BookingService.SlotRequest> slots = new ArrayList<>();
+        for (String entry : encoded.split(":")) {
+            int separator = entry.indexOf('|');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                return null;
+            }
+            slots.add(new BookingService.SlotRequest(entry.substring(0, separator).trim(),
+                    entry.substring(separator + 1).trim()));
+        }
+        return slots;
+    }
+}
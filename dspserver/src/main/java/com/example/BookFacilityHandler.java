@@ -0,0 +1,61 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BookFacility (service 2): books a time slot and replies with the confirmation ID.
+ */
+public class BookFacilityHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookFacilityHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 2;
+    }
+
+    @Override
+    public String getName() {
+        return "BOOK_FACILITY";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public boolean triggersFanout() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("BOOK_FACILITY | Facility: {} | TimeSlot: {}", request.get("facilityName"),
+                request.get("timeSlot"));
+
+        Facility facility = request.resolveFacility();
+        if (facility == null) {
+            request.replyError(ErrorCode.FACILITY_NOT_FOUND, "Error: Facility name is not found");
+            return;
+        }
+
+        Result<String> result = request.getBookingService().book(facility.getFacilityName(),
+                request.getString("timeSlot"));
+        if (!result.isOk()) {
+            request.replyError(result);
+            LOGGER.info("RESPONSE | BOOK_FACILITY | Client: {} | {}", request.getClientInfo(), result.getMessage());
+            return;
+        }
+
+        Map<String, Object> bookFacilityResp = new HashMap<>();
+        bookFacilityResp.put("confirmationID", result.getValue());
+        request.reply(bookFacilityResp);
+        LOGGER.info("RESPONSE | BOOK_FACILITY | Client: {} | ConfirmationID: {}", request.getClientInfo(),
+                result.getValue());
+        request.facilityChanged(facility.getFacilityName());
+    }
+}
@@ -7,13 +7,14 @@ import java.util.Locale;
 import java.util.UUID;
 
 /*
- * Represents a booking for a facility with a specific time slot
+ * Represents a booking for a facility with a specific time slot. Bookings are
+ * never changed once created, since snapshots of a facility's schedule share them
  */
 public class Booking {
-    private UUID confirmationID;
-    private String facilityName;
-    private String timeSlot;
-    private TimeSlotDecoder timeSlotDecoder;
+    private final UUID confirmationID;
+    private final String facilityName;
+    private final String timeSlot;
+    private final TimeSlotDecoder timeSlotDecoder;
 
     /**
      * Constructs a new Booking with the specified details.
@@ -27,13 +28,28 @@ public class Booking {
         this.timeSlot = timeSlot;
         this.timeSlotDecoder = new TimeSlotDecoder(timeSlot);
     }
+
+    /**
+     * Constructs a copy of a booking at another time slot.
+     */
+    private Booking(Booking booking, String timeSlot, TimeSlotDecoder timeSlotDecoder) {
+        this.confirmationID = booking.confirmationID;
+        this.facilityName = booking.facilityName;
+        this.timeSlot = timeSlot;
+        this.timeSlotDecoder = timeSlotDecoder;
+    }
+
     /**
-     * Extends the booking by a specified number of minutes.
+     * Computes the time slot this booking would have if its start and end were
+     * moved, without changing the booking.
      * 
-     * @param minute the number of minutes to extend the booking
+     * @param startOffset the number of minutes to move the start by
+     * @param endOffset the number of minutes to move the end by
+     * @return the new time slot in format "Day,Hour,Minute - Day,Hour,Minute"
      */
-    public void extendBooking(int minute) {
+    public String rescheduledTimeSlot(int startOffset, int endOffset) {
         // Extract current booking details
+        TimeSlotDecoder timeSlotDecoder = this.timeSlotDecoder;
         String startDay = timeSlotDecoder.getStartDay();
         int startHour = timeSlotDecoder.getStartHour();
         int startMin = timeSlotDecoder.getStartMin();
@@ -58,57 +74,21 @@ public class Booking {
                                                .withHour(endHour)
                                                .withMinute(endMin);
         
-        // Apply the minute offset
-        LocalDateTime newEndDateTime = endDateTime.plusMinutes(minute);
-        
-        // Format the new time slot string
-        String newTimeSlot = formatTimeSlot(startDateTime, newEndDateTime);
-        
-        // Update the booking
-        this.timeSlot = newTimeSlot;
-        this.timeSlotDecoder = new TimeSlotDecoder(newTimeSlot);
+        // Apply the offsets and format the new time slot string
+        return formatTimeSlot(startDateTime.plusMinutes(startOffset), endDateTime.plusMinutes(endOffset));
     }
+
     /**
-     * Shifts the booking time by the specified number of minutes.
+     * Creates the same booking at a new time slot, leaving this one unchanged.
+     * Facility uses this to reschedule a booking, since older snapshots of its
+     * schedule still hold the booking at its old time slot.
      * 
-     * @param minuteOffset the number of minutes to shift the booking time
+     * @param newTimeSlot the new time slot
+     * @param newTimeSlotDecoder the decoded new time slot
+     * @return a booking with the same confirmation ID at the new time slot
      */
-    public void shiftBooking(int minuteOffset) {
-        // Extract current booking details
-        String startDay = timeSlotDecoder.getStartDay();
-        int startHour = timeSlotDecoder.getStartHour();
-        int startMin = timeSlotDecoder.getStartMin();
-        
-        String endDay = timeSlotDecoder.getEndDay();
-        int endHour = timeSlotDecoder.getEndHour();
-        int endMin = timeSlotDecoder.getEndMin();
-
-        // Create reference week starting with Monday
-        LocalDateTime baseDateTime = LocalDateTime.of(2025, 1, 6, 0, 0);
-
-        // Calculate the day offsets based on the day names
-        int startDayOffset = TimeSlotDecoder.DAY_TO_INDEX.get(startDay);
-        int endDayOffset = TimeSlotDecoder.DAY_TO_INDEX.get(endDay);
-        
-        // Create LocalDateTime objects for start and end times
-        LocalDateTime startDateTime = baseDateTime.plusDays(startDayOffset)
-                                                 .withHour(startHour)
-                                                 .withMinute(startMin);
-        
-        LocalDateTime endDateTime = baseDateTime.plusDays(endDayOffset)
-                                               .withHour(endHour)
-                                               .withMinute(endMin);
-        
-        // Apply the minute offset
-        LocalDateTime newStartDateTime = startDateTime.plusMinutes(minuteOffset);
-        LocalDateTime newEndDateTime = endDateTime.plusMinutes(minuteOffset);
-        
-        // Format the new time slot string
-        String newTimeSlot = formatTimeSlot(newStartDateTime, newEndDateTime);
-        
-        // Update the booking
-        this.timeSlot = newTimeSlot;
-        this.timeSlotDecoder = new TimeSlotDecoder(newTimeSlot);
+    Booking rescheduled(String newTimeSlot, TimeSlotDecoder newTimeSlotDecoder) {
+        return new Booking(this, newTimeSlot, newTimeSlotDecoder);
     }
 
     /**
@@ -159,6 +139,15 @@ public class Booking {
         return confirmationID.toString();
     }
 
+    /**
+     * Gets the confirmation ID for this booking in its 128-bit form.
+     * 
+     * @return the confirmation ID as a UUID
+     */
+    public UUID getConfirmationUUID() {
+        return confirmationID;
+    }
+
     /**
      * Gets the facility name.
      * 
@@ -1,18 +1,40 @@
 package com.example;
 
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
 
 public class BookingService {
-    private List<Facility> facilities;
-    private List<MonitoringClient> clients;
+    private FacilityRegistry facilities;
+    // Monitoring clients by facility name; each map holds the current registration per client
+    private final Map<String, Map<MonitoringClient, MonitoringClient>> subscribers;
+    // Registrations ordered by expiry time, drained by removeExpiredClients()
+    private final DelayQueue<Expiry> expiryQueue;
+    // Confirmation ID index, keyed on the 128-bit UUID rather than its string form.
+    // Facilities update it under their write lock, together with their schedule.
+    private final Map<UUID, BookingEntry> bookingIndex;
+    private final AvailabilityCache availabilityCache;
+
+    // Largest number of time slots bookAll accepts in one batch
+    public static final int MAX_BATCH_SIZE = 64;
+    // Largest number of slots findSlots returns, so that a response fits in one datagram
+    public static final int MAX_FIND_RESULTS = 50;
+    // Number of nearest free time slots suggested when a booking conflicts
+    public static final int MAX_ALTERNATIVES = 3;
 
     /**
      * Constructs a new BookingService instance
      */
     public BookingService() {
-        this.facilities = new ArrayList<>();
-        this.clients = new ArrayList<>();
+        this.facilities = new FacilityRegistry();
+        this.subscribers = new ConcurrentHashMap<>();
+        this.expiryQueue = new DelayQueue<>();
+        this.bookingIndex = new ConcurrentHashMap<>();
+        this.availabilityCache = new AvailabilityCache();
     }
 
     /**
@@ -20,12 +42,50 @@ public class BookingService {
      * 
      * @param facility the facility to add
      * @return true if the facility was added successfully
+     * @throws IllegalArgumentException if the facility is null or its name is already taken
      */
     public boolean addFacility(Facility facility) {
-        if (facility == null) {
-            throw new IllegalArgumentException("Facility cannot be null");
+        facilities.register(facility);
+        facility.setBookingListener(this::updateIndex);
+        return true;
+    }
+
+    /**
+     * Updates the confirmation ID index after a facility's bookings changed.
+     * Called by the facility while it holds its write lock.
+     * 
+     * @param facility the facility that changed
+     * @param removed the booking taken out, or null
+     * @param added the booking put in, or null
+     */
+    private void updateIndex(Facility facility, Booking removed, Booking added) {
+        // A rescheduled booking keeps its confirmation ID, so its entry is replaced in one put
+        if (removed != null && (added == null || !added.getConfirmationUUID().equals(removed.getConfirmationUUID()))) {
+            bookingIndex.remove(removed.getConfirmationUUID());
         }
-        return facilities.add(facility);
+        if (added != null) {
+            bookingIndex.put(added.getConfirmationUUID(), new BookingEntry(facility, added));
+        }
+    }
+
+    /**
+     * Gets a facility by name
+     * 
+     * @param facilityName the name of the facility
+     * @return the facility, or null if not found
+     */
+    public Facility getFacility(String facilityName) {
+        return facilities.get(facilityName);
+    }
+
+    /**
+     * Gets a facility by its registry ID
+     * 
+     * @param facilityId the registry ID of the facility
+     * @return the facility, or null if not found
+     */
+    public Facility getFacility(int facilityId) {
+        return facilities.get(facilityId);
     }
 
     /**
@@ -36,50 +96,98 @@ public class BookingService {
      * @return a list of available time slots or an error message
      */
     public List<String> listAvailability(String facilityName, String days) {
+        return getAvailability(facilityName, days).getSlots();
+    }
+
+    /**
+     * Gets the availability of a facility for the given days. Results are cached
+     * per facility and day set until the facility's schedule changes.
+     * 
+     * @param facilityName the name of the facility
+     * @param days a comma-separated list of days (e.g., "Mon, Tue")
+     * @return the available time slots, or an error result
+     */
+    public Availability getAvailability(String facilityName, String days) {
         // If there is no facilityName, an error message should be displayed
         if (facilityName == null || facilityName.isEmpty()) {
-            return List.of("Error: Facility name cannot be empty");
+            return Availability.error(ErrorCode.INVALID_ARGUMENT, "Error: Facility name cannot be empty");
         }
         
         // If days is empty or null
         if (days == null || days.isEmpty()) {
-            return List.of("Error: Days specification cannot be empty");
+            return Availability.error(ErrorCode.INVALID_ARGUMENT, "Error: Days specification cannot be empty");
         }
 
         // Find the facility by name
-        Optional<Facility> facilityOpt = facilities.stream()
-                .filter(f -> f.getFacilityName().equals(facilityName))
-                .findFirst();
+        Facility facility = facilities.get(facilityName);
 
-        if (facilityOpt.isEmpty()) {
-            return List.of("Error: Facility '" + facilityName + "' not found");
+        if (facility == null) {
+            return Availability.error(ErrorCode.FACILITY_NOT_FOUND,
+                    "Error: Facility '" + facilityName + "' not found");
         }
 
-        Facility facility = facilityOpt.get();
-        List<String> availableSlots = new ArrayList<>();
-        
         // Validate the day abbreviations
-        String[] daysList = days.split(",");
-        for (int i = 0; i < daysList.length; i++) {
-            String day = daysList[i].trim();
-            if (!TimeSlotDecoder.DAY_TO_INDEX.containsKey(day)) {
-                return List.of("Error: Invalid day format. Use three-letter abbreviations (Mon, Tue, etc.)");
-            }
+        int dayMask;
+        try {
+            dayMask = TimeSlotDecoder.toDayMask(days);
+        } catch (IllegalArgumentException e) {
+            return Availability.error(ErrorCode.INVALID_ARGUMENT,
+                    "Error: Invalid day format. Use three-letter abbreviations (Mon, Tue, etc.)");
         }
         
-        // Get available bookings for the specified days
-        List<Booking> availableBookings = facility.getAvailableSlots(days);
+        return availabilityCache.get(facility, dayMask,
+                snapshot -> computeAvailability(facility, dayMask, snapshot));
+    }
+
+    /**
+     * Computes the availability of a facility from a snapshot of its bookings
+     * 
+     * @param facility the facility
+     * @param dayMask the requested days
+     * @param snapshot the snapshot to compute from
+     * @return the available time slots
+     */
+    private Availability computeAvailability(Facility facility, int dayMask, Schedule snapshot) {
+        String days = TimeSlotDecoder.fromDayMask(dayMask);
+        List<String> availableSlots = new ArrayList<>();
+        
+        // Get available time slots for the specified days, with the bookings each can still take
+        Map<String, Integer> availableCapacities = facility.getAvailableSlotCapacities(days, snapshot);
         
         // If no available slots
-        if (availableBookings.isEmpty()) {
+        if (availableCapacities.isEmpty()) {
             availableSlots.add("No available slots for the specified days: " + days);
         } else {
-            for (Booking booking : availableBookings) {
-                availableSlots.add(booking.getTimeSlot());
+            for (Map.Entry<String, Integer> slot : availableCapacities.entrySet()) {
+                // Facilities that take one booking at a time keep the plain format
+                availableSlots.add(facility.getCapacity() == 1 ? slot.getKey()
+                        : slot.getKey() + ";" + slot.getValue());
             }
         }
         
-        return availableSlots;
+        return new Availability(availableSlots, snapshot.getVersion());
+    }
+
+    /**
+     * Gets the cache of ListAvailability results, e.g. to report its metrics
+     * 
+     * @return the availability cache
+     */
+    public AvailabilityCache getAvailabilityCache() {
+        return availabilityCache;
+    }
+
+    /**
+     * Gets the schedule version of a facility. The version changes whenever a
+     * booking of the facility is added, cancelled, edited or extended, so a client
+     * holding a result of that version knows it is still current.
+     * 
+     * @param facilityName the name of the facility
+     * @return the schedule version, or -1 if the facility does not exist
+     */
+    public long getScheduleVersion(String facilityName) {
+        Facility facility = facilities.get(facilityName);
+        return facility == null ? -1 : facility.getVersion();
     }
 
     /**
@@ -90,61 +198,203 @@ public class BookingService {
      * @return the confirmation ID or an error message
      */
     public String bookFacility(String facilityName, String timeSlot) {
+        Result<String> result = book(facilityName, timeSlot);
+        return result.isOk() ? result.getValue() : result.getMessage();
+    }
+
+    /**
+     * Books a facility for a time slot
+     * 
+     * @param facilityName the name of the facility
+     * @param timeSlot the time slot to book
+     * @return the confirmation ID, or why the booking was rejected
+     */
+    public Result<String> book(String facilityName, String timeSlot) {
+        Result<Booking> prepared = prepareBooking(facilityName, timeSlot);
+        if (!prepared.isOk()) {
+            return prepared.asError();
+        }
+        Facility facility = facilities.get(facilityName);
+
+        // Another client may have taken the slot since it was checked
+        return facility.tryAddBooking(prepared.getValue(), MAX_ALTERNATIVES);
+    }
+
+    /**
+     * Books several time slots, possibly at different facilities, as one
+     * change: either every slot is booked or none is. All slots are validated
+     * before any lock is taken, and the facilities involved are then locked in
+     * registry ID order and updated together.
+     * 
+     * @param slots the slots to book, at most {@link #MAX_BATCH_SIZE}
+     * @return the confirmation IDs in the order of the slots, or why the batch was rejected
+     */
+    public Result<List<String>> bookAll(List<SlotRequest> slots) {
+        if (slots == null || slots.isEmpty()) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Error: No time slots to book");
+        }
+        if (slots.size() > MAX_BATCH_SIZE) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT,
+                    "Error: At most " + MAX_BATCH_SIZE + " time slots can be booked at once");
+        }
+
+        // Validate every slot before touching any facility
+        List<Booking> bookings = new ArrayList<>(slots.size());
+        Map<Facility, List<Booking>> byFacility = new LinkedHashMap<>();
+        for (SlotRequest slot : slots) {
+            Result<Booking> prepared = prepareBooking(slot.getFacilityName(), slot.getTimeSlot());
+            if (!prepared.isOk()) {
+                return Result.<List<String>>error(prepared.getErrorCode(), prepared.getMessage() + " (" + slot + ")")
+                        .withAlternatives(prepared.getAlternatives());
+            }
+            Booking booking = prepared.getValue();
+            bookings.add(booking);
+            byFacility.computeIfAbsent(facilities.get(slot.getFacilityName()), f -> new ArrayList<>()).add(booking);
+        }
+
+        Booking conflict = Facility.tryAddAll(byFacility);
+        if (conflict != null) {
+            return Result.error(ErrorCode.SLOT_UNAVAILABLE, ErrorCode.SLOT_UNAVAILABLE.getDefaultMessage()
+                    + " (" + conflict.getFacilityName() + " " + conflict.getTimeSlot() + ")");
+        }
+
+        List<String> confirmationIds = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            confirmationIds.add(booking.getConfirmationID());
+        }
+        return Result.ok(confirmationIds);
+    }
+
+    /**
+     * Books the same time slot at several facilities at once, for example a
+     * hall together with its lounge. Either every facility is booked or none
+     * is; see {@link #bookAll(List)} for how the facilities are locked.
+     * 
+     * @param facilityNames the facilities to book, each at most once
+     * @param timeSlot the time slot to book at every facility
+     * @return the confirmation IDs in the order of the facilities, or why the bundle was rejected
+     */
+    public Result<List<String>> bookBundle(List<String> facilityNames, String timeSlot) {
+        if (facilityNames == null || facilityNames.isEmpty()) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Error: No facilities to book");
+        }
+        if (new HashSet<>(facilityNames).size() != facilityNames.size()) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Error: A bundle cannot name a facility twice");
+        }
+
+        List<SlotRequest> slots = new ArrayList<>(facilityNames.size());
+        for (String facilityName : facilityNames) {
+            slots.add(new SlotRequest(facilityName, timeSlot));
+        }
+        return bookAll(slots);
+    }
+
+    /**
+     * Finds free slots of a given length, at any minute within opening hours,
+     * across facilities and a range of days.
+     * 
+     * @param durationMinutes the length of the slot to find
+     * @param firstDay the first day of the range, e.g. "Tue"
+     * @param lastDay the last day of the range, inclusive, e.g. "Thu"
+     * @param facilityNames the facilities to search, or an empty list for all of them
+     * @param maxResults the largest number of slots to return, at most {@link #MAX_FIND_RESULTS}
+     * @return the earliest free slots ordered by start time, or why the search was rejected
+     */
+    public Result<List<SlotFinder.Match>> findSlots(int durationMinutes, String firstDay, String lastDay,
+            List<String> facilityNames, int maxResults) {
+        if (durationMinutes <= 0 || durationMinutes > Facility.getOpeningMinutes()) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT,
+                    "Error: Duration must be between 1 and " + Facility.getOpeningMinutes() + " minutes");
+        }
+        if (maxResults <= 0 || maxResults > MAX_FIND_RESULTS) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT,
+                    "Error: Maximum results must be between 1 and " + MAX_FIND_RESULTS);
+        }
+        Integer first = firstDay == null ? null : TimeSlotDecoder.DAY_TO_INDEX.get(firstDay.trim());
+        Integer last = lastDay == null ? null : TimeSlotDecoder.DAY_TO_INDEX.get(lastDay.trim());
+        if (first == null || last == null || first > last) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT,
+                    "Error: Invalid day range '" + firstDay + "' to '" + lastDay + "'");
+        }
+
+        List<Facility> searched;
+        if (facilityNames == null || facilityNames.isEmpty()) {
+            searched = facilities.getAll();
+        } else {
+            searched = new ArrayList<>(facilityNames.size());
+            for (String facilityName : facilityNames) {
+                Facility facility = facilities.get(facilityName);
+                if (facility == null) {
+                    return Result.error(ErrorCode.FACILITY_NOT_FOUND,
+                            "Error: Facility '" + facilityName + "' not found");
+                }
+                if (!searched.contains(facility)) {
+                    searched.add(facility);
+                }
+            }
+        }
+        return Result.ok(SlotFinder.find(searched, first, last, durationMinutes, maxResults));
+    }
+
+    /**
+     * Validates a booking request and creates the booking without adding it.
+     * Only a valid time slot is checked against the facility's current snapshot without
+     * locking, so taken slots are rejected early; the caller still has to add
+     * the booking under the write lock, which checks it again.
+     * 
+     * @param facilityName the name of the facility
+     * @param timeSlot the time slot to book
+     * @return the new, not yet added booking, or why it cannot be made
+     */
+    private Result<Booking> prepareBooking(String facilityName, String timeSlot) {
         // Validate input
         if (facilityName == null || facilityName.isEmpty()) {
-            return "Error: Facility name cannot be empty";
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Error: Facility name cannot be empty");
         }
         if (timeSlot == null || timeSlot.isEmpty()) {
-            return "Error: Time slot cannot be empty";
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Error: Time slot cannot be empty");
         }
 
         // Find the facility by name
-        Optional<Facility> facilityOpt = facilities.stream()
-                .filter(f -> f.getFacilityName().equals(facilityName))
-                .findFirst();
+        Facility facility = facilities.get(facilityName);
 
-        if (facilityOpt.isEmpty()) {
-            return "Error: Facility '" + facilityName + "' not found";
+        if (facility == null) {
+            return Result.error(ErrorCode.FACILITY_NOT_FOUND, "Error: Facility '" + facilityName + "' not found");
         }
 
-        Facility facility = facilityOpt.get();
-
-        // Check if the facility is available during the requested time slot
-        if (!facility.checkAvailability(timeSlot)) {
-            return "Error: Facility is not available during the requested time slot";
+        Booking booking;
+        try {
+            booking = new Booking(facilityName, timeSlot);
+        } catch (IllegalArgumentException e) {
+            return Result.error(ErrorCode.INVALID_TIME_SLOT, "Error: " + e.getMessage());
         }
 
-        TimeSlotDecoder timeSlotDecoder = new TimeSlotDecoder(timeSlot);
+        // Validate the time slot itself before looking for conflicts, so an invalid
+        // request is reported as such rather than as a taken slot
+        TimeSlotDecoder timeSlotDecoder = booking.getTimeSlotDecoder();
         if (!timeSlotDecoder.getStartDay().equals(timeSlotDecoder.getEndDay())) {
-            return "Error: Facility is not available for more than one day";
+            return Result.error(ErrorCode.SPANS_MULTIPLE_DAYS, "Error: Facility is not available for more than one day");
         }
         if (timeSlotDecoder.getStartHour() < 8) {
-            return "Error: Facility is not available before 8 AM";
+            return Result.error(ErrorCode.OUTSIDE_OPENING_HOURS, "Error: Facility is not available before 8 AM");
         }
         if (timeSlotDecoder.getEndHour() == 20 && timeSlotDecoder.getEndMin() > 0 || timeSlotDecoder.getEndHour() >= 21) {
-            return "Error: Facility is not available after 8 PM";
+            return Result.error(ErrorCode.OUTSIDE_OPENING_HOURS, "Error: Facility is not available after 8 PM");
         }
         if (!timeSlotDecoder.endAfterStart()) {
-            return "Error: End time must be after start time";
+            return Result.error(ErrorCode.INVALID_TIME_SLOT, "Error: End time must be after start time");
         }
 
-        try {
-            // Create a new booking
-            Booking booking = new Booking(facilityName, timeSlot);
-            
-            // Add the booking to the facility
-            boolean added = facility.addBooking(booking);
-            
-            if (added) {
-                // Return the confirmation ID
-                return booking.getConfirmationID();
-            } else {
-                return "Error: Failed to add booking";
-            }
-        } catch (IllegalArgumentException | IllegalStateException e) {
-            return "Error: " + e.getMessage();
+        // Check if the facility is available during the requested time slot, suggesting
+        // alternatives from the same snapshot the conflict was found in
+        Schedule snapshot = facility.getSchedule();
+        if (!facility.isAvailable(timeSlotDecoder, snapshot)) {
+            return Result.<Booking>error(ErrorCode.SLOT_UNAVAILABLE)
+                    .withAlternatives(facility.findNearestFreeSlots(snapshot, timeSlotDecoder, MAX_ALTERNATIVES));
         }
+        return Result.ok(booking);
     }
+
     /**
      * Cancels a booking
      * 
@@ -158,195 +408,308 @@ public class BookingService {
         }
 
         // Find the booking by confirmation ID
-        Booking booking = findBookingByConfirmationId(confirmationId);
-        if (booking == null) {
-            return true;
-        }
-
-        // Find the facility for this booking
-        Optional<Facility> facilityOpt = facilities.stream()
-                .filter(f -> f.getFacilityName().equals(booking.getFacilityName()))
-                .findFirst();
-
-        if (facilityOpt.isEmpty()) {
+        BookingEntry entry = findEntryByConfirmationId(confirmationId);
+        if (entry == null) {
             return true;
         }
 
-        Facility facility = facilityOpt.get();
-
-        // Cancel the booking
-        boolean canceled = facility.cancelBooking(confirmationId);
-        
-        return canceled;
+        // Cancel the booking; the facility drops it from the index
+        return entry.facility.cancelBooking(entry.booking);
     }
 
-     /**
+    /**
      * Edits a booking by shifting it by the specified number of minutes
      * 
      * @param confirmationId the confirmation ID of the booking to edit
      * @param minuteOffset the number of minutes to shift the booking
-     * @return true if the booking was edited successfully, false otherwise
+     * @return the booking's new time slot, or why it could not be moved
      */
-    public boolean editBooking(String confirmationId, int minuteOffset) {
+    public Result<String> editBooking(String confirmationId, int minuteOffset) {
         // Validate input
         if (confirmationId == null || confirmationId.isEmpty()) {
-            throw new IllegalArgumentException("Confirmation ID cannot be empty");
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Confirmation ID cannot be empty");
         }
 
         // Find the booking by confirmation ID
-        Booking booking = findBookingByConfirmationId(confirmationId);
-        if (booking == null) {
-            throw new IllegalArgumentException("Booking with confirmation ID '" + confirmationId + "' not found");
-        }
-
-        // Find the facility for this booking
-        Optional<Facility> facilityOpt = facilities.stream()
-                .filter(f -> f.getFacilityName().equals(booking.getFacilityName()))
-                .findFirst();
-
-        if (facilityOpt.isEmpty()) {
-            throw new IllegalArgumentException("Facility for booking not found");
+        BookingEntry entry = findEntryByConfirmationId(confirmationId);
+        if (entry == null) {
+            return Result.error(ErrorCode.BOOKING_NOT_FOUND,
+                    "Booking with confirmation ID '" + confirmationId + "' not found");
         }
 
-        Facility facility = facilityOpt.get();
-
-        try {
-            // Temporarily remove the booking from the facility
-            facility.cancelBooking(booking);
-            
-            // Shift the booking
-            booking.shiftBooking(minuteOffset);
-            
-            // Check if the new time slot is available
-            if (!facility.checkAvailability(booking.getTimeSlot())) {
-                // Revert the shift and re-add the original booking
-                throw new IllegalStateException("New time slot is not available");
-            }
-            
-            // Add the updated booking back to the facility
-            boolean added = facility.addBooking(booking);
-            
-            return added;
-        } catch(IllegalStateException | IllegalArgumentException e) {
-            // Restore the original time slot
-            booking.shiftBooking(-minuteOffset);
-            facility.addBooking(booking);
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to edit booking: " + e.getMessage(), e);
-        }
+        // Check and move the booking in one step under the facility's write lock
+        return entry.facility.tryMove(entry.booking, minuteOffset);
     }
+
     /**
      * Extends a booking by the specified number of minutes
      * 
      * @param confirmationId the confirmation ID of the booking to extend
      * @param additionalMinutes the number of additional minutes
-     * @return true if the booking was extended successfully, false otherwise
+     * @return the booking's new time slot, or why it could not be extended
      */
-    public boolean extendBooking(String confirmationId, int additionalMinutes) {
+    public Result<String> extendBooking(String confirmationId, int additionalMinutes) {
         if (additionalMinutes <= 0) {
-            throw new IllegalArgumentException("Additional minutes must be positive");
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Additional minutes must be positive");
         }
         
         // Validate input
         if (confirmationId == null || confirmationId.isEmpty()) {
-            throw new IllegalArgumentException("Confirmation ID cannot be empty");
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Confirmation ID cannot be empty");
         }
 
         // Find the booking by confirmation ID
-        Booking booking = findBookingByConfirmationId(confirmationId);
-        if (booking == null) {
-            throw new IllegalArgumentException("Booking with confirmation ID '" + confirmationId + "' not found");
+        BookingEntry entry = findEntryByConfirmationId(confirmationId);
+        if (entry == null) {
+            return Result.error(ErrorCode.BOOKING_NOT_FOUND,
+                    "Booking with confirmation ID '" + confirmationId + "' not found");
         }
 
-        // Find the facility for this booking
-        Optional<Facility> facilityOpt = facilities.stream()
-                .filter(f -> f.getFacilityName().equals(booking.getFacilityName()))
-                .findFirst();
+        // Check and extend the booking in one step under the facility's write lock
+        return entry.facility.tryResize(entry.booking, additionalMinutes,
+                slot -> validateExtension(slot, additionalMinutes));
+    }
 
-        if (facilityOpt.isEmpty()) {
-            throw new IllegalArgumentException("Facility for booking not found");
+    /**
+     * Checks that an extended booking still fits the facility's rules
+     * 
+     * @param timeSlotDecoder the extended time slot
+     * @param additionalMinutes the number of minutes the booking was extended by
+     * @return null if the extended booking is allowed, otherwise why it is not
+     */
+    private Result<String> validateExtension(TimeSlotDecoder timeSlotDecoder, int additionalMinutes) {
+        if (!timeSlotDecoder.getStartDay().equals(timeSlotDecoder.getEndDay())) {
+            return Result.error(ErrorCode.SPANS_MULTIPLE_DAYS, "Cannot extend booking: booking spans multiple days");
+        }
+        if (timeSlotDecoder.getEndHour() == 20 && timeSlotDecoder.getEndMin() > 0 || timeSlotDecoder.getEndHour() >= 21) {
+            return Result.error(ErrorCode.OUTSIDE_OPENING_HOURS, "Cannot extend booking: booking ends after 8 PM");
         }
+        if (additionalMinutes > 6*24*60) {
+            return Result.error(ErrorCode.INVALID_ARGUMENT, "Cannot extend booking: maximum extension is 6 days");
+        }
+        return null;
+    }
 
-        Facility facility = facilityOpt.get();
-        
-        try {
-            // Temporarily remove the booking from the facility
-            facility.cancelBooking(booking);
-            
-            // Extend the booking
-            booking.extendBooking(additionalMinutes);
+    /**
+     * Registers a client to be notified of changes to a facility until its
+     * monitoring period ends
+     * 
+     * @param facilityName the facility to monitor
+     * @param monitorPeriodinMinutes the monitoring period in minutes
+     * @param port the client's port
+     * @param clientAddress the client's address
+     * @return true if the facility exists and the client was registered
+     */
+    public boolean registerClient(String facilityName, int monitorPeriodinMinutes, int port, InetAddress clientAddress) {
+        return registerClient(facilityName, monitorPeriodinMinutes, port, clientAddress, false);
+    }
 
-            // check the day of the booking
-            TimeSlotDecoder timeSlotDecoder = new TimeSlotDecoder(booking.getTimeSlot());
+    /**
+     * Registers a client to be notified of changes to a facility until its
+     * monitoring period ends
+     * 
+     * @param facilityName the facility to monitor
+     * @param monitorPeriodinMinutes the monitoring period in minutes
+     * @param port the client's port
+     * @param clientAddress the client's address
+     * @param deltaUpdates true to send the client deltas instead of full snapshots
+     * @return true if the facility exists and the client was registered
+     */
+    public boolean registerClient(String facilityName, int monitorPeriodinMinutes, int port, InetAddress clientAddress,
+            boolean deltaUpdates) {
+        return registerClient(facilityName, monitorPeriodinMinutes, port, clientAddress, deltaUpdates, false);
+    }
 
-            if (!timeSlotDecoder.getStartDay().equals(timeSlotDecoder.getEndDay())) {
-                throw new IllegalStateException("Cannot extend booking: booking spans multiple days");
-            }
-            if (timeSlotDecoder.getEndHour() == 20 && timeSlotDecoder.getEndMin() > 0 || timeSlotDecoder.getEndHour() >= 21) {
-                throw new IllegalStateException("Cannot extend booking: booking ends after 8 PM");
-            }
-            if (additionalMinutes > 6*24*60) {
-                throw new IllegalStateException("Cannot extend booking: maximum extension is 6 days");
-            }
-            
-            // Check if the new time slot is available
-            if (!facility.checkAvailability(booking.getTimeSlot())) {
-                throw new IllegalStateException("Cannot extend booking: new time slot is not available");
-            }
-            
-            // Add the booking with the extended time slot
-            boolean added = facility.addBooking(booking);
-            
-            return added;
-            
-        } catch (IllegalStateException e) {
-            // Restore the original time slot
-            booking.extendBooking(-additionalMinutes);
-            facility.addBooking(booking);
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to extend booking: " + e.getMessage(), e);
+    /**
+     * Registers a client to be notified of changes to a facility until its
+     * monitoring period ends
+     * 
+     * @param facilityName the facility to monitor
+     * @param monitorPeriodinMinutes the monitoring period in minutes
+     * @param port the client's port
+     * @param clientAddress the client's address
+     * @param deltaUpdates true to send the client deltas instead of full snapshots
+     * @param multicast true if the client receives the facility's multicast group
+     * @return true if the facility exists and the client was registered
+     */
+    public boolean registerClient(String facilityName, int monitorPeriodinMinutes, int port, InetAddress clientAddress,
+            boolean deltaUpdates, boolean multicast) {
+        if (facilities.get(facilityName) == null) {
+            return false;
         }
+        removeExpiredClients();
+        MonitoringClient tempClient = new MonitoringClient(clientAddress, port, monitorPeriodinMinutes, facilityName,
+                deltaUpdates, multicast);
+        subscribers.computeIfAbsent(facilityName, name -> new ConcurrentHashMap<>())
+                .put(tempClient, tempClient);
+        expiryQueue.add(new Expiry(tempClient));
+        return true;
     }
 
-    public boolean registerClient(String facilityName, int monitorPeriodinMinutes, int port, InetAddress clientAddress) {
+    /**
+     * Extends a client's registration for a facility in place, without adding
+     * another subscriber entry
+     * 
+     * @param facilityName the monitored facility
+     * @param monitorPeriodinMinutes the new monitoring period in minutes, counted from now
+     * @param port the client's port
+     * @param clientAddress the client's address
+     * @return true if the client had a live registration for the facility
+     */
+    public boolean renewClient(String facilityName, int monitorPeriodinMinutes, int port, InetAddress clientAddress) {
+        removeExpiredClients();
+        MonitoringClient client = findRegistration(facilityName, clientAddress, port);
+        if (client == null) {
+            return false;
+        }
+        client.renew(monitorPeriodinMinutes);
+        // The entry for the old expiry is skipped when it comes due
+        expiryQueue.add(new Expiry(client));
+        return true;
+    }
 
-        for (Facility facility: facilities) {
-            if (facility.getFacilityName().equals(facilityName)) {
-                MonitoringClient tempClient = new MonitoringClient(clientAddress, port, monitorPeriodinMinutes, facilityName);
-                clients.add(tempClient);
-                return true;
-            }
+    /**
+     * Removes a client's registration for one facility
+     * 
+     * @param facilityName the monitored facility
+     * @param clientAddress the client's address
+     * @param port the client's port
+     * @return true if the client was registered for the facility
+     */
+    public boolean deregisterClient(String facilityName, InetAddress clientAddress, int port) {
+        Map<MonitoringClient, MonitoringClient> facilitySubscribers = facilityName == null ? null
+                : subscribers.get(facilityName);
+        if (facilitySubscribers == null) {
+            return false;
         }
-        return false;
+        return facilitySubscribers.remove(new MonitoringClient(clientAddress, port, 0, facilityName)) != null;
     }
 
+    /**
+     * Removes a client's registrations for every facility
+     * 
+     * @param clientAddress the client's address
+     * @param port the client's port
+     * @return true if the client had any registration
+     */
     public boolean deregisterClient(InetAddress clientAddress, int port) {
-        for (MonitoringClient client: clients) {
-            if (client.getClientAddress() == clientAddress && client.getPort() == port) {
-                clients.remove(client);
-                return true;
+        return removeSubscriber(new InetSocketAddress(clientAddress, port)) > 0;
+    }
+
+    /**
+     * Looks up a client's registration by its key
+     * 
+     * @return the registration, or null if there is none
+     */
+    private MonitoringClient findRegistration(String facilityName, InetAddress clientAddress, int port) {
+        Map<MonitoringClient, MonitoringClient> facilitySubscribers = facilityName == null ? null
+                : subscribers.get(facilityName);
+        if (facilitySubscribers == null) {
+            return null;
+        }
+        return facilitySubscribers.get(new MonitoringClient(clientAddress, port, 0, facilityName));
+    }
+
+    /**
+     * Removes every registration of a client, whichever facilities it monitors
+     * 
+     * @param subscriber the client's address and port
+     * @return the number of registrations removed
+     */
+    public int removeSubscriber(InetSocketAddress subscriber) {
+        int removed = 0;
+        // One lookup per facility rather than a scan of every subscriber
+        for (String facilityName : subscribers.keySet()) {
+            if (deregisterClient(facilityName, subscriber.getAddress(), subscriber.getPort())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the clients currently monitoring a facility. Expired registrations
+     * are removed first, so the cost depends only on the facility's live subscribers.
+     * 
+     * @param facilityName the facility name
+     * @return a snapshot of the facility's subscribers
+     */
+    public List<MonitoringClient> getSubscribers(String facilityName) {
+        removeExpiredClients();
+        Map<MonitoringClient, MonitoringClient> facilitySubscribers = subscribers.get(facilityName);
+        if (facilitySubscribers == null) {
+            return List.of();
+        }
+        return new ArrayList<>(facilitySubscribers.values());
+    }
+
+    /**
+     * Removes every registration whose monitoring period has ended. Called on
+     * registration and lookup, and periodically by the server's expiry timer.
+     * 
+     * @return the number of clients removed
+     */
+    public int removeExpiredClients() {
+        int removed = 0;
+        Expiry expiry;
+        while ((expiry = expiryQueue.poll()) != null) {
+            MonitoringClient client = expiry.client;
+            if (client.getExpiryTime() > expiry.expiryTime) {
+                // The registration was renewed and has a later entry in the queue
+                continue;
+            }
+            Map<MonitoringClient, MonitoringClient> facilitySubscribers = subscribers.get(client.getFacilityName());
+            if (facilitySubscribers != null && removeRegistration(facilitySubscribers, client)) {
+                removed++;
             }
         }
-        return false;
+        return removed;
+    }
+
+    /**
+     * Removes one registration of a client. The client may have registered again
+     * since, in which case its newer registration is kept.
+     */
+    private static boolean removeRegistration(Map<MonitoringClient, MonitoringClient> facilitySubscribers,
+            MonitoringClient registration) {
+        boolean[] removed = { false };
+        facilitySubscribers.computeIfPresent(registration, (client, current) -> {
+            if (current != registration) {
+                return current;
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
     }
     
     /**
-     * Finds a booking by confirmation ID
+     * Finds the facility holding a booking by confirmation ID
      * 
      * @param confirmationId the confirmation ID
-     * @return the booking, or null if not found
+     * @return the facility, or null if no such booking exists
      */
-    private Booking findBookingByConfirmationId(String confirmationId) {
-        for (Facility facility : facilities) {
-            for (Booking booking : facility.getBookings()) {
-                if (booking.getConfirmationID().equals(confirmationId)) {
-                    return booking;
-                }
-            }
+    public Facility findFacilityByConfirmationId(String confirmationId) {
+        BookingEntry entry = findEntryByConfirmationId(confirmationId);
+        return entry == null ? null : entry.facility;
+    }
+
+    /**
+     * Finds a booking and its facility by confirmation ID
+     * 
+     * @param confirmationId the confirmation ID
+     * @return the index entry, or null if not found
+     */
+    private BookingEntry findEntryByConfirmationId(String confirmationId) {
+        if (confirmationId == null) {
+            return null;
+        }
+        try {
+            return bookingIndex.get(UUID.fromString(confirmationId));
+        } catch (IllegalArgumentException e) {
+            // Not a well-formed UUID, so it cannot be a confirmation ID we issued
+            return null;
         }
-        return null;
     }
     
     /**
@@ -356,22 +719,95 @@ public class BookingService {
      */
     public List<Booking> getAllBookings() {
         List<Booking> allBookings = new ArrayList<>();
-        for (Facility facility : facilities) {
+        for (Facility facility : facilities.getAll()) {
             allBookings.addAll(facility.getBookings());
         }
         return allBookings;
     }
     
     /**
-     * Gets all facilities
+     * Gets all facilities, ordered by registry ID
      * 
      * @return a list of all facilities
      */
     public List<Facility> getAllFacilities() {
-        return new ArrayList<>(facilities);
+        return facilities.getAll();
     }
 
+    /**
+     * Gets all live monitoring clients across facilities
+     * 
+     * @return a snapshot of the registered clients
+     */
     public List<MonitoringClient> getAllClients() {
-        return new ArrayList<>(clients);
+        removeExpiredClients();
+        List<MonitoringClient> allClients = new ArrayList<>();
+        for (Map<MonitoringClient, MonitoringClient> facilitySubscribers : subscribers.values()) {
+            allClients.addAll(facilitySubscribers.values());
+        }
+        return allClients;
+    }
+
+    /**
+     * One time slot of a batch booking
+     */
+    public static final class SlotRequest {
+        private final String facilityName;
+        private final String timeSlot;
+
+        public SlotRequest(String facilityName, String timeSlot) {
+            this.facilityName = facilityName;
+            this.timeSlot = timeSlot;
+        }
+
+        public String getFacilityName() {
+            return facilityName;
+        }
+
+        public String getTimeSlot() {
+            return timeSlot;
+        }
+
+        @Override
+        public String toString() {
+            return facilityName + " " + timeSlot;
+        }
+    }
+
+    /**
+     * Entry in the confirmation ID index
+     */
+    private static class BookingEntry {
+        final Facility facility;
+        final Booking booking;
+
+        BookingEntry(Facility facility, Booking booking) {
+            this.facility = facility;
+            this.booking = booking;
+        }
+    }
+
+    /**
+     * Entry in the expiry queue, due when its client's monitoring period ends
+     */
+    private static class Expiry implements Delayed {
+        final MonitoringClient client;
+        // Fixed when queued, so that renewing the client does not reorder the queue
+        final long expiryTime;
+
+        Expiry(MonitoringClient client) {
+            this.client = client;
+            this.expiryTime = client.getExpiryTime();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiryTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiryTime, ((Expiry) other).expiryTime);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BundleBook (service 14): books one time slot at several facilities at once,
+ * all or nothing. Facilities are sent as names joined with ":", and the
+ * confirmation IDs come back joined with ":" in the same order.
+ */
+public class BundleBookHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundleBookHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 14;
+    }
+
+    @Override
+    public String getName() {
+        return "BUNDLE_BOOK";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public boolean triggersFanout() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("BUNDLE_BOOK | Facilities: {} | TimeSlot: {}", request.get("facilityNames"),
+                request.get("timeSlot"));
+
+        String encoded = request.getString("facilityNames");
+        List<String> facilityNames = encoded == null || encoded.isEmpty() ? List.of()
+                : Arrays.stream(encoded.split(":")).map(String::trim).collect(Collectors.toList());
+        Result<List<String>> result = request.getBookingService().bookBundle(facilityNames,
+                request.getString("timeSlot"));
+        if (!result.isOk()) {
+            request.replyError(result);
+            LOGGER.info("RESPONSE | BUNDLE_BOOK | Client: {} | {}", request.getClientInfo(), result.getMessage());
+            return;
+        }
+
+        Map<String, Object> bundleBookResp = new HashMap<>();
+        bundleBookResp.put("confirmationIDs", String.join(":", result.getValue()));
+        request.reply(bundleBookResp);
+        LOGGER.info("RESPONSE | BUNDLE_BOOK | Client: {} | ConfirmationIDs: {}", request.getClientInfo(),
+                bundleBookResp.get("confirmationIDs"));
+
+        for (String facilityName : facilityNames) {
+            request.facilityChanged(facilityName);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CancelBooking (service 6): removes a booking by confirmation ID.
+ */
+public class CancelBookingHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CancelBookingHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 6;
+    }
+
+    @Override
+    public String getName() {
+        return "CANCEL_BOOKING";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public boolean triggersFanout() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("CANCEL_BOOKING | ConfirmationID: {}", request.get("confirmationID"));
+
+        BookingService bookingService = request.getBookingService();
+        String confirmationId = request.getString("confirmationID");
+        try {
+            // Look the facility up first, as the booking is gone afterwards
+            Facility bookedFacility = bookingService.findFacilityByConfirmationId(confirmationId);
+
+            boolean cancelBookingSuccess = bookingService.cancelBooking(confirmationId);
+            Map<String, Object> cancelBookingResp = new HashMap<>();
+            cancelBookingResp.put("success", cancelBookingSuccess);
+            request.reply(cancelBookingResp);
+            LOGGER.info("RESPONSE | CANCEL_BOOKING | Client: {} | Success: {}", request.getClientInfo(),
+                    cancelBookingSuccess);
+
+            if (bookedFacility != null) {
+                request.facilityChanged(bookedFacility.getFacilityName());
+            }
+        } catch (Exception e) {
+            request.replyError(ErrorCode.UNSPECIFIED, e.getMessage());
+            LOGGER.info("RESPONSE | CANCEL_BOOKING | Client: {} | Error: {}", request.getClientInfo(),
+                    e.getMessage());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.util.List;
 import java.util.Map;
@@ -92,6 +93,99 @@ public abstract class CustomSocket implements AutoCloseable {
             RequestType isRequest, InetAddress destinationAddress, int destinationPort)
             throws IOException;
 
+    /**
+     * Sends the same message to many destinations, each under its own request ID.
+     * The message is marshalled once; for every destination only the 16-byte
+     * request ID at the start of the packet is rewritten before it is sent.
+     * A failed send affects only its own destination.
+     * 
+     * @param message      The message to send
+     * @param serviceId    The service ID
+     * @param requestType  The request type
+     * @param destinations The destinations
+     * @return The request ID sent to each destination, in order, or null where sending failed
+     * @throws IOException If the message cannot be marshalled
+     */
+    public UUID[] fanout(Map<String, Object> message, int serviceId, RequestType requestType,
+            List<InetSocketAddress> destinations) throws IOException {
+        byte[] packet;
+        try {
+            packet = parser.marshall(createMessage(message, serviceId, new UUID(0L, 0L), requestType));
+        } catch (Exception e) {
+            throw new IOException("Failed to marshal message", e);
+        }
+
+        UUID[] requestIds = new UUID[destinations.size()];
+        for (int i = 0; i < requestIds.length; i++) {
+            InetSocketAddress destination = destinations.get(i);
+            UUID requestId = UUID.randomUUID();
+            parser.patchRequestId(packet, requestId);
+            try {
+                sendFanoutPacket(packet, requestId, requestType, destination.getAddress(), destination.getPort());
+                requestIds[i] = requestId;
+            } catch (IOException e) {
+                // Leave this destination's entry null and carry on with the rest
+            }
+        }
+        return requestIds;
+    }
+
+    /**
+     * Sends one packet of a fanout. The packet is rewritten for the next
+     * destination once this returns, so subclasses that keep it must copy it.
+     * 
+     * @param packet      The marshalled message
+     * @param requestId   The request ID written into the packet
+     * @param requestType The request type
+     * @param address     The destination address
+     * @param port        The destination port
+     * @throws IOException If an I/O error occurs
+     */
+    protected void sendFanoutPacket(byte[] packet, UUID requestId, RequestType requestType,
+            InetAddress address, int port) throws IOException {
+        sendDatagram(packet, address, port);
+    }
+
+    /**
+     * Drops any state kept for retransmitting a message, once the peer has
+     * answered it or the sender has given up on it.
+     * 
+     * @param requestId The request ID of the message
+     */
+    public void discardPending(UUID requestId) {
+    }
+
+    /**
+     * Checks whether the socket itself answers duplicate requests, so that they
+     * never reach the server's handlers.
+     *
+     * @return true if duplicates are filtered by the socket
+     */
+    public boolean filtersDuplicates() {
+        return false;
+    }
+
+    /**
+     * Gets the parser built from the schema files, e.g. to marshal messages
+     * that are published through a {@link MulticastChannel}.
+     *
+     * @return The parser
+     */
+    public Parser getParser() {
+        return parser;
+    }
+
+    /**
+     * Checks whether a service is marked idempotent in services.json, the one
+     * place the flag is defined.
+     *
+     * @param serviceId The service ID
+     * @return true if a duplicate request can simply be executed again
+     */
+    public boolean isIdempotent(int serviceId) {
+        return parser.isIdempotent(serviceId);
+    }
+
     /**
      * Receives a message using the socket with delivery guarantees
      * implemented by concrete subclasses.
@@ -162,22 +256,8 @@ public abstract class CustomSocket implements AutoCloseable {
      */
     protected Parser.Message createMessage(Map<String, Object> data, int serviceId, UUID requestId, RequestType requestType)
             throws Exception {
-        List<Map<String, Object>> servicesSchema = loadJSONSchema("services.json");
-
-        String formatName = null;
-        if (requestType == RequestType.REQUEST || requestType == RequestType.RESPONSE) {
-            for (Map<String, Object> service : servicesSchema) {
-                if (((Integer) service.get("id")).equals(serviceId)) {
-                    formatName = (String) (requestType == RequestType.REQUEST ? service.get("request")
-                            : service.get("response"));
-                    break;
-                }
-            }
-        } else if (requestType == RequestType.ERROR) {
-            formatName = "error";
-        } else if (requestType == RequestType.ACK) {
-            formatName = "ACK"; 
-        }
+        // The parser was built from services.json once, at construction
+        String formatName = parser.getFormatName(serviceId, requestType);
 
         if (formatName == null) {
             throw new IllegalArgumentException("Service ID not found: " + serviceId);
@@ -0,0 +1,389 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks callback notifications until the subscriber answers them with a
+ * NotifyCallbackResp. Unanswered notifications are retransmitted with
+ * exponential backoff and given up after a number of attempts. Each subscriber
+ * has a window of notifications in flight; while it is full the subscriber is
+ * skipped by fanouts, so a slow subscriber cannot build an unbounded backlog.
+ * A subscriber that lets several notifications in a row go unanswered is
+ * considered dead and handed to the eviction listener.
+ * A newer NotifyCallback for a facility supersedes unanswered older ones, as it
+ * carries the whole week; deltas are retransmitted until answered, since each
+ * one is needed to reach the next sequence number.
+ */
+public class DeliveryTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryTracker.class);
+
+    static final int NOTIFY_CALLBACK_SERVICE_ID = 5;
+
+    static final int DEFAULT_MAX_IN_FLIGHT = 8;
+    static final long DEFAULT_INITIAL_TIMEOUT_MS = 500;
+    static final long MAX_TIMEOUT_MS = 8000;
+    static final int DEFAULT_MAX_ATTEMPTS = 4;
+    static final int DEFAULT_EVICT_AFTER = 3;
+
+    private final int maxInFlight;
+    private final long initialTimeoutMillis;
+    private final int maxAttempts;
+    private final int evictAfter;
+    private final Consumer<InetSocketAddress> evictionListener;
+
+    private final Map<InetSocketAddress, SubscriberWindow> windows = new ConcurrentHashMap<>();
+    // Notifications no longer tracked, whose retransmission state the socket can drop
+    private final Queue<UUID> finished = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder tracked = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder retransmitted = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Creates a tracker with the default window, timeouts and eviction threshold.
+     *
+     * @param evictionListener called with the address of each subscriber found dead
+     */
+    public DeliveryTracker(Consumer<InetSocketAddress> evictionListener) {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_INITIAL_TIMEOUT_MS, DEFAULT_MAX_ATTEMPTS, DEFAULT_EVICT_AFTER,
+                evictionListener);
+    }
+
+    /**
+     * Creates a tracker.
+     *
+     * @param maxInFlight the maximum number of unanswered notifications per subscriber
+     * @param initialTimeoutMillis how long to wait for the first reply; doubled on every retransmission
+     * @param maxAttempts the number of times a notification is sent before it is given up
+     * @param evictAfter the number of notifications in a row a subscriber may leave
+     *        unanswered before it is evicted
+     * @param evictionListener called with the address of each subscriber found dead
+     */
+    public DeliveryTracker(int maxInFlight, long initialTimeoutMillis, int maxAttempts, int evictAfter,
+            Consumer<InetSocketAddress> evictionListener) {
+        if (maxInFlight < 1 || initialTimeoutMillis < 1 || maxAttempts < 1 || evictAfter < 1) {
+            throw new IllegalArgumentException("Delivery limits must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.initialTimeoutMillis = initialTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.evictAfter = evictAfter;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Checks whether a subscriber can take another notification. Counts the
+     * subscriber as throttled if its window is full.
+     *
+     * @param subscriber the subscriber's address
+     * @return true if fewer than the maximum notifications are in flight to it
+     */
+    public boolean hasCapacity(InetSocketAddress subscriber) {
+        SubscriberWindow window = windows.get(subscriber);
+        if (window == null) {
+            return true;
+        }
+        synchronized (window) {
+            if (window.inFlight.size() < maxInFlight) {
+                return true;
+            }
+        }
+        throttled.increment();
+        return false;
+    }
+
+    /**
+     * Starts tracking a notification sent to a subscriber.
+     *
+     * @param subscriber the subscriber's address
+     * @param requestId the request ID the notification was sent under
+     * @param facilityName the facility the notification is about
+     * @param serviceId the notification's service ID
+     * @param message the notification, kept for retransmission and not modified afterwards
+     * @param now the time it was sent, in milliseconds
+     */
+    public void track(InetSocketAddress subscriber, UUID requestId, String facilityName, int serviceId,
+            Map<String, Object> message, long now) {
+        while (true) {
+            SubscriberWindow window = windows.computeIfAbsent(subscriber, address -> new SubscriberWindow());
+            synchronized (window) {
+                if (window.retired) {
+                    // Removed as idle since it was looked up; use the new one
+                    continue;
+                }
+                track(window, requestId, facilityName, serviceId, message, now);
+            }
+            tracked.increment();
+            return;
+        }
+    }
+
+    private void track(SubscriberWindow window, UUID requestId, String facilityName, int serviceId,
+            Map<String, Object> message, long now) {
+        if (serviceId == NOTIFY_CALLBACK_SERVICE_ID) {
+            Iterator<Outstanding> it = window.inFlight.values().iterator();
+            while (it.hasNext()) {
+                Outstanding older = it.next();
+                if (older.serviceId == NOTIFY_CALLBACK_SERVICE_ID && older.facilityName.equals(facilityName)) {
+                    it.remove();
+                    finished.add(older.requestId);
+                    superseded.increment();
+                }
+            }
+        }
+        window.inFlight.put(requestId,
+                new Outstanding(requestId, facilityName, serviceId, message, now + initialTimeoutMillis));
+    }
+
+    /**
+     * Records a subscriber's reply to a notification.
+     *
+     * @param subscriber the address the reply came from
+     * @param requestId the request ID of the notification
+     * @return true if the notification was outstanding
+     */
+    public boolean acknowledge(InetSocketAddress subscriber, UUID requestId) {
+        SubscriberWindow window = windows.get(subscriber);
+        if (window == null) {
+            return false;
+        }
+        synchronized (window) {
+            if (window.inFlight.remove(requestId) == null) {
+                // A late reply to a retransmission that was already answered, or superseded
+                return false;
+            }
+            window.unanswered = 0;
+        }
+        finished.add(requestId);
+        acknowledged.increment();
+        return true;
+    }
+
+    /**
+     * Retransmits every notification whose reply is overdue and gives up on those
+     * that have used all their attempts. Subscribers that reach the eviction
+     * threshold are removed and passed to the eviction listener. The socket is
+     * told to drop what it keeps for notifications that are no longer tracked.
+     *
+     * @param socket the socket to retransmit on
+     * @param now the current time in milliseconds
+     * @return the number of notifications retransmitted
+     */
+    public int retransmitDue(CustomSocket socket, long now) {
+        int sent = 0;
+        List<InetSocketAddress> dead = new ArrayList<>();
+        for (Map.Entry<InetSocketAddress, SubscriberWindow> entry : windows.entrySet()) {
+            InetSocketAddress subscriber = entry.getKey();
+            SubscriberWindow window = entry.getValue();
+            List<Outstanding> due = new ArrayList<>();
+            synchronized (window) {
+                Iterator<Outstanding> it = window.inFlight.values().iterator();
+                while (it.hasNext()) {
+                    Outstanding outstanding = it.next();
+                    if (outstanding.nextAttemptAt > now) {
+                        continue;
+                    }
+                    if (outstanding.attempts >= maxAttempts) {
+                        it.remove();
+                        finished.add(outstanding.requestId);
+                        expired.increment();
+                        window.unanswered++;
+                        continue;
+                    }
+                    outstanding.attempts++;
+                    long timeout = Math.min(initialTimeoutMillis << Math.min(outstanding.attempts - 1, 20),
+                            MAX_TIMEOUT_MS);
+                    outstanding.nextAttemptAt = now + timeout;
+                    due.add(outstanding);
+                }
+                if (window.unanswered >= evictAfter) {
+                    dead.add(subscriber);
+                    continue;
+                }
+                if (window.inFlight.isEmpty() && window.unanswered == 0) {
+                    // Nothing to remember about this subscriber
+                    window.retired = true;
+                    windows.remove(subscriber, window);
+                    continue;
+                }
+            }
+
+            // Send outside the window's lock so acknowledgements are not held up
+            for (Outstanding outstanding : due) {
+                try {
+                    socket.send(outstanding.message, outstanding.requestId, outstanding.serviceId,
+                            RequestType.REQUEST, subscriber.getAddress(), subscriber.getPort());
+                    retransmitted.increment();
+                    sent++;
+                } catch (IOException e) {
+                    LOGGER.warn("NOTIFICATION | Retransmission to {} failed: {}", subscriber, e.getMessage());
+                }
+            }
+        }
+
+        for (InetSocketAddress subscriber : dead) {
+            evict(subscriber);
+        }
+        UUID requestId;
+        while ((requestId = finished.poll()) != null) {
+            socket.discardPending(requestId);
+        }
+        return sent;
+    }
+
+    private void evict(InetSocketAddress subscriber) {
+        SubscriberWindow window = windows.remove(subscriber);
+        if (window == null) {
+            return;
+        }
+        synchronized (window) {
+            window.retired = true;
+            for (Outstanding outstanding : window.inFlight.values()) {
+                finished.add(outstanding.requestId);
+            }
+        }
+        evicted.increment();
+        LOGGER.warn("NOTIFICATION | Evicting unresponsive subscriber {}", subscriber);
+        if (evictionListener != null) {
+            evictionListener.accept(subscriber);
+        }
+    }
+
+    /**
+     * Gets the number of notifications waiting for a reply from a subscriber.
+     *
+     * @param subscriber the subscriber's address
+     * @return the number of notifications in flight
+     */
+    public int getInFlight(InetSocketAddress subscriber) {
+        SubscriberWindow window = windows.get(subscriber);
+        if (window == null) {
+            return 0;
+        }
+        synchronized (window) {
+            return window.inFlight.size();
+        }
+    }
+
+    /**
+     * Gets the number of notifications tracked.
+     *
+     * @return the tracked count
+     */
+    public long getTracked() {
+        return tracked.sum();
+    }
+
+    /**
+     * Gets the number of notifications answered by their subscriber.
+     *
+     * @return the acknowledged count
+     */
+    public long getAcknowledged() {
+        return acknowledged.sum();
+    }
+
+    /**
+     * Gets the number of retransmissions sent.
+     *
+     * @return the retransmitted count
+     */
+    public long getRetransmitted() {
+        return retransmitted.sum();
+    }
+
+    /**
+     * Gets the number of unanswered notifications replaced by a newer one.
+     *
+     * @return the superseded count
+     */
+    public long getSuperseded() {
+        return superseded.sum();
+    }
+
+    /**
+     * Gets the number of notifications given up after their last attempt.
+     *
+     * @return the expired count
+     */
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * Gets the number of times a subscriber was skipped because its window was full.
+     *
+     * @return the throttled count
+     */
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    /**
+     * Gets the number of subscribers evicted as unresponsive.
+     *
+     * @return the evicted count
+     */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryTracker{tracked=" + getTracked() + ", acknowledged=" + getAcknowledged()
+                + ", retransmitted=" + getRetransmitted() + ", superseded=" + getSuperseded()
+                + ", expired=" + getExpired() + ", throttled=" + getThrottled() + ", evicted=" + getEvicted() + '}';
+    }
+
+    /**
+     * The notifications in flight to one subscriber, oldest first. Guarded by its own monitor.
+     */
+    private static class SubscriberWindow {
+        final Map<UUID, Outstanding> inFlight = new LinkedHashMap<>();
+        // Notifications given up since the subscriber last replied
+        int unanswered;
+        // Set once the window is removed from the map
+        boolean retired;
+    }
+
+    /**
+     * A notification waiting for its reply.
+     */
+    private static class Outstanding {
+        final UUID requestId;
+        final String facilityName;
+        final int serviceId;
+        final Map<String, Object> message;
+        long nextAttemptAt;
+        int attempts;
+
+        Outstanding(UUID requestId, String facilityName, int serviceId, Map<String, Object> message,
+                long nextAttemptAt) {
+            this.requestId = requestId;
+            this.facilityName = facilityName;
+            this.serviceId = serviceId;
+            this.message = message;
+            this.nextAttemptAt = nextAttemptAt;
+            this.attempts = 1;
+        }
+    }
+}
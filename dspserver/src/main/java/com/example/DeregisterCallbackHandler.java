@@ -0,0 +1,57 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DeregisterCallback (service 12): ends the sender's registration for a
+ * facility, or for every facility when the facility name is empty.
+ */
+public class DeregisterCallbackHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeregisterCallbackHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 12;
+    }
+
+    @Override
+    public String getName() {
+        return "DEREGISTER_CALLBACK";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("DEREGISTER_CALLBACK | Facility: {}", request.get("facilityName"));
+
+        BookingService bookingService = request.getBookingService();
+        String facilityName = request.resolveFacilityName();
+        if (facilityName == null) {
+            request.replyError(ErrorCode.FACILITY_NOT_FOUND, "Error: Facility ID is not found");
+            return;
+        }
+        boolean deregisterSuccess;
+        if (facilityName.isEmpty()) {
+            deregisterSuccess = bookingService.deregisterClient(request.getSenderAddress(), request.getSenderPort());
+        } else {
+            deregisterSuccess = bookingService.deregisterClient(facilityName, request.getSenderAddress(),
+                    request.getSenderPort());
+        }
+
+        // A retransmitted request gets the reply recorded for the first one, so a
+        // client whose deregistration succeeded is not told it was not registered
+        Map<String, Object> deregisterCallbackResp = new HashMap<>();
+        deregisterCallbackResp.put("success", deregisterSuccess);
+        request.reply(deregisterCallbackResp);
+        LOGGER.info("RESPONSE | DEREGISTER_CALLBACK | Client: {} | Removed: {}", request.getClientInfo(),
+                deregisterSuccess);
+    }
+}
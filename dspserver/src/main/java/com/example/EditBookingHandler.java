@@ -0,0 +1,62 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * EditBooking (service 3): moves a booking by a number of minutes.
+ */
+public class EditBookingHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EditBookingHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 3;
+    }
+
+    @Override
+    public String getName() {
+        return "EDIT_BOOKING";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public boolean triggersFanout() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("EDIT_BOOKING | ConfirmationID: {} | MinuteOffset: {}", request.get("confirmationID"),
+                request.get("minuteOffset"));
+
+        BookingService bookingService = request.getBookingService();
+        String confirmationId = request.getString("confirmationID");
+        Result<String> result = bookingService.editBooking(confirmationId, request.getInt("minuteOffset"));
+        if (!result.isOk()) {
+            request.replyError(result);
+            LOGGER.info("RESPONSE | EDIT_BOOKING | Client: {} | Error: {}", request.getClientInfo(),
+                    result.getMessage());
+            return;
+        }
+
+        Map<String, Object> editBookingResp = new HashMap<>();
+        editBookingResp.put("success", true);
+        editBookingResp.put("timeSlot", result.getValue());
+        request.reply(editBookingResp);
+        LOGGER.info("RESPONSE | EDIT_BOOKING | Client: {} | Success: {} | TimeSlot: {}", request.getClientInfo(), true,
+                result.getValue());
+
+        Facility bookedFacility = bookingService.findFacilityByConfirmationId(confirmationId);
+        if (bookedFacility != null) {
+            request.facilityChanged(bookedFacility.getFacilityName());
+        }
+    }
+}
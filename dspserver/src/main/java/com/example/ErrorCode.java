@@ -0,0 +1,62 @@
+package com.example;
+
+/**
+ * Reasons a request can fail, sent as a numeric code in ERROR replies. The
+ * codes are part of the wire format, so existing values must never change.
+ */
+public enum ErrorCode {
+    UNSPECIFIED(0, "Error: Request failed"),
+    INVALID_ARGUMENT(1, "Error: Invalid request"),
+    FACILITY_NOT_FOUND(2, "Error: Facility not found"),
+    BOOKING_NOT_FOUND(3, "Error: Booking not found"),
+    SLOT_UNAVAILABLE(4, "Error: Facility is not available during the requested time slot"),
+    OUTSIDE_OPENING_HOURS(5, "Error: Facility is only open from 8 AM to 8 PM"),
+    SPANS_MULTIPLE_DAYS(6, "Error: Bookings cannot span more than one day"),
+    INVALID_TIME_SLOT(7, "Error: Invalid time slot"),
+    NOT_REGISTERED(8, "Error: No active callback registration"),
+    UNSUPPORTED(9, "Error: Unsupported request");
+
+    private static final ErrorCode[] BY_CODE = new ErrorCode[values().length];
+
+    static {
+        for (ErrorCode errorCode : values()) {
+            BY_CODE[errorCode.code] = errorCode;
+        }
+    }
+
+    private final int code;
+    private final String defaultMessage;
+
+    ErrorCode(int code, String defaultMessage) {
+        this.code = code;
+        this.defaultMessage = defaultMessage;
+    }
+
+    /**
+     * Gets the code sent on the wire.
+     *
+     * @return the numeric code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the message used when a failure has no more specific text.
+     *
+     * @return the default message
+     */
+    public String getDefaultMessage() {
+        return defaultMessage;
+    }
+
+    /**
+     * Gets the error code with a given numeric code.
+     *
+     * @param code the numeric code
+     * @return the error code, or UNSPECIFIED for codes this version does not know
+     */
+    public static ErrorCode fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNSPECIFIED;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ExtendBooking (service 7): moves the end of a booking by a number of minutes.
+ */
+public class ExtendBookingHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExtendBookingHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 7;
+    }
+
+    @Override
+    public String getName() {
+        return "EXTEND_BOOKING";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public boolean triggersFanout() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("EXTEND_BOOKING | ConfirmationID: {} | AdditionalMinutes: {}", request.get("confirmationID"),
+                request.get("minuteOffset"));
+
+        BookingService bookingService = request.getBookingService();
+        String confirmationId = request.getString("confirmationID");
+        Result<String> result = bookingService.extendBooking(confirmationId, request.getInt("minuteOffset"));
+        if (!result.isOk()) {
+            request.replyError(result);
+            LOGGER.info("RESPONSE | EXTEND_BOOKING | Client: {} | Error: {}", request.getClientInfo(),
+                    result.getMessage());
+            return;
+        }
+
+        Map<String, Object> extendBookingResp = new HashMap<>();
+        extendBookingResp.put("success", true);
+        extendBookingResp.put("timeSlot", result.getValue());
+        request.reply(extendBookingResp);
+        LOGGER.info("RESPONSE | EXTEND_BOOKING | Client: {} | Success: {} | TimeSlot: {}", request.getClientInfo(), true,
+                result.getValue());
+
+        Facility bookedFacility = bookingService.findFacilityByConfirmationId(confirmationId);
+        if (bookedFacility != null) {
+            request.facilityChanged(bookedFacility.getFacilityName());
+        }
+    }
+}
@@ -2,25 +2,59 @@ package com.example;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class Facility {
     private UUID facilityID;
+    private int registryId;
     private String facilityName;
-    private List<Booking> bookings;
+    // Number of bookings that may overlap at any minute
+    private final int capacity;
+    // Current snapshot of the bookings. Readers use it without locking; writers
+    // build a new snapshot under writeLock and publish it by replacing the reference.
+    private volatile Schedule schedule;
+    private final ReentrantLock writeLock;
+    // Told about every booking added or removed, while writeLock is held
+    private BookingListener listener;
     
     // Default operating hours
     private static final int OPENING_HOUR = 8;  // 12 AM
     private static final int CLOSING_HOUR = 20; // 11 PM 
     private static final int TIME_SLOT_DURATION = 60; // minutes
+    private static final int MINUTES_PER_DAY = 24 * 60;
 
     public Facility(String facilityName) {
+        this(facilityName, 1);
+    }
+
+    /**
+     * Creates a facility that can hold several bookings at the same time, such
+     * as a gym with many stations.
+     * 
+     * @param facilityName the facility name
+     * @param capacity the number of bookings that may overlap at any minute
+     * @throws IllegalArgumentException if capacity is less than one
+     */
+    public Facility(String facilityName, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
         this.facilityID = UUID.randomUUID();
+        this.registryId = -1;
         this.facilityName = facilityName;
-        this.bookings = new ArrayList<>();
+        this.capacity = capacity;
+        this.schedule = Schedule.EMPTY;
+        this.writeLock = new ReentrantLock();
     }
 
     /**
@@ -32,23 +66,17 @@ public class Facility {
     public boolean checkAvailability(String timePeriod) {
         // Decode the requested time period
         TimeSlotDecoder requestedSlot = new TimeSlotDecoder(timePeriod);
+        return isAvailable(requestedSlot, schedule);
+    }
 
-        if (requestedSlot.getStartHour() < 8) {
-            return false; // Outside of operating hours
-        }
-
-        if (requestedSlot.getEndHour() == 20 && requestedSlot.getEndMin() > 0 || requestedSlot.getEndHour() >= 21 ) {
-            return false;
-        }
-        
-        // Check if there are any overlapping bookings
-        for (Booking booking : bookings) {
-            if (isOverlapping(booking.getTimeSlotDecoder(), requestedSlot)) {
-                return false; // Found an overlapping booking, not available
-            }
-        }
-        
-        return true; // No overlapping bookings found, available
+    /**
+     * Checks if a facility is available during an already decoded time period.
+     * 
+     * @param requestedSlot the time period
+     * @return true if the facility is available during the entire time period
+     */
+    public boolean isAvailable(TimeSlotDecoder requestedSlot) {
+        return isAvailable(requestedSlot, schedule);
     }
 
     /**
@@ -58,6 +86,18 @@ public class Facility {
      * @return a list of Booking objects representing available time slots on the specified days
      */
     public List<Booking> getAvailableSlots(String days) {
+        return getAvailableSlots(days, schedule);
+    }
+
+    /**
+     * Gets a list of time slots that are available in a given snapshot of this
+     * facility's bookings. Days are reported in the order they are requested.
+     * 
+     * @param days a comma-separated list of days (e.g., "Mon, Tue")
+     * @param snapshot a snapshot obtained from {@link #getSchedule()}
+     * @return a list of Booking objects representing available time slots on the specified days
+     */
+    public List<Booking> getAvailableSlots(String days, Schedule snapshot) {
         // Parse the requested days
         Set<String> requestedDays = parseRequestedDays(days);
         
@@ -71,8 +111,8 @@ public class Facility {
             
             // For each potential time slot, check if it's available
             for (String timeSlot : dayTimeSlots) {
-                // If the time slot doesn't overlap with any existing booking, it's available
-                if (checkAvailability(timeSlot)) {
+                // If the time slot has room for another booking, it's available
+                if (isAvailable(new TimeSlotDecoder(timeSlot), snapshot)) {
                     // Create a temporary booking object to represent this available slot
                     // This booking is not added to the facility's bookings list
                     Booking availableSlot = new Booking(facilityName, timeSlot);
@@ -84,6 +124,115 @@ public class Facility {
         return availableSlots;
     }
     
+    /**
+     * Gets the default time slots of the specified days that can take at least
+     * one more booking, with the number of bookings each can still take.
+     * 
+     * @param days a comma-separated list of days (e.g., "Mon, Tue")
+     * @param snapshot a snapshot obtained from {@link #getSchedule()}
+     * @return the remaining capacity of each available time slot, in the order of the days requested
+     */
+    public Map<String, Integer> getAvailableSlotCapacities(String days, Schedule snapshot) {
+        Map<String, Integer> capacities = new LinkedHashMap<>();
+        for (Booking slot : getAvailableSlots(days, snapshot)) {
+            capacities.put(slot.getTimeSlot(), getRemainingCapacity(slot.getTimeSlotDecoder(), snapshot));
+        }
+        return capacities;
+    }
+
+    /**
+     * Gets how many more bookings fit into a time period. The answer comes from
+     * the snapshot's occupancy tree, in O(log n).
+     * 
+     * @param requestedSlot the time period
+     * @param snapshot a snapshot obtained from {@link #getSchedule()}
+     * @return the capacity minus the peak occupancy of the time period, or 0 outside opening hours
+     */
+    public int getRemainingCapacity(TimeSlotDecoder requestedSlot, Schedule snapshot) {
+        if (!isAvailable(requestedSlot, snapshot)) {
+            return 0;
+        }
+        int start = requestedSlot.getStartHour() * 60 + requestedSlot.getStartMin();
+        return capacity - snapshot.peakOccupancy(TimeSlotDecoder.DAY_TO_INDEX.get(requestedSlot.getStartDay()),
+                start, start + requestedSlot.getDurationMinutes());
+    }
+
+    /**
+     * Gets the number of default time slots per day.
+     * 
+     * @return the number of slots between opening and closing time
+     */
+    public static int getSlotsPerDay() {
+        return (CLOSING_HOUR - OPENING_HOUR) * 60 / TIME_SLOT_DURATION;
+    }
+
+    /**
+     * Gets how many more bookings one default time slot of a day can take in a
+     * snapshot. This is the count {@link #getAvailableSlotCapacities(String, Schedule)}
+     * reports for the slot, and 0 if the slot is full.
+     * 
+     * @param snapshot a snapshot obtained from {@link #getSchedule()}
+     * @param day the day index (0 = Mon)
+     * @param slot the index of the slot after opening time
+     * @return the remaining capacity of the slot
+     */
+    public int getFreeSlotCapacity(Schedule snapshot, int day, int slot) {
+        int start = OPENING_HOUR * 60 + slot * TIME_SLOT_DURATION;
+        return Math.max(0, capacity - snapshot.peakOccupancy(day, start, start + TIME_SLOT_DURATION));
+    }
+
+    /**
+     * Finds the earliest start of every free interval that fits a booking of
+     * the given length, in the days of a range. Unlike
+     * {@link #getAvailableSlots(String, Schedule)} this is not limited to the
+     * default one-hour slots: a gap of any length at any minute qualifies.
+     * 
+     * @param snapshot a snapshot obtained from {@link #getSchedule()}
+     * @param firstDay the first day index of the range (0 = Mon)
+     * @param lastDay the last day index of the range, inclusive
+     * @param durationMinutes the length of the booking
+     * @param limit the largest number of matches to return
+     * @return up to limit matches in start order
+     */
+    public List<SlotFinder.Match> findFreeSlots(Schedule snapshot, int firstDay, int lastDay, int durationMinutes,
+            int limit) {
+        List<SlotFinder.Match> matches = new ArrayList<>();
+        for (int day = firstDay; day <= lastDay && matches.size() < limit; day++) {
+            int[] gaps = snapshot.freeIntervals(day, OPENING_HOUR * 60, CLOSING_HOUR * 60, capacity);
+            for (int i = 0; i < gaps.length && matches.size() < limit; i += 2) {
+                if (gaps[i + 1] - gaps[i] >= durationMinutes) {
+                    matches.add(new SlotFinder.Match(this, day, gaps[i], gaps[i] + durationMinutes));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the length of the facility's opening hours.
+     * 
+     * @return the number of minutes between opening and closing time
+     */
+    public static int getOpeningMinutes() {
+        return (CLOSING_HOUR - OPENING_HOUR) * 60;
+    }
+
+    /**
+     * Formats one default time slot the way {@link #getAvailableSlots(String)} reports it.
+     * 
+     * @param day the day index (0 = Mon)
+     * @param slot the index of the slot after opening time
+     * @return the time slot string, e.g. "Mon,8,0 - Mon,9,0"
+     */
+    public static String formatSlot(int day, int slot) {
+        String dayName = TimeSlotDecoder.INDEX_TO_DAY.get(day);
+        int start = OPENING_HOUR * 60 + slot * TIME_SLOT_DURATION;
+        int end = start + TIME_SLOT_DURATION;
+        return String.format("%s,%d,%d - %s,%d,%d",
+                dayName, start / 60, start % 60,
+                dayName, end / 60, end % 60);
+    }
+
     /**
      * Generates time slots for a specific day based on facility operating hours.
      * 
@@ -127,17 +276,34 @@ public class Facility {
      */
     public void updateAvailability(String timePeriod, boolean isBooked) {
         if (isBooked) {
-            // Check if the time period is available
-            if (checkAvailability(timePeriod)) {
+            Booking newBooking = new Booking(facilityName, timePeriod);
+            write(() -> {
+                // Check if the time period is available
+                if (!isAvailable(newBooking.getTimeSlotDecoder(), schedule)) {
+                    throw new IllegalStateException("Cannot book unavailable time period: " + timePeriod);
+                }
                 // Add a new booking for this time period
-                Booking newBooking = new Booking(facilityName, timePeriod);
-                bookings.add(newBooking);
-            } else {
-                throw new IllegalStateException("Cannot book unavailable time period: " + timePeriod);
-            }
+                schedule = schedule.with(new Schedule.Entry(newBooking));
+                notifyListener(null, newBooking);
+                return true;
+            });
         } else {
             // Remove any bookings that match this time period
-            bookings.removeIf(booking -> booking.getTimeSlot().equals(timePeriod));
+            write(() -> {
+                List<Booking> removed = new ArrayList<>();
+                Schedule updated = schedule;
+                for (Booking booking : schedule.getBookings()) {
+                    if (booking.getTimeSlot().equals(timePeriod)) {
+                        updated = updated.without(updated.find(booking));
+                        removed.add(booking);
+                    }
+                }
+                schedule = updated;
+                for (Booking booking : removed) {
+                    notifyListener(booking, null);
+                }
+                return true;
+            });
         }
     }
     
@@ -153,20 +319,12 @@ public class Facility {
         }
         
         // Find the booking with the matching confirmation ID
-        int bookingIndex = -1;
-        for (int i = 0; i < bookings.size(); i++) {
-            if (bookings.get(i).getConfirmationID().equals(confirmationID)) {
-                bookingIndex = i;
-                break;
+        for (Booking booking : schedule.getBookings()) {
+            if (booking.getConfirmationID().equals(confirmationID)) {
+                return cancelBooking(booking);
             }
         }
         
-        // If booking found, remove it and return true
-        if (bookingIndex >= 0) {
-            bookings.remove(bookingIndex);
-            return true;
-        }
-        
         // Booking not found
         return false;
     }
@@ -182,7 +340,15 @@ public class Facility {
             throw new IllegalArgumentException("Booking cannot be null");
         }
         
-        return cancelBooking(booking.getConfirmationID());
+        return write(() -> {
+            Schedule.Entry entry = schedule.find(booking);
+            if (entry == null) {
+                return false;
+            }
+            schedule = schedule.without(entry);
+            notifyListener(entry.booking, null);
+            return true;
+        });
     }
 
     /**
@@ -190,30 +356,265 @@ public class Facility {
      * 
      * @param booking the booking to add
      * @return true if the booking was added successfully
-     * @throws IllegalStateException if the booking overlaps with an existing booking
+     * @throws IllegalStateException if the time slot is already fully booked
      */
     public boolean addBooking(Booking booking) {
+        if (!tryAddBooking(booking)) {
+            throw new IllegalStateException("Time slot is not available for booking");
+        }
+        return true;
+    }
+
+    /**
+     * Adds a booking to the facility if its time slot is free. The check and
+     * the addition happen under the write lock, so concurrent bookings of the
+     * same slot cannot both succeed.
+     * 
+     * @param booking the booking to add
+     * @return true if the booking was added, false if its time slot is taken
+     * @throws IllegalArgumentException if the booking is for another facility
+     */
+    public boolean tryAddBooking(Booking booking) {
+        return tryAddBooking(booking, 0).isOk();
+    }
+
+    /**
+     * Adds a booking to the facility if its time slot is free, and otherwise
+     * suggests the nearest free time slots of the same length. The alternatives
+     * are found in the schedule the booking was rejected against, while the
+     * write lock is still held, so they were free at the moment of the conflict.
+     * 
+     * @param booking the booking to add
+     * @param alternatives the largest number of time slots to suggest on a conflict
+     * @return the confirmation ID, or SLOT_UNAVAILABLE with the suggested time slots
+     * @throws IllegalArgumentException if the booking is for another facility
+     */
+    public Result<String> tryAddBooking(Booking booking, int alternatives) {
         // Verify that the booking is for this facility
         if (!booking.getFacilityName().equals(facilityName)) {
             throw new IllegalArgumentException("Booking facility name doesn't match this facility");
         }
         
-        // Check availability
-        if (!checkAvailability(booking.getTimeSlot())) {
-            throw new IllegalStateException("Time slot is not available for booking");
+        return write(() -> {
+            // Check availability
+            if (!isAvailable(booking.getTimeSlotDecoder(), schedule)) {
+                Result<String> conflict = Result.error(ErrorCode.SLOT_UNAVAILABLE);
+                if (alternatives <= 0) {
+                    return conflict;
+                }
+                return conflict.withAlternatives(
+                        findNearestFreeSlots(schedule, booking.getTimeSlotDecoder(), alternatives));
+            }
+            
+            // Add the booking
+            schedule = schedule.with(new Schedule.Entry(booking));
+            notifyListener(null, booking);
+            return Result.ok(booking.getConfirmationID());
+        });
+    }
+
+    /**
+     * Finds the free time slots nearest to a requested one that can hold a
+     * booking of the same length. Every free interval of the week that is long
+     * enough offers the start closest to the requested start, and the
+     * candidates closest to it in time are returned.
+     * 
+     * @param snapshot a snapshot obtained from {@link #getSchedule()}
+     * @param requestedSlot the time slot that was requested
+     * @param limit the largest number of time slots to return
+     * @return up to limit time slots, nearest first
+     */
+    public List<String> findNearestFreeSlots(Schedule snapshot, TimeSlotDecoder requestedSlot, int limit) {
+        int duration = requestedSlot.getDurationMinutes();
+        Integer requestedDay = TimeSlotDecoder.DAY_TO_INDEX.get(requestedSlot.getStartDay());
+        if (duration <= 0 || duration > getOpeningMinutes() || requestedDay == null || limit <= 0) {
+            return List.of();
+        }
+        int requestedStart = requestedDay * MINUTES_PER_DAY + requestedSlot.getStartHour() * 60
+                + requestedSlot.getStartMin();
+
+        List<SlotFinder.Match> candidates = new ArrayList<>();
+        for (int day = 0; day < Schedule.DAYS_PER_WEEK; day++) {
+            int[] gaps = snapshot.freeIntervals(day, OPENING_HOUR * 60, CLOSING_HOUR * 60, capacity);
+            for (int i = 0; i < gaps.length; i += 2) {
+                if (gaps[i + 1] - gaps[i] >= duration) {
+                    int closest = requestedStart - day * MINUTES_PER_DAY;
+                    int start = Math.max(gaps[i], Math.min(closest, gaps[i + 1] - duration));
+                    candidates.add(new SlotFinder.Match(this, day, start, start + duration));
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingInt((SlotFinder.Match match) ->
+                Math.abs(match.getDay() * MINUTES_PER_DAY + match.getStart() - requestedStart))
+                .thenComparing(SlotFinder.START_ORDER));
+
+        List<String> nearest = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (int i = 0; i < candidates.size() && nearest.size() < limit; i++) {
+            nearest.add(candidates.get(i).getTimeSlot());
+        }
+        return nearest;
+    }
+
+    /**
+     * Moves one of this facility's bookings by a number of minutes, if the new
+     * time slot is free.
+     * 
+     * @param booking the booking to move
+     * @param minuteOffset the number of minutes to move the booking by
+     * @return the booking's new time slot, or why it could not be moved
+     * @see #tryReschedule(Booking, int, int, Function, String)
+     */
+    public Result<String> tryMove(Booking booking, int minuteOffset) {
+        return tryReschedule(booking, minuteOffset, minuteOffset, slot -> null, "New time slot is not available");
+    }
+
+    /**
+     * Moves the end of one of this facility's bookings by a number of minutes,
+     * if the longer time slot is free and passes validate.
+     * 
+     * @param booking the booking to resize
+     * @param additionalMinutes the number of minutes to move the end by
+     * @param validate checks the new time slot; returns null to allow it or an error result to reject it
+     * @return the booking's new time slot, or why it could not be resized
+     * @see #tryReschedule(Booking, int, int, Function, String)
+     */
+    public Result<String> tryResize(Booking booking, int additionalMinutes,
+            Function<TimeSlotDecoder, Result<String>> validate) {
+        return tryReschedule(booking, 0, additionalMinutes, validate,
+                "Cannot extend booking: new time slot is not available");
+    }
+
+    /**
+     * Atomically changes the time slot of one of this facility's bookings.
+     * While the write lock is held, the new time slot is computed from the
+     * booking's current one and checked against the schedule with the booking
+     * itself left out. Only if it passes is a single new snapshot published, in
+     * which the booking is replaced by a copy at the new time slot, and the copy
+     * is passed to the listener in place of the old booking. The booking object
+     * itself is never changed, so older snapshots keep showing it where it was,
+     * and a rejected change leaves everything untouched.
+     * 
+     * @param booking the booking to change
+     * @param startOffset the number of minutes to move the start by
+     * @param endOffset the number of minutes to move the end by
+     * @param validate checks the new time slot; returns null to allow it or an error result to reject it
+     * @param conflictMessage the message of the result returned when the new time slot is taken
+     * @return the booking's new time slot, or why the change was rejected
+     */
+    private Result<String> tryReschedule(Booking booking, int startOffset, int endOffset,
+            Function<TimeSlotDecoder, Result<String>> validate, String conflictMessage) {
+        return write(() -> {
+            Schedule.Entry entry = schedule.find(booking);
+            if (entry == null) {
+                return Result.error(ErrorCode.BOOKING_NOT_FOUND, "Booking with confirmation ID '"
+                        + booking.getConfirmationID() + "' not found");
+            }
+
+            // The caller's booking may be an earlier version of the entry's
+            Booking current = entry.booking;
+            String newTimeSlot = current.rescheduledTimeSlot(startOffset, endOffset);
+            TimeSlotDecoder newSlot = new TimeSlotDecoder(newTimeSlot);
+            Result<String> rejected = validate.apply(newSlot);
+            if (rejected != null) {
+                return rejected;
+            }
+            if (!isAvailable(newSlot, schedule, entry)) {
+                return Result.error(ErrorCode.SLOT_UNAVAILABLE, conflictMessage);
+            }
+
+            Booking rescheduled = current.rescheduled(newTimeSlot, newSlot);
+            schedule = schedule.replace(entry, new Schedule.Entry(rescheduled, newSlot));
+            notifyListener(current, rescheduled);
+            return Result.ok(newTimeSlot);
+        });
+    }
+
+    /**
+     * Adds bookings to several facilities as one change: either every booking
+     * is added or none is. The write locks of the facilities involved are taken
+     * in ascending registry ID order, so two such changes over overlapping sets
+     * of facilities cannot deadlock, and are held until every facility's new
+     * snapshot has been published and indexed. Bookings in the same call are checked against
+     * each other as well as against existing bookings.
+     * 
+     * @param bookings the bookings to add, grouped by registered facility
+     * @return null if every booking was added, otherwise the first booking found to be unavailable
+     * @throws IllegalArgumentException if a facility is not registered or a booking is for another facility
+     */
+    static Booking tryAddAll(Map<Facility, List<Booking>> bookings) {
+        List<Facility> ordered = new ArrayList<>(bookings.keySet());
+        ordered.sort(Comparator.comparingInt(Facility::getRegistryId));
+        for (Facility facility : ordered) {
+            if (facility.registryId < 0) {
+                throw new IllegalArgumentException("Facility '" + facility.facilityName + "' is not registered");
+            }
+        }
+
+        int locked = 0;
+        try {
+            for (Facility facility : ordered) {
+                facility.writeLock.lock();
+                locked++;
+            }
+
+            // Build every new snapshot first, so nothing is published if one booking is unavailable
+            Schedule[] updated = new Schedule[ordered.size()];
+            for (int i = 0; i < ordered.size(); i++) {
+                Facility facility = ordered.get(i);
+                Schedule snapshot = facility.schedule;
+                for (Booking booking : bookings.get(facility)) {
+                    if (!booking.getFacilityName().equals(facility.facilityName)) {
+                        throw new IllegalArgumentException("Booking facility name doesn't match this facility");
+                    }
+                    if (!facility.isAvailable(booking.getTimeSlotDecoder(), snapshot)) {
+                        return booking;
+                    }
+                    snapshot = snapshot.with(new Schedule.Entry(booking));
+                }
+                updated[i] = snapshot;
+            }
+            for (int i = 0; i < ordered.size(); i++) {
+                Facility facility = ordered.get(i);
+                facility.schedule = updated[i];
+                for (Booking booking : bookings.get(facility)) {
+                    facility.notifyListener(null, booking);
+                }
+            }
+            return null;
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                ordered.get(i).writeLock.unlock();
+            }
         }
-        
-        // Add the booking
-        return bookings.add(booking);
     }
 
     /**
      * Gets all bookings for this facility.
      * 
-     * @return a list of all bookings
+     * @return an unmodifiable list of all bookings
      */
     public List<Booking> getBookings() {
-        return new ArrayList<>(bookings);
+        return schedule.getBookings();
+    }
+
+    /**
+     * Gets the current snapshot of this facility's bookings. The snapshot never
+     * changes, so it can be read without locking.
+     * 
+     * @return the current schedule
+     */
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Gets the schedule version of this facility. It is bumped by every add,
+     * cancel, edit and extend.
+     * 
+     * @return the current schedule version
+     */
+    public long getVersion() {
+        return schedule.getVersion();
     }
 
     /**
@@ -225,6 +626,52 @@ public class Facility {
         return facilityID;
     }
 
+    /**
+     * Gets the dense integer ID assigned by the FacilityRegistry.
+     * 
+     * @return the registry ID, or -1 if the facility has not been registered
+     */
+    public int getRegistryId() {
+        return registryId;
+    }
+
+    /**
+     * Sets the registry ID. Only called by FacilityRegistry on registration.
+     * 
+     * @param registryId the registry ID
+     */
+    void setRegistryId(int registryId) {
+        this.registryId = registryId;
+    }
+
+    /**
+     * Sets the listener told about every booking added to or removed from this
+     * facility. The listener is first told about the bookings the facility
+     * already holds, under the same lock, so it misses no change.
+     * 
+     * @param listener the listener, or null to stop notifying
+     */
+    void setBookingListener(BookingListener listener) {
+        write(() -> {
+            this.listener = listener;
+            if (listener != null) {
+                for (Booking booking : schedule.getBookings()) {
+                    listener.bookingChanged(this, null, booking);
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Gets the number of bookings that may overlap at any minute.
+     * 
+     * @return the capacity, 1 for a facility that takes one booking at a time
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
     /**
      * Gets the facility name.
      * 
@@ -237,35 +684,96 @@ public class Facility {
     /* Helper methods */
 
     /**
-     * Checks if two time slots overlap.
+     * Checks a decoded time slot against operating hours and a snapshot of the bookings.
      * 
-     * @param slot1 the first time slot
-     * @param slot2 the second time slot
-     * @return true if the time slots overlap
+     * @param requestedSlot the time slot to check
+     * @param snapshot a snapshot obtained from {@link #getSchedule()}
+     * @return true if the time slot is free
      */
-    private boolean isOverlapping(TimeSlotDecoder slot1, TimeSlotDecoder slot2) {
-        // Convert to day indices and minutes
-        int slot1Start = TimeSlotDecoder.DAY_TO_INDEX.get(slot1.getStartDay()) * 24 * 60 
-                        + slot1.getStartHour() * 60 + slot1.getStartMin();
-        int slot1End = slot1Start + slot1.getDurationMinutes();
-        
-        int slot2Start = TimeSlotDecoder.DAY_TO_INDEX.get(slot2.getStartDay()) * 24 * 60 
-                        + slot2.getStartHour() * 60 + slot2.getStartMin();
-        int slot2End = slot2Start + slot2.getDurationMinutes();
+    public boolean isAvailable(TimeSlotDecoder requestedSlot, Schedule snapshot) {
+        return isAvailable(requestedSlot, snapshot, null);
+    }
+
+    /**
+     * Checks if a time period is available in a snapshot, ignoring one of its
+     * entries. Used to check a booking's new time slot while it still holds the old one.
+     * 
+     * @param requestedSlot the time period
+     * @param snapshot the snapshot to check against
+     * @param ignored an entry of the snapshot to leave out, or null
+     * @return true if the facility is available during the entire time period
+     */
+    private boolean isAvailable(TimeSlotDecoder requestedSlot, Schedule snapshot, Schedule.Entry ignored) {
+        if (requestedSlot.getStartHour() < OPENING_HOUR) {
+            return false; // Outside of operating hours
+        }
+
+        if (requestedSlot.getEndHour() == CLOSING_HOUR && requestedSlot.getEndMin() > 0
+                || requestedSlot.getEndHour() >= CLOSING_HOUR + 1) {
+            return false;
+        }
+
+        if (!requestedSlot.getStartDay().equals(requestedSlot.getEndDay())) {
+            return false; // Bookings never span more than one day
+        }
         
-        // Check for overlap
-        return (slot1Start < slot2End && slot2Start < slot1End);
+        // Check that the overlapping bookings leave room for one more
+        int start = requestedSlot.getStartHour() * 60 + requestedSlot.getStartMin();
+        return snapshot.peakOccupancyExcept(TimeSlotDecoder.DAY_TO_INDEX.get(requestedSlot.getStartDay()),
+                start, start + requestedSlot.getDurationMinutes(), ignored) < capacity;
+    }
+
+    /**
+     * Tells the listener about a change. Called with the write lock held, after
+     * the new schedule has been published.
+     */
+    private void notifyListener(Booking removed, Booking added) {
+        if (listener != null) {
+            listener.bookingChanged(this, removed, added);
+        }
+    }
+
+    /**
+     * Runs an action that replaces the schedule while holding the write lock.
+     * Writers are serialised per facility; readers are never blocked.
+     * 
+     * @param writer the action to run
+     * @return the result of the action
+     */
+    private <T> T write(Supplier<T> writer) {
+        writeLock.lock();
+        try {
+            return writer.get();
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
      * Parses a comma-separated list of days.
      * 
      * @param days the days string (e.g., "Mon, Tue")
-     * @return a set of day abbreviations
+     * @return a set of day abbreviations, in the order given
      */
     private Set<String> parseRequestedDays(String days) {
         return Arrays.stream(days.split(","))
                     .map(String::trim)
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Receives the changes to a facility's bookings while its write lock is
+     * held, so that an index of the bookings changes together with the schedule.
+     */
+    interface BookingListener {
+        /**
+         * Called after a booking of a facility was added, removed or replaced.
+         * A rescheduled booking is replaced by a copy with the same confirmation ID.
+         * 
+         * @param facility the facility that changed
+         * @param removed the booking taken out, or null
+         * @param added the booking put in, or null
+         */
+        void bookingChanged(Facility facility, Booking removed, Booking added);
     }
 }
\ No newline at end of file
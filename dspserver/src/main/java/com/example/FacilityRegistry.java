@@ -0,0 +1,94 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of facilities, indexed by name and by a dense integer ID.
+ * IDs are assigned in registration order starting from 0, so they can be used
+ * directly as array indices by anything that keeps per-facility state.
+ */
+public class FacilityRegistry {
+    private final Map<String, Facility> byName;
+    private volatile Facility[] byId;
+
+    /**
+     * Constructs an empty FacilityRegistry
+     */
+    public FacilityRegistry() {
+        this.byName = new ConcurrentHashMap<>();
+        this.byId = new Facility[0];
+    }
+
+    /**
+     * Registers a facility and assigns it the next free ID.
+     *
+     * @param facility the facility to register
+     * @return the ID assigned to the facility
+     * @throws IllegalArgumentException if the facility is null or its name is already taken
+     */
+    public synchronized int register(Facility facility) {
+        if (facility == null) {
+            throw new IllegalArgumentException("Facility cannot be null");
+        }
+        if (byName.containsKey(facility.getFacilityName())) {
+            throw new IllegalArgumentException("Facility '" + facility.getFacilityName() + "' already exists");
+        }
+
+        int id = byId.length;
+        facility.setRegistryId(id);
+
+        Facility[] grown = Arrays.copyOf(byId, id + 1);
+        grown[id] = facility;
+        byName.put(facility.getFacilityName(), facility);
+        byId = grown;
+        return id;
+    }
+
+    /**
+     * Gets a facility by name.
+     *
+     * @param facilityName the facility name
+     * @return the facility, or null if no facility has that name
+     */
+    public Facility get(String facilityName) {
+        if (facilityName == null) {
+            return null;
+        }
+        return byName.get(facilityName);
+    }
+
+    /**
+     * Gets a facility by its registry ID.
+     *
+     * @param facilityId the facility ID
+     * @return the facility, or null if the ID is out of range
+     */
+    public Facility get(int facilityId) {
+        Facility[] facilities = byId;
+        if (facilityId < 0 || facilityId >= facilities.length) {
+            return null;
+        }
+        return facilities[facilityId];
+    }
+
+    /**
+     * Gets the number of registered facilities. Valid IDs are 0 to size() - 1.
+     *
+     * @return the number of facilities
+     */
+    public int size() {
+        return byId.length;
+    }
+
+    /**
+     * Gets all facilities ordered by ID.
+     *
+     * @return an unmodifiable list of facilities
+     */
+    public List<Facility> getAll() {
+        return List.of(byId);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FindSlots (service 15): replies with the earliest free slots of a given
+ * length across facilities and a range of days. Facilities are sent as names
+ * joined with ":", empty for all of them. The slots come back as
+ * "facility|timeSlot" entries joined with ":", the format BatchBook accepts.
+ */
+public class FindSlotsHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FindSlotsHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 15;
+    }
+
+    @Override
+    public String getName() {
+        return "FIND_SLOTS";
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("FIND_SLOTS | Duration: {} | Days: {}-{} | Facilities: {} | MaxResults: {}",
+                request.get("durationMinutes"), request.get("firstDay"), request.get("lastDay"),
+                request.get("facilityNames"), request.get("maxResults"));
+
+        String encoded = request.getString("facilityNames");
+        List<String> facilityNames = encoded == null || encoded.isEmpty() ? List.of()
+                : Arrays.stream(encoded.split(":")).map(String::trim).collect(Collectors.toList());
+        Result<List<SlotFinder.Match>> result = request.getBookingService().findSlots(
+                request.getInt("durationMinutes"), request.getString("firstDay"), request.getString("lastDay"),
+                facilityNames, request.getInt("maxResults"));
+        if (!result.isOk()) {
+            request.replyError(result);
+            LOGGER.info("RESPONSE | FIND_SLOTS | Client: {} | {}", request.getClientInfo(), result.getMessage());
+            return;
+        }
+
+        Map<String, Object> findSlotsResp = new HashMap<>();
+        findSlotsResp.put("slots", result.getValue().stream().map(SlotFinder.Match::toString)
+                .collect(Collectors.joining(":")));
+        request.reply(findSlotsResp);
+        LOGGER.info("RESPONSE | FIND_SLOTS | Client: {} | Found: {}", request.getClientInfo(),
+                result.getValue().size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ListAvailability (service 1): replies with a facility's free time slots on
+ * the requested days, or NOT_MODIFIED if the client's copy is still current.
+ */
+public class ListAvailabilityHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ListAvailabilityHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return "LIST_AVAILABILITY";
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.HIGH;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("LIST_AVAILABILITY | Facility: {} | Days: {}", request.get("facilityName"), request.get("days"));
+
+        BookingService bookingService = request.getBookingService();
+        String facilityName = request.resolveFacilityName();
+        if (facilityName == null) {
+            request.replyError(ErrorCode.FACILITY_NOT_FOUND, "Error: Facility ID is not found");
+            return;
+        }
+        Object knownVersion = request.get("knownVersion");
+        if (knownVersion != null && (int) knownVersion >= 0
+                && (int) knownVersion == bookingService.getScheduleVersion(facilityName)) {
+            // The client's copy is still current; reply with the header only
+            request.send(new HashMap<>(), RequestType.NOT_MODIFIED);
+            LOGGER.info("RESPONSE | LIST_AVAILABILITY | Client: {} | Not modified (version {})",
+                    request.getClientInfo(), knownVersion);
+            return;
+        }
+
+        Availability availability = bookingService.getAvailability(facilityName, request.getString("days"));
+        LOGGER.debug("LIST_AVAILABILITY | {}", bookingService.getAvailabilityCache());
+
+        if (availability.isError()) {
+            request.replyError(availability.getErrorCode(), availability.getPayload());
+            LOGGER.info("RESPONSE | LIST_AVAILABILITY | Client: {} | {}", request.getClientInfo(),
+                    availability.getPayload());
+            return;
+        }
+
+        Map<String, Object> listAvailabilityResp = new HashMap<>();
+        // Reuse the payload encoded when the result was cached
+        listAvailabilityResp.put("availabilities", availability.getEncodedPayload());
+        listAvailabilityResp.put("version", (int) availability.getVersion());
+        request.reply(listAvailabilityResp);
+        LOGGER.info("RESPONSE | LIST_AVAILABILITY | Client: {} | Slots: {}", request.getClientInfo(),
+                availability.getPayload());
+    }
+}
@@ -1,13 +1,11 @@
 package com.example;
 
-import java.util.Arrays;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,449 +33,112 @@ public class Main {
                 BookingService bookingService = new BookingService();
                 // Define all facilities in an array to avoid repetition
                 String[] facilityNames = { "Gym", "Pool", "Spa", "Event Hall", "Lounge" };
+                // The gym and pool take many bookings at once; the rest one at a time
+                int[] facilityCapacities = { 20, 10, 1, 1, 1 };
 
                 // Create and add each facility in a loop
-                for (String name : facilityNames) {
-                        Facility facility = new Facility(name);
+                for (int i = 0; i < facilityNames.length; i++) {
+                        String name = facilityNames[i];
+                        Facility facility = new Facility(name, facilityCapacities[i]);
                         bookingService.addFacility(facility);
+                        LOGGER.debug("Facility {} registered with ID {} and capacity {}", name,
+                                        facility.getRegistryId(), facility.getCapacity());
                 }
                 LOGGER.info("Gym, Pool, Spa, Event Hall & Lounge Facilities are added for booking");
 
                 LOGGER.info("BookingService initialized");
 
-                while (true) {
+                // Drop monitoring clients as their periods end, even when no booking changes
+                ScheduledExecutorService expiryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "callback-expiry");
+                        thread.setDaemon(true);
+                        return thread;
+                });
+                expiryTimer.scheduleAtFixedRate(() -> {
+                        int expired = bookingService.removeExpiredClients();
+                        if (expired > 0) {
+                                LOGGER.info("NOTIFICATION | Removed {} expired clients", expired);
+                        }
+                }, 1, 1, TimeUnit.SECONDS);
+
+                // Notifications are sent by worker threads so that requests are not held up by fanout
+                NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket,
+                                Integer.getInteger("notification.workers", NotificationDispatcher.DEFAULT_WORKERS),
+                                Integer.getInteger("notification.queueCapacity",
+                                                NotificationDispatcher.DEFAULT_QUEUE_CAPACITY),
+                                Integer.getInteger("notification.coalesceMillis",
+                                                NotificationDispatcher.DEFAULT_COALESCE_WINDOW_MS));
+                MulticastChannel multicastChannel = createMulticastChannel(socket.getParser());
+                dispatcher.setMulticastChannel(multicastChannel);
+
+                ServerContext context = new ServerContext(PORT_NUMBER, socket, bookingService, dispatcher,
+                                multicastChannel);
+                // Retransmitted mutating requests are answered from here when the socket does not filter them
+                RequestDedupeCache dedupeCache = new RequestDedupeCache(
+                                Integer.getInteger("dedupe.capacity", RequestDedupeCache.DEFAULT_CAPACITY),
+                                Long.getLong("dedupe.retentionMillis", RequestDedupeCache.DEFAULT_RETENTION_MS));
+                ServiceRegistry registry = new ServiceRegistry(dedupeCache)
+                                .register(new ListAvailabilityHandler())
+                                .register(new BookFacilityHandler())
+                                .register(new EditBookingHandler())
+                                .register(new RegisterCallbackHandler())
+                                .register(new NotificationReplyHandler(5, "NOTIFY_CALLBACK"))
+                                .register(new CancelBookingHandler())
+                                .register(new ExtendBookingHandler())
+                                .register(new SocketSwitchingHandler())
+                                .register(new ShutdownHandler())
+                                .register(new NotificationReplyHandler(10, "NOTIFY_DELTA"))
+                                .register(new RenewCallbackHandler())
+                                .register(new DeregisterCallbackHandler())
+                                .register(new BatchBookHandler())
+                                .register(new BundleBookHandler())
+                                .register(new FindSlotsHandler());
+
+                while (context.isRunning()) {
                         LOGGER.debug("Waiting for incoming requests...");
-                        SenderResult rawResult = socket.receive();
-                        Map<String, Object> result = rawResult.getResult();
-                        List<MonitoringClient> clients = bookingService.getAllClients();
-
-                        int service_id = (int) result.get("service_id");
-                        String clientInfo = rawResult.getSenderIpAddress() + ":" + rawResult.getSenderPort();
+                        ServiceRequest request = new ServiceRequest(context.getSocket().receive(), context);
                         LOGGER.info("Received request | Client: {} | Service: {} | ReqID: {}",
-                                        clientInfo, getServiceName(service_id), result.get("request_id"));
-
-                        switch (service_id) {
-                                case 1:
-                                        LOGGER.info("LIST_AVAILABILITY | Facility: {} | Days: {}",
-                                                        result.get("facilityName"), result.get("days"));
-
-                                        List<String> facilityAvailability = bookingService.listAvailability(
-                                                        (String) result.get("facilityName"),
-                                                        (String) result.get("days"));
-
-                                        String availabilities = String.join(":", facilityAvailability);
-                                        Map<String, Object> listAvailabilityResp = new HashMap<>();
-
-                                        if (availabilities.startsWith("Error:")) {
-                                                listAvailabilityResp.put("errorMessage", availabilities);
-                                                socket.send(listAvailabilityResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.ERROR, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-                                                LOGGER.info("RESPONSE | LIST_AVAILABILITY | Client: {} | {}",
-                                                                clientInfo, availabilities);
-                                                break;
-                                        } else {
-                                                listAvailabilityResp.put("availabilities", availabilities);
-
-                                                socket.send(listAvailabilityResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.RESPONSE, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-
-                                                LOGGER.info("RESPONSE | LIST_AVAILABILITY | Client: {} | Slots: {}",
-                                                                clientInfo, availabilities);
-
-                                                break;
-                                        }
-
-                                case 2:
-                                        LOGGER.info("BOOK_FACILITY | Facility: {} | TimeSlot: {}",
-                                                        result.get("facilityName"), result.get("timeSlot"));
-
-                                        Facility newFacility = null;
-                                        Map<String, Object> bookFacilityResp = new HashMap<>();
-
-                                        // First, try to find an existing facility
-                                        for (Facility facility : bookingService.getAllFacilities()) {
-                                                if (facility.getFacilityName().equals(result.get("facilityName"))) {
-                                                        newFacility = facility;
-                                                        break; // Exit the loop once we find a match
-                                                }
-                                        }
-
-                                        // If no matching facility was found, create a new one
-                                        if (newFacility == null) {
-                                                bookFacilityResp.put("errorMessage",
-                                                                "Error: Facility name is not found");
-                                                socket.send(bookFacilityResp, (UUID) result.get("request_id"),
-                                                                service_id, RequestType.ERROR,
-                                                                rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-                                        } else {
-                                                String message = bookingService.bookFacility(
-                                                                newFacility.getFacilityName(),
-                                                                (String) result.get("timeSlot"));
-
-                                                if (message.contains("Error:")) {
-                                                        bookFacilityResp.put("errorMessage", message);
-                                                        socket.send(bookFacilityResp, (UUID) result.get("request_id"),
-                                                                        service_id, RequestType.ERROR,
-                                                                        rawResult.getSenderIpAddress(),
-                                                                        rawResult.getSenderPort());
-                                                        LOGGER.info("RESPONSE | BOOK_FACILITY | Client: {} | {}",
-                                                                        clientInfo, message);
-                                                } else {
-                                                        bookFacilityResp.put("confirmationID", message);
-                                                        socket.send(bookFacilityResp, (UUID) result.get("request_id"),
-                                                                        service_id, RequestType.RESPONSE,
-                                                                        rawResult.getSenderIpAddress(),
-                                                                        rawResult.getSenderPort());
-                                                        LOGGER.info("RESPONSE | BOOK_FACILITY | Client: {} | ConfirmationID: {}",
-                                                                        clientInfo, message);
-                                                        notifyCallbackClients(newFacility.getFacilityName(),
-                                                                        bookingService,
-                                                                        clients, socket);
-                                                }
-                                        }
-
-                                        break;
-
-                                case 3:
-                                        LOGGER.info("EDIT_BOOKING | ConfirmationID: {} | MinuteOffset: {}",
-                                                        result.get("confirmationID"), result.get("minuteOffset"));
-
-                                        try {
-                                                boolean success = bookingService.editBooking(
-                                                                (String) result.get("confirmationID"),
-                                                                (int) result.get("minuteOffset"));
-
-                                                Map<String, Object> editBookingResp = new HashMap<>();
-                                                editBookingResp.put("success", success);
-
-                                                socket.send(editBookingResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.RESPONSE, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-
-                                                LOGGER.info("RESPONSE | EDIT_BOOKING | Client: {} | Success: {}",
-                                                                clientInfo, success);
-
-                                                String facilityName = null;
-                                                for (Booking booking : bookingService.getAllBookings()) {
-                                                        if (booking.getConfirmationID()
-                                                                        .equals(result.get("confirmationID"))) {
-                                                                facilityName = booking.getFacilityName();
-                                                                break;
-                                                        }
-                                                }
-                                                if (facilityName != null) {
-                                                        notifyCallbackClients(facilityName, bookingService, clients,
-                                                                        socket);
-                                                }
-
-                                        } catch (Exception e) {
-                                                Map<String, Object> editBookingResp = new HashMap<>();
-                                                editBookingResp.put("errorMessage", e.getMessage());
-                                                socket.send(editBookingResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.ERROR, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-                                                LOGGER.info("RESPONSE | EDIT_BOOKING | Client: {} | Error: {}",
-                                                                clientInfo, e.getMessage());
-                                        }
-
-                                        break;
-
-                                case 4:
-                                        LOGGER.info("REGISTER_CALLBACK | Facility: {} | MonitoringPeriod: {}min",
-                                                        result.get("facilityName"),
-                                                        result.get("monitoringPeriodInMinutes"));
-
-                                        boolean registerSuccess = bookingService.registerClient(
-                                                        (String) result.get("facilityName"),
-                                                        (int) result.get("monitoringPeriodInMinutes"),
-                                                        rawResult.getSenderPort(),
-                                                        rawResult.getSenderIpAddress());
-
-                                        Map<String, Object> registerCallbackResp = new HashMap<>();
-
-                                        if (registerSuccess) {
-                                                registerCallbackResp.put("success", registerSuccess);
-
-                                                socket.send(registerCallbackResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.RESPONSE, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-                                        } else {
-                                                registerCallbackResp.put("errorMessage", "Failed to register Callback");
-
-                                                socket.send(registerCallbackResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.ERROR, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-                                        }
-                                        LOGGER.info("RESPONSE | REGISTER_CALLBACK | Client: {} | Success: {}",
-                                                        clientInfo, registerSuccess);
-                                        break;
-
-                                case 6:
-                                        LOGGER.info("CANCEL_BOOKING | ConfirmationID: {}",
-                                                        result.get("confirmationID"));
-
-                                        Map<String, Object> cancelBookingResp = new HashMap<>();
-
-                                        try {
-                                                String facilityName = null;
-                                                for (Booking booking : bookingService.getAllBookings()) {
-                                                        if (booking.getConfirmationID()
-                                                                        .equals(result.get("confirmationID"))) {
-                                                                facilityName = booking.getFacilityName();
-                                                                break;
-                                                        }
-                                                }
-
-                                                boolean cancelBookingSuccess = bookingService.cancelBooking(
-                                                                (String) result.get("confirmationID"));
-                                                cancelBookingResp.put("success", cancelBookingSuccess);
-
-                                                socket.send(cancelBookingResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.RESPONSE, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-
-                                                LOGGER.info("RESPONSE | CANCEL_BOOKING | Client: {} | Success: {}",
-                                                                clientInfo, cancelBookingSuccess);
-
-                                                if (facilityName != null) {
-                                                        notifyCallbackClients(facilityName, bookingService, clients,
-                                                                        socket);
-                                                }
-
-                                        } catch (Exception e) {
-                                                cancelBookingResp.put("errorMessage", e.getMessage());
-                                                socket.send(cancelBookingResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.ERROR, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-
-                                                LOGGER.info("RESPONSE | CANCEL_BOOKING | Client: {} | Error: {}",
-                                                                clientInfo, e.getMessage());
-                                        }
-                                        break;
-
-                                case 7:
-                                        LOGGER.info("EXTEND_BOOKING | ConfirmationID: {} | AdditionalMinutes: {}",
-                                                        result.get("confirmationID"), result.get("minuteOffset"));
-
-                                        Map<String, Object> extendBookingResp = new HashMap<>();
-
-                                        try {
-                                                boolean extendBookingSuccess = bookingService.extendBooking(
-                                                                (String) result.get("confirmationID"),
-                                                                (int) result.get("minuteOffset"));
-
-                                                extendBookingResp.put("success", extendBookingSuccess);
-
-                                                socket.send(extendBookingResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.RESPONSE, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-
-                                                LOGGER.info("RESPONSE | EXTEND_BOOKING | Client: {} | Success: {}",
-                                                                clientInfo, extendBookingSuccess);
-
-                                                String facilityName = null;
-                                                for (Booking booking : bookingService.getAllBookings()) {
-                                                        if (booking.getConfirmationID()
-                                                                        .equals(result.get("confirmationID"))) {
-                                                                facilityName = booking.getFacilityName();
-                                                                break;
-                                                        }
-                                                }
-                                                if (facilityName != null) {
-                                                        notifyCallbackClients(facilityName, bookingService, clients,
-                                                                        socket);
-                                                }
-                                        } catch (Exception e) {
-                                                extendBookingResp.put("errorMessage", e.getMessage());
-                                                socket.send(extendBookingResp, (UUID) result.get("request_id"),
-                                                                service_id,
-                                                                RequestType.ERROR, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-
-                                                LOGGER.info("RESPONSE | EXTEND_BOOKING | Client: {} | Error: {}",
-                                                                clientInfo, e.getMessage());
-                                        }
-
-                                        break;
-
-                                case 8:
-                                        String socketType = (String) result.get("switch");
-                                        LOGGER.info("SWITCH_SOCKET | Type: {}", socketType);
-
-                                        if (socketType == null) {
-                                                LOGGER.error("SWITCH_SOCKET | socketType is null in the request");
-                                                Map<String, Object> errorResp = new HashMap<>();
-                                                errorResp.put("errorMessage", "Missing socket type in request");
-                                                socket.send(errorResp, (UUID) result.get("request_id"),
-                                                                service_id, RequestType.ERROR,
-                                                                rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-                                                break;
-                                        }
-
-                                        // Check the request type
-                                        RequestType requestType = (RequestType) result.get("request_type");
-                                        UUID requestId = (UUID) result.get("request_id");
-
-                                        // Store current socket type for logging
-                                        String currentSocketType = socket.getClass().getSimpleName();
-                                        LOGGER.info("SWITCH_SOCKET | Current socket: {}, Target socket: {}",
-                                                        currentSocketType, socketType);
-
-                                        // Prepare response
-                                        Map<String, Object> socketResp = new HashMap<>();
-
-                                        // If this is an AtMostOnceSocket and we're switching to AtLeastOnceSocket
-                                        if (currentSocketType.equals("AtMostOnceSocket")
-                                                        && socketType.equals("AtLeastOnceSocket")) {
-                                                // First send response to the switch request
-                                                LOGGER.info("SWITCH_SOCKET | Sending response to switch request");
-                                                socketResp.put("message", true);
-                                                socket.send(socketResp, requestId, service_id,
-                                                                RequestType.RESPONSE, rawResult.getSenderIpAddress(),
-                                                                rawResult.getSenderPort());
-
-                                                // Now wait specifically for an ACK before switching
-                                                LOGGER.info("SWITCH_SOCKET | Waiting for client ACK before switching...");
-                                                try {
-                                                        // Set a timeout to ensure we don't wait forever
-                                                        socket.setTimeout(5000); // 5 second timeout
-
-                                                        // Instead of trying to receive the ACK (which might be
-                                                        // processed internally),
-                                                        // just add a small delay to give the socket time to process the
-                                                        // ACK
-                                                        LOGGER.info("SWITCH_SOCKET | Adding delay to allow ACK processing");
-                                                        try {
-                                                                Thread.sleep(1000); // 1 second delay
-                                                        } catch (InterruptedException e) {
-                                                                Thread.currentThread().interrupt();
-                                                        }
-
-                                                        // Now close the socket and create the new one
-                                                        LOGGER.info("SWITCH_SOCKET | Closing {} after ACK processing delay",
-                                                                        currentSocketType);
-                                                        socket.close();
-
-                                                        // Create the new AtLeastOnceSocket
-                                                        LOGGER.info("Creating AtLeastOnceSocket on port {}",
-                                                                        PORT_NUMBER);
-                                                        socket = new AtLeastOnceSocket(PORT_NUMBER);
-                                                        socket.createServer();
-                                                        LOGGER.info("AtLeastOnceSocket server started successfully");
-
-                                                } catch (Exception e) {
-                                                        LOGGER.error("SWITCH_SOCKET | Error during ACK wait or socket creation: {}",
-                                                                        e.getMessage());
-                                                        // Try to recover with default socket
-                                                        try {
-                                                                socket = new AtLeastOnceSocket(PORT_NUMBER);
-                                                                socket.createServer();
-                                                                LOGGER.info("Recovered with AtLeastOnceSocket after error");
-                                                        } catch (Exception recoveryEx) {
-                                                                LOGGER.error("Failed to recover: {}",
-                                                                                recoveryEx.getMessage());
-                                                                throw recoveryEx;
-                                                        }
-                                                }
-                                        } else {
-                                                // For other socket type combinations or same socket type
-                                                boolean switchSuccess = false;
-
-                                                try {
-                                                        // Close the current socket
-                                                        LOGGER.info("SWITCH_SOCKET | Closing current socket: {}",
-                                                                        currentSocketType);
-                                                        socket.close();
-
-                                                        // Create new socket based on request
-                                                        if (socketType.equals("AtLeastOnceSocket")) {
-                                                                LOGGER.info("Creating AtLeastOnceSocket on port {}",
-                                                                                PORT_NUMBER);
-                                                                socket = new AtLeastOnceSocket(PORT_NUMBER);
-                                                                socket.createServer();
-                                                                LOGGER.info("AtLeastOnceSocket server started successfully");
-                                                                switchSuccess = true;
-                                                        } else if (socketType.equals("AtMostOnceSocket")) {
-                                                                LOGGER.info("Creating AtMostOnceSocket on port {}",
-                                                                                PORT_NUMBER);
-                                                                socket = new AtMostOnceSocket(PORT_NUMBER);
-                                                                socket.createServer();
-                                                                LOGGER.info("AtMostOnceSocket server started successfully");
-                                                                switchSuccess = true;
-                                                        } else {
-                                                                LOGGER.error("Unknown socket type: {}", socketType);
-                                                                socketResp.put("errorMessage",
-                                                                                "Unknown socket type: " + socketType);
-                                                                switchSuccess = false;
-                                                        }
-
-                                                        // Send response based on success
-                                                        if (switchSuccess) {
-                                                                socketResp.put("message", true);
-                                                                socket.send(socketResp, requestId, service_id,
-                                                                                RequestType.RESPONSE,
-                                                                                rawResult.getSenderIpAddress(),
-                                                                                rawResult.getSenderPort());
-                                                                LOGGER.info("RESPONSE | SWITCH_SOCKET | Client: {} | Switched to: {}",
-                                                                                clientInfo, socketType);
-                                                        } else {
-                                                                socketResp.put("message", false);
-                                                                socket.send(socketResp, requestId, service_id,
-                                                                                RequestType.ERROR,
-                                                                                rawResult.getSenderIpAddress(),
-                                                                                rawResult.getSenderPort());
-                                                                LOGGER.info("RESPONSE | SWITCH_SOCKET | Client: {} | Failed to switch",
-                                                                                clientInfo);
-                                                        }
-
-                                                } catch (Exception e) {
-                                                        LOGGER.error("Failed to switch socket: {}", e.getMessage());
-                                                        socketResp.put("errorMessage",
-                                                                        "Failed to switch socket: " + e.getMessage());
-
-                                                        // Try to recover
-                                                        try {
-                                                                socket = new AtLeastOnceSocket(PORT_NUMBER);
-                                                                socket.createServer();
-                                                                LOGGER.info("Recovered with AtLeastOnceSocket");
-
-                                                                socket.send(socketResp, requestId, service_id,
-                                                                                RequestType.ERROR,
-                                                                                rawResult.getSenderIpAddress(),
-                                                                                rawResult.getSenderPort());
-                                                        } catch (Exception recoveryEx) {
-                                                                LOGGER.error("Failed to recover: {}",
-                                                                                recoveryEx.getMessage());
-                                                                throw recoveryEx;
-                                                        }
-                                                }
-                                        }
-                                        break;
-
-                                case 9:
-                                        LOGGER.warn("SHUTDOWN | Client: {}", clientInfo);
-                                        socket.close();
-                                        LOGGER.info("Server socket closed");
-                                        return;
+                                        request.getClientInfo(), registry.getName(request.getServiceId()),
+                                        request.getRequestId());
+                        registry.dispatch(request);
+                }
+                LOGGER.info("SERVICES | {}", registry);
+                LOGGER.info("SERVICES | {}", dedupeCache);
+        }
 
-                                default:
-                                        LOGGER.error("UNKNOWN_SERVICE | ID: {} | Client: {}", service_id, clientInfo);
-                                        socket.close();
-                                        break;
+        /**
+         * Creates the channel for multicast notifications if the
+         * notification.multicast system property is true. The channel is
+         * configured by the notification.multicastGroup, notification.multicastPort
+         * and notification.multicastInterface system properties.
+         * 
+         * @param parser The parser of the server socket, shared by the channel
+         * @return The channel, or null if multicast is disabled or unavailable
+         */
+        private static MulticastChannel createMulticastChannel(Parser parser) {
+                if (!Boolean.getBoolean("notification.multicast")) {
+                        LOGGER.info("Multicast notifications disabled");
+                        return null;
+                }
+                try {
+                        String interfaceName = System.getProperty("notification.multicastInterface");
+                        NetworkInterface networkInterface = null;
+                        if (interfaceName != null) {
+                                networkInterface = NetworkInterface.getByName(interfaceName);
+                                if (networkInterface == null) {
+                                        throw new IllegalArgumentException("Unknown interface " + interfaceName);
+                                }
                         }
+                        MulticastChannel channel = new MulticastChannel(parser,
+                                        InetAddress.getByName(System.getProperty("notification.multicastGroup",
+                                                        MulticastChannel.DEFAULT_BASE_GROUP)),
+                                        Integer.getInteger("notification.multicastPort", MulticastChannel.DEFAULT_PORT),
+                                        networkInterface);
+                        LOGGER.info("Multicast notifications enabled");
+                        return channel;
+                } catch (IOException | IllegalArgumentException e) {
+                        LOGGER.warn("Multicast notifications unavailable, using unicast: {}", e.getMessage());
+                        return null;
                 }
         }
 
@@ -531,227 +192,4 @@ public class Main {
                 // Set specific logger levels if needed
                 context.getLogger("Main").setLevel(Level.DEBUG);
         }
-
-        private static String getServiceName(int serviceId) {
-                switch (serviceId) {
-                        case 1:
-                                return "LIST_AVAILABILITY";
-                        case 2:
-                                return "BOOK_FACILITY";
-                        case 3:
-                                return "EDIT_BOOKING";
-                        case 4:
-                                return "REGISTER_CALLBACK";
-                        case 6:
-                                return "CANCEL_BOOKING";
-                        case 7:
-                                return "EXTEND_BOOKING";
-                        case 8:
-                                return "SWITCH_SOCKET";
-                        case 9:
-                                return "SHUTDOWN";
-                        default:
-                                return "UNKNOWN(" + serviceId + ")";
-                }
-        }
-
-        /**
-         * Notifies monitoring clients about facility availability changes.
-         * 
-         * @param facilityName   The facility that has updated availability
-         * @param bookingService Service to retrieve availability information
-         * @param clients        List of clients to be notified
-         * @param socket         Socket for sending notifications
-         * @throws Exception If an error occurs during the notification process
-         */
-        private static void notifyCallbackClients(
-                        String facilityName,
-                        BookingService bookingService,
-                        List<MonitoringClient> clients,
-                        CustomSocket socket) throws Exception {
-
-                // Validate inputs
-                if (facilityName == null || facilityName.isEmpty()) {
-                        LOGGER.warn("NOTIFICATION | Invalid facility name: {}", facilityName);
-                        return;
-                }
-
-                if (clients == null || clients.isEmpty()) {
-                        LOGGER.info("NOTIFICATION | Facility: {} | No clients to notify", facilityName);
-                        return;
-                }
-
-                if (socket == null) {
-                        LOGGER.error("NOTIFICATION | Facility: {} | Socket is null", facilityName);
-                        return;
-                }
-
-                LOGGER.info("NOTIFICATION | Facility: {} | Notifying {} clients", facilityName, clients.size());
-
-                // Log all facilities for debugging
-                LOGGER.debug("NOTIFICATION | All facilities: {}",
-                                bookingService.getAllFacilities().stream()
-                                                .map(f -> f.getFacilityName())
-                                                .collect(Collectors.joining(", ")));
-
-                NotificationStats stats = new NotificationStats();
-
-                // Pre-fetch availability data once instead of for each client
-                List<String> facilityAvailability;
-                String availabilityString = null;
-                try {
-                        facilityAvailability = bookingService.listAvailability(
-                                        facilityName, "Mon,Tue,Wed,Thu,Fri,Sat,Sun");
-
-                        // Handle null case
-                        if (facilityAvailability == null) {
-                                LOGGER.warn("NOTIFICATION | Null availability returned for facility: {}", facilityName);
-                                return;
-                        }
-
-                        // Check if the first element indicates an error
-                        if (!facilityAvailability.isEmpty() && facilityAvailability.get(0).startsWith("Error:")) {
-                                LOGGER.error("NOTIFICATION | Error retrieving availability: {}",
-                                                facilityAvailability.get(0));
-                                availabilityString = facilityAvailability.get(0);
-                        }
-                        // Check if the first element indicates "No available slots"
-                        else if (facilityAvailability.size() == 1
-                                        && facilityAvailability.get(0).startsWith("No available slots")) {
-                                LOGGER.info("NOTIFICATION | No available slots for facility: {}", facilityName);
-                                // We'll still notify clients that there are no slots
-                                availabilityString = "NoSlots:" + facilityName;
-                        }
-                        // Normal case - we have availability slots
-                        else {
-                                availabilityString = String.join(":", facilityAvailability);
-                        }
-
-                        LOGGER.debug("NOTIFICATION | Facility: {} | Availability data: {}", facilityName,
-                                        availabilityString);
-
-                } catch (Exception e) {
-                        LOGGER.error("NOTIFICATION | Failed to fetch availability for facility: {} | Error: {} | Stack: {}",
-                                        facilityName, e.getMessage(), Arrays.toString(e.getStackTrace()));
-                        return;
-                }
-
-                // Handle empty availability
-                if (availabilityString == null || availabilityString.isEmpty()) {
-                        LOGGER.warn("NOTIFICATION | Empty availability for facility: {}", facilityName);
-                        return;
-                }
-
-                // Process each client
-                Iterator<MonitoringClient> iterator = clients.iterator();
-                while (iterator.hasNext()) {
-                        MonitoringClient client = iterator.next();
-
-                        // Debug logging
-                        LOGGER.debug("NOTIFICATION | Processing client: {}:{} for facility {} (client's facility: {})",
-                                        client.getClientAddress(), client.getPort(),
-                                        facilityName, client.getFacilityName());
-
-                        // Check for null values in client
-                        if (client.getClientAddress() == null || client.getFacilityName() == null) {
-                                LOGGER.warn("NOTIFICATION | Client has null values: {}", client);
-                                iterator.remove();
-                                stats.errorCount++;
-                                continue;
-                        }
-
-                        // Remove expired clients
-                        if (client.isExpired()) {
-                                LOGGER.debug("NOTIFICATION | Client expired: {}:{} | Registration time: {} | Expiration time: {} minutes | Current time: {}",
-                                                client.getClientAddress(), client.getPort(),
-                                                new Date(client.getRegistrationTime()),
-                                                client.getExpirationTime(),
-                                                new Date(System.currentTimeMillis()));
-                                iterator.remove();
-                                stats.expiredCount++;
-                                continue;
-                        }
-
-                        // Only notify clients interested in this facility
-                        if (!facilityName.equals(client.getFacilityName())) {
-                                LOGGER.debug("NOTIFICATION | Client {}:{} not interested in facility {} (wants {})",
-                                                client.getClientAddress(), client.getPort(),
-                                                facilityName, client.getFacilityName());
-                                continue;
-                        }
-
-                        // Send notification to client
-                        notifyClient(client, facilityName, availabilityString, socket, stats);
-                }
-
-                LOGGER.info("NOTIFICATION | Complete | Facility: {} | Notified: {} | Expired: {} | Errors: {}",
-                                facilityName, stats.notifiedCount, stats.expiredCount, stats.errorCount);
-        }
-
-        /**
-         * Helper method to notify an individual client
-         */
-        private static void notifyClient(
-                        MonitoringClient client,
-                        String facilityName,
-                        String availabilityString,
-                        CustomSocket socket,
-                        NotificationStats stats) {
-
-                UUID requestId = UUID.randomUUID();
-                Map<String, Object> response = new HashMap<>();
-
-                try {
-                        LOGGER.debug("NOTIFICATION | Attempting to notify client: {}:{} for facility: {}",
-                                        client.getClientAddress(), client.getPort(), facilityName);
-
-                        if (availabilityString.startsWith("Error:") || availabilityString.startsWith("NoSlots:")) {
-                                // Handle error in availability data
-                                response.put("errorMessage", availabilityString);
-
-                                LOGGER.debug("NOTIFICATION | About to send error via socket to: {}:{} | requestId: {} | response: {}",
-                                                client.getClientAddress(), client.getPort(), requestId, response);
-
-                                socket.send(response, requestId, 4, // 4 corresponds to REGISTER_CALLBACK
-                                                RequestType.ERROR, client.getClientAddress(), client.getPort());
-
-                                LOGGER.info("NOTIFICATION | Client: {}:{} | Sent error: {}",
-                                                client.getClientAddress(), client.getPort(), availabilityString);
-                                stats.errorCount++;
-                        } else {
-                                // Send successful availability data
-                                response.put("availabilities", availabilityString);
-
-                                LOGGER.info("NOTIFICATION | About to send success via socket to: {}:{} | requestId: {} | responseSize: {}",
-                                                client.getClientAddress(), client.getPort(), requestId,
-                                                response.size());
-
-                                socket.send(response, requestId, 5, // 5 correspond to NotifyCallback
-                                                RequestType.REQUEST, client.getClientAddress(), client.getPort());
-
-                                LOGGER.debug("NOTIFICATION | Socket send completed successfully");
-
-                                LOGGER.info("NOTIFICATION | Client: {}:{} | Facility: {} | Slots: {}",
-                                                client.getClientAddress(), client.getPort(), facilityName,
-                                                availabilityString.length() > 100
-                                                                ? availabilityString.substring(0, 100) + "..."
-                                                                : availabilityString);
-                                stats.notifiedCount++;
-                        }
-                } catch (Exception e) {
-                        LOGGER.error("NOTIFICATION | Failed to notify client: {}:{} | Error: {} | Stack: {}",
-                                        client.getClientAddress(), client.getPort(),
-                                        e.getMessage(), Arrays.toString(e.getStackTrace()));
-                        stats.errorCount++;
-                }
-        }
-
-        /**
-         * Helper class to track notification statistics
-         */
-        private static class NotificationStats {
-                int expiredCount = 0;
-                int notifiedCount = 0;
-                int errorCount = 0;
-        }
-}
\ No newline at end of file
+}
@@ -1,28 +1,66 @@
 package com.example;
 
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
 public class MonitoringClient {
     private InetAddress clientAddress;
     private int port;
-    private int expirationTime;
+    private InetSocketAddress socketAddress;
+    private volatile int expirationTime;
     private String facilityName;
     private long registrationTime;
+    private volatile long expiryTime;
+    private boolean deltaUpdates;
+    private boolean multicast;
 
     /**
      * Creates a new MonitoringClient.
      * 
      * @param clientAddress the client's IP address as a string
      * @param port the client's port number
-     * @param expirationTime the monitoring duration in seconds
+     * @param expirationTime the monitoring duration in minutes
      * @param facilityName the name of the facility being monitored
      */
     public MonitoringClient(InetAddress clientAddress, int port, int expirationTime, String facilityName) {
+        this(clientAddress, port, expirationTime, facilityName, false);
+    }
+
+    /**
+     * Creates a new MonitoringClient.
+     * 
+     * @param clientAddress the client's IP address as a string
+     * @param port the client's port number
+     * @param expirationTime the monitoring duration in minutes
+     * @param facilityName the name of the facility being monitored
+     * @param deltaUpdates true to receive changes as deltas instead of full snapshots
+     */
+    public MonitoringClient(InetAddress clientAddress, int port, int expirationTime, String facilityName,
+            boolean deltaUpdates) {
+        this(clientAddress, port, expirationTime, facilityName, deltaUpdates, false);
+    }
+
+    /**
+     * Creates a new MonitoringClient.
+     * 
+     * @param clientAddress the client's IP address as a string
+     * @param port the client's port number
+     * @param expirationTime the monitoring duration in minutes
+     * @param facilityName the name of the facility being monitored
+     * @param deltaUpdates true to receive changes as deltas instead of full snapshots
+     * @param multicast true if the client receives the facility's multicast group instead of unicast messages
+     */
+    public MonitoringClient(InetAddress clientAddress, int port, int expirationTime, String facilityName,
+            boolean deltaUpdates, boolean multicast) {
         this.clientAddress = clientAddress;
         this.port = port;
+        this.socketAddress = new InetSocketAddress(clientAddress, port);
         this.expirationTime = expirationTime;
         this.facilityName = facilityName;
         this.registrationTime = System.currentTimeMillis();
+        this.expiryTime = registrationTime + minutesToMillis(expirationTime);
+        this.deltaUpdates = deltaUpdates;
+        this.multicast = multicast;
     }
 
     /**
@@ -44,9 +82,36 @@ public class MonitoringClient {
     }
 
     /**
-     * Gets the monitoring expiration time in seconds.
+     * Gets the client's address and port as one socket address.
      * 
-     * @return the expiration time in seconds
+     * @return the client's socket address
+     */
+    public InetSocketAddress getSocketAddress() {
+        return socketAddress;
+    }
+
+    /**
+     * Extends the registration in place: monitoring continues for the given
+     * number of minutes from now.
+     * 
+     * @param minutes the new monitoring period in minutes
+     * @return the new expiry timestamp in milliseconds
+     */
+    public long renew(int minutes) {
+        this.expirationTime = minutes;
+        this.expiryTime = System.currentTimeMillis() + minutesToMillis(minutes);
+        return expiryTime;
+    }
+
+    private static long minutesToMillis(int minutes) {
+        // Convert minutes to milliseconds (60 seconds * 1000 milliseconds)
+        return minutes * 60 * 1000L;
+    }
+
+    /**
+     * Gets the monitoring expiration time in minutes.
+     * 
+     * @return the expiration time in minutes
      */
     public int getExpirationTime() {
         return expirationTime;
@@ -61,6 +126,24 @@ public class MonitoringClient {
         return facilityName;
     }
 
+    /**
+     * Checks whether the client asked for delta notifications.
+     * 
+     * @return true for NotifyDelta messages, false for full NotifyCallback snapshots
+     */
+    public boolean wantsDeltaUpdates() {
+        return deltaUpdates;
+    }
+
+    /**
+     * Checks whether the client listens on the facility's multicast group.
+     * 
+     * @return true if notifications for the client are published to the group
+     */
+    public boolean isMulticast() {
+        return multicast;
+    }
+
     /**
      * Gets the timestamp when the client was registered.
      * 
@@ -76,10 +159,16 @@ public class MonitoringClient {
      * @return true if the monitoring period has expired
      */
     public boolean isExpired() {
-        long currentTime = System.currentTimeMillis();
-        // Convert minutes to milliseconds (60 seconds * 1000 milliseconds)
-        long expirationTimeMillis = registrationTime + (expirationTime * 60 * 1000L);
-        return currentTime > expirationTimeMillis;
+        return System.currentTimeMillis() > getExpiryTime();
+    }
+
+    /**
+     * Gets the time at which the monitoring period ends.
+     * 
+     * @return the expiry timestamp in milliseconds
+     */
+    public long getExpiryTime() {
+        return expiryTime;
     }
 
     /**
@@ -92,9 +181,7 @@ public class MonitoringClient {
             return 0;
         }
         
-        long currentTime = System.currentTimeMillis();
-        long expirationTimeMillis = registrationTime + (expirationTime * 1000L);
-        long remainingMillis = expirationTimeMillis - currentTime;
+        long remainingMillis = getExpiryTime() - System.currentTimeMillis();
         
         return (int)(remainingMillis / 1000);
     }
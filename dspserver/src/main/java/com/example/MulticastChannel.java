@@ -0,0 +1,116 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Send-only channel that publishes notifications to one IP multicast group per
+ * facility. The group of a facility is the base group plus its registry ID, all
+ * on the same port, so a client learns the group from its RegisterCallback
+ * response and joins it with a MulticastSocket. Each update is sent once to the
+ * group however many clients have joined; clients detect lost updates from the
+ * sequence numbers of the NotifyDelta messages published.
+ * Multicast notifications are not answered or retransmitted, so unlike a
+ * {@link CustomSocket} the channel has no receive side; it only shares the
+ * server socket's {@link Parser} to marshal what it publishes.
+ */
+public class MulticastChannel implements AutoCloseable {
+    static final String DEFAULT_BASE_GROUP = "239.255.40.0";
+    static final int DEFAULT_PORT = 12100;
+
+    private final Parser parser;
+    private final int baseGroup;
+    private final int port;
+    private final MulticastSocket socket;
+
+    /**
+     * Creates a channel and opens its socket.
+     *
+     * @param parser the parser messages are marshalled with
+     * @param baseGroup the IPv4 multicast group of the facility with registry ID 0
+     * @param port the port every group is published on
+     * @param networkInterface the interface to publish on, or null for the system default
+     * @throws IOException if the multicast socket cannot be opened
+     */
+    public MulticastChannel(Parser parser, InetAddress baseGroup, int port, NetworkInterface networkInterface)
+            throws IOException {
+        if (!(baseGroup instanceof Inet4Address) || !baseGroup.isMulticastAddress()) {
+            throw new IllegalArgumentException("Not an IPv4 multicast group: " + baseGroup);
+        }
+        this.parser = parser;
+        this.baseGroup = ByteBuffer.wrap(baseGroup.getAddress()).getInt();
+        this.port = port;
+        this.socket = new MulticastSocket();
+        try {
+            // Keep notifications on the local network
+            socket.setTimeToLive(1);
+            if (networkInterface != null) {
+                socket.setNetworkInterface(networkInterface);
+            }
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the multicast group a facility's notifications are published to.
+     *
+     * @param facility the facility
+     * @return the group address and port
+     */
+    public InetSocketAddress groupOf(Facility facility) {
+        byte[] address = ByteBuffer.allocate(4).putInt(baseGroup + facility.getRegistryId()).array();
+        try {
+            InetAddress group = InetAddress.getByAddress(address);
+            if (!group.isMulticastAddress()) {
+                throw new IllegalStateException("No multicast group left for facility " + facility.getFacilityName());
+            }
+            return new InetSocketAddress(group, port);
+        } catch (UnknownHostException e) {
+            // Cannot happen for a 4-byte address
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Publishes a message to a facility's group.
+     *
+     * @param facility the facility the message is about
+     * @param message the message
+     * @param serviceId the service ID
+     * @return the request ID the message was sent under
+     * @throws IOException if the message could not be marshalled or sent
+     */
+    public UUID publish(Facility facility, Map<String, Object> message, int serviceId) throws IOException {
+        UUID requestId = UUID.randomUUID();
+        byte[] data;
+        try {
+            String formatName = parser.getFormatName(serviceId, RequestType.REQUEST);
+            if (formatName == null) {
+                throw new IllegalArgumentException("Service ID not found: " + serviceId);
+            }
+            data = parser.marshall(new Parser.Message(requestId, serviceId, RequestType.REQUEST, formatName,
+                    message));
+        } catch (Exception e) {
+            throw new IOException("Failed to marshal message", e);
+        }
+        InetSocketAddress group = groupOf(facility);
+        socket.send(new DatagramPacket(data, data.length, group.getAddress(), group.getPort()));
+        return requestId;
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,722 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends NotifyCallback messages to monitoring clients off the request path.
+ * Request handlers only enqueue the name of the facility that changed; a pool
+ * of worker threads looks up the facility's availability and subscribers and
+ * sends the notifications, marshalling each message once for all subscribers.
+ * Fanouts for different changes run in parallel, and a failure to reach one
+ * subscriber does not affect the others.
+ * The queue is bounded: when it is full the change is dropped and counted, since
+ * the next change to the facility will carry its latest state anyway.
+ * Changes to a facility within a short window are coalesced into one fanout
+ * carrying the latest state, and at most one fanout per facility runs at a time.
+ * Subscribers that asked for multicast share one NotifyDelta per change,
+ * published to the facility's group through a {@link MulticastChannel}.
+ * Notifications are retransmitted until the subscriber answers them; see
+ * {@link DeliveryTracker}.
+ * Subscribers that registered for deltas get a NotifyDelta message with the
+ * slots that changed since the last fanout of the facility instead of the whole week.
+ */
+public class NotificationDispatcher implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    static final int DEFAULT_WORKERS = 4;
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    static final int DEFAULT_COALESCE_WINDOW_MS = 20;
+
+    static final int NOTIFY_DELTA_SERVICE_ID = 10;
+
+    private static final long RETRANSMIT_INTERVAL_MS = 100;
+
+    private static final String ALL_DAYS = "Mon,Tue,Wed,Thu,Fri,Sat,Sun";
+
+    private final BookingService bookingService;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timer;
+    private final long coalesceWindowMillis;
+    private volatile CustomSocket socket;
+    private final DeliveryTracker tracker;
+    private volatile MulticastChannel multicastChannel;
+    // Last schedule sent to the subscribers of each facility, by facility name
+    private final Map<String, FacilityFeed> feeds = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder notified = new LongAdder();
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    /**
+     * Creates a dispatcher with the default pool size and queue capacity.
+     *
+     * @param bookingService the service to read availability and subscribers from
+     * @param socket the socket to send notifications on
+     */
+    public NotificationDispatcher(BookingService bookingService, CustomSocket socket) {
+        this(bookingService, socket, DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param bookingService the service to read availability and subscribers from
+     * @param socket the socket to send notifications on
+     * @param workers the number of worker threads
+     * @param queueCapacity the maximum number of fanouts waiting for a worker
+     */
+    public NotificationDispatcher(BookingService bookingService, CustomSocket socket, int workers,
+            int queueCapacity) {
+        this(bookingService, socket, workers, queueCapacity, DEFAULT_COALESCE_WINDOW_MS);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param bookingService the service to read availability and subscribers from
+     * @param socket the socket to send notifications on
+     * @param workers the number of worker threads
+     * @param queueCapacity the maximum number of fanouts waiting for a worker
+     * @param coalesceWindowMillis how long to collect changes to a facility before
+     *        notifying its subscribers; 0 to queue the fanout immediately
+     */
+    public NotificationDispatcher(BookingService bookingService, CustomSocket socket, int workers,
+            int queueCapacity, long coalesceWindowMillis) {
+        if (workers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Workers and queue capacity must be positive");
+        }
+        if (coalesceWindowMillis < 0) {
+            throw new IllegalArgumentException("Coalescing window cannot be negative");
+        }
+        this.bookingService = bookingService;
+        this.socket = socket;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerThreadFactory("notification-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(new WorkerThreadFactory("notification-timer-"));
+        this.tracker = new DeliveryTracker(this::evict);
+        timer.scheduleWithFixedDelay(this::retransmit, RETRANSMIT_INTERVAL_MS, RETRANSMIT_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+        // Deltas start from the state at startup; facilities added later start empty
+        for (Facility facility : bookingService.getAllFacilities()) {
+            feeds.put(facility.getFacilityName(), new FacilityFeed(facility.getSchedule()));
+        }
+    }
+
+    /**
+     * Replaces the socket used for notifications, e.g. after the server switches
+     * its delivery semantics. Fanouts already running finish on the old socket.
+     *
+     * @param socket the new socket
+     */
+    public void setSocket(CustomSocket socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Schedules a notification of every client monitoring a facility. Returns
+     * immediately; the notifications are sent by a worker thread once the
+     * coalescing window has passed. Changes made while a fanout of the facility
+     * is pending are folded into it, since a fanout always sends the latest state.
+     *
+     * @param facilityName the facility that changed
+     * @return true if the change will be notified, false if the queue was full
+     */
+    public boolean submit(String facilityName) {
+        if (facilityName == null || facilityName.isEmpty()) {
+            LOGGER.warn("NOTIFICATION | Invalid facility name: {}", facilityName);
+            return false;
+        }
+
+        FacilityFeed feed = feedOf(facilityName);
+        submitted.increment();
+        if (!feed.pending.compareAndSet(false, true)) {
+            // A fanout that has not started yet will pick this change up
+            coalesced.increment();
+            return true;
+        }
+
+        long queuedAt = System.nanoTime();
+        if (coalesceWindowMillis == 0) {
+            return enqueue(facilityName, feed, queuedAt);
+        }
+        try {
+            timer.schedule(() -> enqueue(facilityName, feed, queuedAt), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // The dispatcher has been closed
+            feed.pending.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * Hands a pending fanout to the worker pool.
+     */
+    private boolean enqueue(String facilityName, FacilityFeed feed, long queuedAt) {
+        try {
+            executor.execute(() -> fanout(facilityName, queuedAt));
+            return true;
+        } catch (RejectedExecutionException e) {
+            feed.pending.set(false);
+            dropped.increment();
+            LOGGER.warn("NOTIFICATION | Facility: {} | Queue full, change dropped", facilityName);
+            return false;
+        }
+    }
+
+    private FacilityFeed feedOf(String facilityName) {
+        return feeds.computeIfAbsent(facilityName, name -> new FacilityFeed(Schedule.EMPTY));
+    }
+
+    /**
+     * Sets the channel used for subscribers that asked for multicast
+     * notifications. While no channel is set they get unicast deltas.
+     *
+     * @param multicastChannel the channel, or null to disable multicast
+     */
+    public void setMulticastChannel(MulticastChannel multicastChannel) {
+        this.multicastChannel = multicastChannel;
+    }
+
+    /**
+     * Gets the channel used for multicast subscribers.
+     *
+     * @return the channel, or null if multicast is disabled
+     */
+    public MulticastChannel getMulticastChannel() {
+        return multicastChannel;
+    }
+
+    /**
+     * Records a subscriber's NotifyCallbackResp to a notification, so that it is
+     * not retransmitted.
+     *
+     * @param requestId the request ID of the notification
+     * @param address the subscriber's address
+     * @param port the subscriber's port
+     * @return true if the notification was waiting for this reply
+     */
+    public boolean acknowledge(UUID requestId, InetAddress address, int port) {
+        return tracker.acknowledge(new InetSocketAddress(address, port), requestId);
+    }
+
+    /**
+     * Retransmits overdue notifications. Runs on the timer thread.
+     */
+    private void retransmit() {
+        CustomSocket currentSocket = socket;
+        if (currentSocket == null) {
+            return;
+        }
+        try {
+            int sent = tracker.retransmitDue(currentSocket, System.currentTimeMillis());
+            if (sent > 0) {
+                LOGGER.debug("NOTIFICATION | Retransmitted {} notifications", sent);
+            }
+        } catch (RuntimeException e) {
+            // Keep the timer alive for the next round
+            LOGGER.error("NOTIFICATION | Retransmission failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops every registration of a subscriber that stopped answering notifications.
+     */
+    private void evict(InetSocketAddress subscriber) {
+        int removed = bookingService.removeSubscriber(subscriber);
+        LOGGER.warn("NOTIFICATION | Subscriber {} stopped responding | Removed {} registrations",
+                subscriber, removed);
+    }
+
+    /**
+     * Notifies the subscribers of one facility. Runs on a worker thread.
+     */
+    private void fanout(String facilityName, long queuedAt) {
+        long lag = System.nanoTime() - queuedAt;
+        totalLagNanos.add(lag);
+        maxLagNanos.accumulateAndGet(lag, Math::max);
+
+        FacilityFeed feed = feedOf(facilityName);
+        // One fanout per facility at a time, so subscribers see its changes in sequence order
+        feed.lock.lock();
+        try {
+            // Changes from now on need another fanout; earlier ones are in the snapshot read below
+            feed.pending.set(false);
+            Facility facility = bookingService.getFacility(facilityName);
+            if (facility == null) {
+                LOGGER.warn("NOTIFICATION | Unknown facility: {}", facilityName);
+                return;
+            }
+
+            Schedule previous = feed.published;
+            Schedule snapshot = facility.getSchedule();
+            if (snapshot.getVersion() <= previous.getVersion()) {
+                // An earlier fanout has already sent this state
+                return;
+            }
+            feed.published = snapshot;
+
+            // Subscribers with a full window are skipped until they catch up; a snapshot
+            // subscriber gets the latest state with its next notification, and a delta
+            // subscriber sees a gap in the sequence numbers and fetches a snapshot
+            List<MonitoringClient> clients = new ArrayList<>();
+            for (MonitoringClient client : bookingService.getSubscribers(facilityName)) {
+                if (tracker.hasCapacity(client.getSocketAddress())) {
+                    clients.add(client);
+                }
+            }
+            if (clients.isEmpty()) {
+                LOGGER.debug("NOTIFICATION | Facility: {} | No clients to notify", facilityName);
+                return;
+            }
+
+            CustomSocket currentSocket = socket;
+            if (currentSocket == null) {
+                LOGGER.error("NOTIFICATION | Facility: {} | Socket is null", facilityName);
+                return;
+            }
+
+            MulticastChannel channel = multicastChannel;
+            List<MonitoringClient> snapshotClients = new ArrayList<>();
+            List<MonitoringClient> deltaClients = new ArrayList<>();
+            int multicastClients = 0;
+            for (MonitoringClient client : clients) {
+                if (client.isMulticast() && channel != null) {
+                    multicastClients++;
+                } else if (client.wantsDeltaUpdates() || client.isMulticast()) {
+                    // Multicast subscribers fall back to unicast deltas while there is no channel
+                    deltaClients.add(client);
+                } else {
+                    snapshotClients.add(client);
+                }
+            }
+
+            LOGGER.info("NOTIFICATION | Facility: {} | Notifying {} clients ({} by delta, {} by multicast) | Lag: {} us",
+                    facilityName, clients.size(), deltaClients.size(), multicastClients,
+                    TimeUnit.NANOSECONDS.toMicros(lag));
+
+            int notifiedCount = 0;
+            if (!deltaClients.isEmpty() || multicastClients > 0) {
+                AvailabilityDelta delta = AvailabilityDelta.between(facility, previous, snapshot);
+                Map<String, Object> message = deltaMessage(facility, delta);
+                if (multicastClients > 0 && publish(channel, facility, message)) {
+                    notifiedCount += multicastClients;
+                    notified.add(multicastClients);
+                }
+                if (!deltaClients.isEmpty()) {
+                    notifiedCount += notifyDeltas(deltaClients, facility, delta, message, currentSocket);
+                }
+            }
+            if (!snapshotClients.isEmpty()) {
+                String availabilityString = fetchAvailability(facilityName);
+                if (availabilityString != null) {
+                    notifiedCount += notifyClients(snapshotClients, facilityName, availabilityString,
+                            currentSocket);
+                }
+            }
+
+            LOGGER.info("NOTIFICATION | Complete | Facility: {} | Notified: {} | Errors: {}",
+                    facilityName, notifiedCount, clients.size() - notifiedCount);
+        } catch (RuntimeException e) {
+            LOGGER.error("NOTIFICATION | Fanout failed for facility: {} | Error: {} | Stack: {}",
+                    facilityName, e.getMessage(), Arrays.toString(e.getStackTrace()));
+        } finally {
+            feed.lock.unlock();
+            completed.increment();
+        }
+    }
+
+    /**
+     * Gets the availability string sent to subscribers, computed once per fanout.
+     *
+     * @return the availability string, or null if it could not be determined
+     */
+    private String fetchAvailability(String facilityName) {
+        Availability availability = bookingService.getAvailability(facilityName, ALL_DAYS);
+        List<String> facilityAvailability = availability.getSlots();
+
+        String availabilityString;
+        if (availability.isError()) {
+            LOGGER.error("NOTIFICATION | Error retrieving availability: {}", availability.getPayload());
+            availabilityString = availability.getPayload();
+        } else if (facilityAvailability.size() == 1
+                && facilityAvailability.get(0).startsWith("No available slots")) {
+            LOGGER.info("NOTIFICATION | No available slots for facility: {}", facilityName);
+            // We'll still notify clients that there are no slots
+            availabilityString = "NoSlots:" + facilityName;
+        } else {
+            availabilityString = availability.getPayload();
+        }
+
+        if (availabilityString.isEmpty()) {
+            LOGGER.warn("NOTIFICATION | Empty availability for facility: {}", facilityName);
+            return null;
+        }
+        LOGGER.debug("NOTIFICATION | Facility: {} | Availability data: {}", facilityName, availabilityString);
+        return availabilityString;
+    }
+
+    /**
+     * Sends the notification to every client. The message is marshalled once by
+     * the socket; failures are logged and counted per client without affecting
+     * the other subscribers.
+     *
+     * @return the number of clients the availability was sent to
+     */
+    private int notifyClients(List<MonitoringClient> clients, String facilityName, String availabilityString,
+            CustomSocket socket) {
+        List<InetSocketAddress> destinations = destinationsOf(clients);
+
+        Map<String, Object> response = new HashMap<>();
+        boolean isError = availabilityString.startsWith("Error:") || availabilityString.startsWith("NoSlots:");
+        UUID[] requestIds;
+        try {
+            if (isError) {
+                // Handle error in availability data
+                response.put("errorMessage", availabilityString);
+                requestIds = socket.fanout(response, 4, // 4 corresponds to REGISTER_CALLBACK
+                        RequestType.ERROR, destinations);
+            } else {
+                response.put("availabilities", availabilityString);
+                requestIds = socket.fanout(response, 5, // 5 correspond to NotifyCallback
+                        RequestType.REQUEST, destinations);
+            }
+        } catch (IOException e) {
+            LOGGER.error("NOTIFICATION | Facility: {} | Failed to marshal notification: {}",
+                    facilityName, e.getMessage());
+            failed.add(clients.size());
+            return 0;
+        }
+
+        if (isError) {
+            LOGGER.info("NOTIFICATION | Facility: {} | Sent error: {}", facilityName, availabilityString);
+            countResults(clients, requestIds);
+            failed.add(clients.size());
+            return 0;
+        }
+
+        LOGGER.debug("NOTIFICATION | Facility: {} | Slots: {}", facilityName,
+                availabilityString.length() > 100
+                        ? availabilityString.substring(0, 100) + "..."
+                        : availabilityString);
+        trackAll(clients, requestIds, facilityName, DeliveryTracker.NOTIFY_CALLBACK_SERVICE_ID, response);
+        int notifiedCount = countResults(clients, requestIds);
+        notified.add(notifiedCount);
+        failed.add(clients.size() - notifiedCount);
+        return notifiedCount;
+    }
+
+    /**
+     * Sends a NotifyDelta message to every client that asked for deltas.
+     *
+     * @return the number of clients the delta was sent to
+     */
+    private int notifyDeltas(List<MonitoringClient> clients, Facility facility, AvailabilityDelta delta,
+            Map<String, Object> message, CustomSocket socket) {
+        List<InetSocketAddress> destinations = destinationsOf(clients);
+
+        UUID[] requestIds;
+        try {
+            requestIds = socket.fanout(message, NOTIFY_DELTA_SERVICE_ID, RequestType.REQUEST, destinations);
+        } catch (IOException e) {
+            LOGGER.error("NOTIFICATION | Facility: {} | Failed to marshal delta: {}",
+                    facility.getFacilityName(), e.getMessage());
+            failed.add(clients.size());
+            return 0;
+        }
+
+        LOGGER.debug("NOTIFICATION | Facility: {} | Delta {} -> {} | Added: {} | Removed: {}",
+                facility.getFacilityName(), delta.getPrevSeq(), delta.getSeq(),
+                delta.getAdded().size(), delta.getRemoved().size());
+        trackAll(clients, requestIds, facility.getFacilityName(), NOTIFY_DELTA_SERVICE_ID, message);
+        int notifiedCount = countResults(clients, requestIds);
+        notified.add(notifiedCount);
+        deltas.add(notifiedCount);
+        failed.add(clients.size() - notifiedCount);
+        return notifiedCount;
+    }
+
+    /**
+     * Builds the NotifyDelta message for a delta, shared by unicast and multicast subscribers.
+     */
+    private static Map<String, Object> deltaMessage(Facility facility, AvailabilityDelta delta) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("facilityName", facility.getFacilityName());
+        message.put("seq", (int) delta.getSeq());
+        message.put("prevSeq", (int) delta.getPrevSeq());
+        message.put("added", String.join(":", delta.getAdded()));
+        message.put("removed", String.join(":", delta.getRemoved()));
+        return message;
+    }
+
+    /**
+     * Publishes a delta once to the facility's multicast group.
+     *
+     * @return true if the delta was sent
+     */
+    private boolean publish(MulticastChannel channel, Facility facility, Map<String, Object> message) {
+        try {
+            UUID requestId = channel.publish(facility, message, NOTIFY_DELTA_SERVICE_ID);
+            published.increment();
+            LOGGER.debug("NOTIFICATION | Facility: {} | Published delta {} to {}",
+                    facility.getFacilityName(), requestId, channel.groupOf(facility));
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("NOTIFICATION | Facility: {} | Failed to publish to multicast group: {}",
+                    facility.getFacilityName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<InetSocketAddress> destinationsOf(List<MonitoringClient> clients) {
+        List<InetSocketAddress> destinations = new ArrayList<>(clients.size());
+        for (MonitoringClient client : clients) {
+            destinations.add(client.getSocketAddress());
+        }
+        return destinations;
+    }
+
+    /**
+     * Tracks the notifications of a fanout until their subscribers answer them.
+     */
+    private void trackAll(List<MonitoringClient> clients, UUID[] requestIds, String facilityName, int serviceId,
+            Map<String, Object> message) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < requestIds.length; i++) {
+            if (requestIds[i] != null) {
+                tracker.track(clients.get(i).getSocketAddress(), requestIds[i], facilityName, serviceId, message, now);
+            }
+        }
+    }
+
+    /**
+     * Logs the clients a fanout could not reach.
+     *
+     * @return the number of clients the message was sent to
+     */
+    private static int countResults(List<MonitoringClient> clients, UUID[] requestIds) {
+        int sent = 0;
+        for (int i = 0; i < requestIds.length; i++) {
+            if (requestIds[i] == null) {
+                MonitoringClient client = clients.get(i);
+                LOGGER.error("NOTIFICATION | Failed to notify client: {}:{}",
+                        client.getClientAddress(), client.getPort());
+            } else {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Gets the tracker of notifications waiting for a reply.
+     *
+     * @return the delivery tracker
+     */
+    public DeliveryTracker getDeliveryTracker() {
+        return tracker;
+    }
+
+    /**
+     * Gets the number of changes submitted for notification.
+     *
+     * @return the submitted count
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Gets the number of deltas published to multicast groups.
+     *
+     * @return the published count
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * Gets the number of changes folded into a fanout that was already pending.
+     *
+     * @return the coalesced count
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the average number of changes notified by one fanout.
+     *
+     * @return changes submitted per fanout scheduled, 1.0 when nothing was coalesced
+     */
+    public double getCoalescingRatio() {
+        long changes = submitted.sum();
+        long fanouts = changes - coalesced.sum();
+        return fanouts == 0 ? 1.0 : (double) changes / fanouts;
+    }
+
+    /**
+     * Gets the number of fanouts rejected because the queue was full.
+     *
+     * @return the dropped count
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of fanouts that have finished.
+     *
+     * @return the completed count
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Gets the number of notifications sent successfully.
+     *
+     * @return the notified count
+     */
+    public long getNotified() {
+        return notified.sum();
+    }
+
+    /**
+     * Gets the number of notifications sent as deltas rather than full snapshots.
+     *
+     * @return the delta count
+     */
+    public long getDeltas() {
+        return deltas.sum();
+    }
+
+    /**
+     * Gets the number of notifications that could not be delivered.
+     *
+     * @return the failed count
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets the average time fanouts waited in the queue before a worker picked them up.
+     *
+     * @return the average fanout lag in microseconds
+     */
+    public long getAverageLagMicros() {
+        long started = completed.sum() + executor.getActiveCount();
+        return started == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLagNanos.sum() / started);
+    }
+
+    /**
+     * Gets the longest time a fanout waited in the queue.
+     *
+     * @return the maximum fanout lag in microseconds
+     */
+    public long getMaxLagMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLagNanos.get());
+    }
+
+    /**
+     * Gets the number of fanouts waiting for a worker.
+     *
+     * @return the queue length
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationDispatcher{submitted=" + getSubmitted() + ", coalesced=" + getCoalesced()
+                + ", coalescingRatio=" + String.format("%.2f", getCoalescingRatio()) + ", dropped=" + getDropped()
+                + ", completed=" + getCompleted() + ", queued=" + getQueued() + ", notified=" + getNotified()
+                + ", deltas=" + getDeltas() + ", published=" + getPublished() + ", failed=" + getFailed() + ", avgLagUs=" + getAverageLagMicros()
+                + ", maxLagUs=" + getMaxLagMicros() + ", " + tracker + '}';
+    }
+
+    /**
+     * Stops accepting fanouts and waits briefly for queued ones to finish.
+     */
+    @Override
+    public void close() {
+        timer.shutdown();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The last schedule of a facility that was sent to its subscribers. The lock
+     * is held for a whole fanout of the facility.
+     */
+    private static class FacilityFeed {
+        final ReentrantLock lock = new ReentrantLock();
+        // Set while a fanout is scheduled but has not read the schedule yet
+        final AtomicBoolean pending = new AtomicBoolean();
+        Schedule published;
+
+        FacilityFeed(Schedule published) {
+            this.published = published;
+        }
+    }
+
+    /**
+     * Creates named daemon worker threads, so pending notifications never keep the server alive.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        WorkerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * NotifyCallback (service 5) and NotifyDelta (service 10) are sent by the
+ * server; the requests it receives for them are subscribers' replies, which
+ * stop the notification from being retransmitted. Replies are not answered.
+ */
+public class NotificationReplyHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationReplyHandler.class);
+
+    private final int serviceId;
+    private final String name;
+
+    /**
+     * Creates the handler for one notification service.
+     *
+     * @param serviceId the notification's service ID
+     * @param name the name the service is logged under
+     */
+    public NotificationReplyHandler(int serviceId, String name) {
+        this.serviceId = serviceId;
+        this.name = name;
+    }
+
+    @Override
+    public int getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.HIGH;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) {
+        // A subscriber's NotifyCallbackResp to a notification we sent
+        if (request.getRequestType() != RequestType.RESPONSE) {
+            LOGGER.warn("NOTIFICATION | Client: {} | Unexpected {} for service {}", request.getClientInfo(),
+                    request.getRequestType(), serviceId);
+            return;
+        }
+        boolean outstanding = request.getContext().getDispatcher().acknowledge(request.getRequestId(),
+                request.getSenderAddress(), request.getSenderPort());
+        LOGGER.debug("NOTIFICATION | Client: {} | Acknowledged: {} | Outstanding: {}", request.getClientInfo(),
+                request.getRequestId(), outstanding);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+/**
+ * Immutable count of the bookings covering each minute of the week, as a
+ * range-add, range-max segment tree. An update copies only the O(log n) nodes
+ * on the paths it touches and shares every other node with the tree it was
+ * made from, so each Schedule snapshot can hold its own tree without copying
+ * the week. Pending additions stay in the node they were applied to instead of
+ * being pushed down, which is what lets nodes be shared.
+ */
+final class OccupancyTree {
+    static final int MINUTES_PER_WEEK = Schedule.DAYS_PER_WEEK * 24 * 60;
+    // Smallest power of two that covers the week
+    private static final int SIZE = Integer.highestOneBit(MINUTES_PER_WEEK - 1) << 1;
+    static final OccupancyTree EMPTY = new OccupancyTree(null);
+
+    private final Node root;
+
+    private OccupancyTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns a tree in which every minute of an interval is covered by delta more bookings.
+     *
+     * @param from the first minute of the week in the interval
+     * @param to the end of the interval, exclusive
+     * @param delta the change in the number of bookings
+     * @return the new tree
+     */
+    OccupancyTree add(int from, int to, int delta) {
+        if (from >= to) {
+            return this;
+        }
+        return new OccupancyTree(add(root, 0, SIZE, from, to, delta));
+    }
+
+    /**
+     * Gets the largest number of bookings covering any minute of an interval.
+     *
+     * @param from the first minute of the week in the interval
+     * @param to the end of the interval, exclusive
+     * @return the peak occupancy, 0 for an empty interval
+     */
+    int max(int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        return max(root, 0, SIZE, from, to);
+    }
+
+    private static Node add(Node node, int low, int high, int from, int to, int delta) {
+        if (to <= low || high <= from) {
+            return node;
+        }
+        if (from <= low && high <= to) {
+            return node == null ? new Node(delta, delta, null, null)
+                    : new Node(node.max + delta, node.pending + delta, node.left, node.right);
+        }
+        int middle = (low + high) >>> 1;
+        Node left = add(node == null ? null : node.left, low, middle, from, to, delta);
+        Node right = add(node == null ? null : node.right, middle, high, from, to, delta);
+        int pending = node == null ? 0 : node.pending;
+        return new Node(pending + Math.max(maxOf(left), maxOf(right)), pending, left, right);
+    }
+
+    private static int max(Node node, int low, int high, int from, int to) {
+        if (node == null) {
+            return 0;
+        }
+        if (from <= low && high <= to) {
+            return node.max;
+        }
+        int middle = (low + high) >>> 1;
+        int peak = Integer.MIN_VALUE;
+        if (from < middle) {
+            peak = max(node.left, low, middle, from, to);
+        }
+        if (to > middle) {
+            peak = Math.max(peak, max(node.right, middle, high, from, to));
+        }
+        return node.pending + peak;
+    }
+
+    private static int maxOf(Node node) {
+        return node == null ? 0 : node.max;
+    }
+
+    /**
+     * A node covering a power-of-two range of minutes. A missing node stands
+     * for a range no booking covers.
+     */
+    private static final class Node {
+        // Peak occupancy within the range, including pending
+        final int max;
+        // Added to the whole range and not yet reflected in the children
+        final int pending;
+        final Node left;
+        final Node right;
+
+        Node(int max, int pending, Node left, Node right) {
+            this.max = max;
+            this.pending = pending;
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
@@ -63,8 +63,9 @@ public class Parser {
             String name = (String) obj.get("name");
             String request = (String) obj.get("request");
             String response = (String) obj.get("response");
+            boolean idempotent = Boolean.TRUE.equals(obj.get("idempotent"));
 
-            result.put(id, new ServiceInfo(name, request, response));
+            result.put(id, new ServiceInfo(name, request, response, idempotent));
         }
 
         return result;
@@ -92,6 +93,60 @@ public class Parser {
         return buffer.array();
     }
 
+    /**
+     * Overwrites the request ID at the start of a marshalled message, so one
+     * marshalled message can be sent under many request IDs.
+     *
+     * @param packet a marshalled message
+     * @param requestId the new request ID
+     */
+    public void patchRequestId(byte[] packet, UUID requestId) {
+        // RFC 4122 byte order is the big-endian encoding of both halves
+        ByteBuffer buffer = ByteBuffer.wrap(packet);
+        buffer.putLong(0, requestId.getMostSignificantBits());
+        buffer.putLong(8, requestId.getLeastSignificantBits());
+    }
+
+    /**
+     * Gets the name of the data format used by a service for a request type.
+     *
+     * @param serviceId   The service ID
+     * @param requestType The request type
+     * @return The format name, or null if the service ID is unknown
+     */
+    public String getFormatName(int serviceId, RequestType requestType) {
+        switch (requestType) {
+            case REQUEST:
+            case RESPONSE:
+                ServiceInfo serviceInfo = services.get(serviceId);
+                if (serviceInfo == null) {
+                    return null;
+                }
+                return requestType == RequestType.REQUEST ? serviceInfo.request : serviceInfo.response;
+            case ERROR:
+                return "error";
+            case ACK:
+                return "ACK";
+            case NOT_MODIFIED:
+                return "NOT_MODIFIED";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Checks whether a service is marked idempotent in services.json. Replies of
+     * idempotent services can be recomputed, so they are neither kept for
+     * duplicate requests nor acknowledged.
+     *
+     * @param serviceId The service ID
+     * @return true if the service is idempotent, false if it is not or is unknown
+     */
+    public boolean isIdempotent(int serviceId) {
+        ServiceInfo serviceInfo = services.get(serviceId);
+        return serviceInfo != null && serviceInfo.idempotent;
+    }
+
     /**
      * Unmarshals a UUID from RFC 4122 format bytes.
      */
@@ -146,6 +201,19 @@ public class Parser {
         if (isRequest == RequestType.ACK) {
             return new Message(requestId, serviceId, isRequest, "ACK", data);
         }
+        if (isRequest == RequestType.NOT_MODIFIED) {
+            return new Message(requestId, serviceId, isRequest, "NOT_MODIFIED", data);
+        }
+        if (isRequest == RequestType.ERROR) {
+            data.put("errorCode", buffer.getShort() & 0xFFFF);
+            if (buffer.hasRemaining()) {
+                data.put("errorMessage", readField(buffer, "str"));
+            }
+            if (buffer.hasRemaining()) {
+                data.put("alternatives", readField(buffer, "str"));
+            }
+            return new Message(requestId, serviceId, isRequest, "error", data);
+        }
         // Get the data format for unmarshalling
         ServiceInfo serviceInfo = services.get(serviceId);
         if (serviceInfo == null) {
@@ -159,8 +227,12 @@ public class Parser {
             throw new IllegalArgumentException("Unknown data format: " + formatName);
         }
 
-        // Extract fields based on their types
+        // Extract fields based on their types. Trailing fields are optional, so
+        // stop as soon as the sender has run out of bytes.
         for (FieldType field : dataFormat.fields) {
+            if (!buffer.hasRemaining()) {
+                break;
+            }
             data.put(field.name, readField(buffer, field.type));
         }
 
@@ -190,6 +262,8 @@ public class Parser {
 
     /**
      * Marshalls the given message into a byte array.
+     * Fields are written in schema order. A field missing from the message data
+     * ends the payload, so optional fields must come last in the schema.
      * 
      * @param message The message to be marshalled
      * @return The marshalled byte array
@@ -200,7 +274,9 @@ public class Parser {
             return marshalNormal(message);
         } else if (message.getRequestType() == RequestType.ERROR) {
             return marshalError(message);
-        } else if (message.getRequestType() == RequestType.ACK) {
+        } else if (message.getRequestType() == RequestType.ACK
+                || message.getRequestType() == RequestType.NOT_MODIFIED) {
+            // Both consist of the header only
             return marshalAck(message);
         }else  {
             throw new IllegalArgumentException("Unsupported request type: " + message.getRequestType());
@@ -225,15 +301,31 @@ public class Parser {
         buffer.putShort((short) message.getServiceId());
         buffer.put((byte) message.getRequestType().getCode());
         for (FieldType field : dataFormat.fields) {
+            if (!message.getData().containsKey(field.name)) {
+                break; // omitted trailing fields
+            }
             writeField(buffer, field.name, field.type, message.getData());
         }
         return buffer.array();
     }
 
+    /**
+     * Error replies carry a u16 error code, optionally followed by the error
+     * message as a str field and then by suggested alternatives as a str field.
+     */
     private byte[] marshalError(Message message) {
-        int size = 16 + 2 + 1
-                + message.getData().get("errorMessage").toString().getBytes(StandardCharsets.UTF_8).length;
-        System.out.println(size);
+        Object errorCode = message.getData().get("errorCode");
+        Object errorMessage = message.getData().get("errorMessage");
+        Object alternatives = message.getData().get("alternatives");
+        // Alternatives follow the message, so a message is written whenever they are
+        if (errorMessage == null && alternatives != null) {
+            errorMessage = "";
+        }
+        byte[] strBytes = errorMessage == null ? null : errorMessage.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] alternativeBytes = alternatives == null ? null : alternatives.toString().getBytes(StandardCharsets.UTF_8);
+        int size = 16 + 2 + 1 + 2 + (strBytes == null ? 0 : 2 + strBytes.length)
+                + (alternativeBytes == null ? 0 : 2 + alternativeBytes.length);
+
         // Allocate buffer
         ByteBuffer buffer = ByteBuffer.allocate(size);
         buffer.order(ByteOrder.BIG_ENDIAN);
@@ -243,9 +335,15 @@ public class Parser {
         buffer.putShort((short) message.getServiceId());
         buffer.put((byte) message.getRequestType().getCode());
 
-        String errorMessage = (String) message.getData().get("errorMessage");
-        byte[] strBytes = errorMessage.getBytes(StandardCharsets.UTF_8);
-        buffer.put(strBytes);
+        buffer.putShort((short) (errorCode == null ? ErrorCode.UNSPECIFIED.getCode() : (int) errorCode));
+        if (strBytes != null) {
+            buffer.putShort((short) strBytes.length);
+            buffer.put(strBytes);
+        }
+        if (alternativeBytes != null) {
+            buffer.putShort((short) alternativeBytes.length);
+            buffer.put(alternativeBytes);
+        }
 
         return buffer.array();
     }
@@ -270,13 +368,16 @@ public class Parser {
             String fieldName = field.name;
             String fieldType = field.type;
 
+            if (!data.containsKey(fieldName)) {
+                break; // omitted trailing fields
+            }
+
             switch (fieldType) {
                 case "int":
                     size += 4;
                     break;
                 case "str":
-                    String strValue = (String) data.get(fieldName);
-                    size += 2 + strValue.getBytes(StandardCharsets.UTF_8).length;
+                    size += 2 + encodeString(data.get(fieldName)).length;
                     break;
                 case "float":
                     size += 4;
@@ -301,8 +402,7 @@ public class Parser {
                 buffer.putInt((Integer) data.get(fieldName));
                 break;
             case "str":
-                String strValue = (String) data.get(fieldName);
-                byte[] strBytes = strValue.getBytes(StandardCharsets.UTF_8);
+                byte[] strBytes = encodeString(data.get(fieldName));
                 buffer.putShort((short) strBytes.length);
                 buffer.put(strBytes);
                 break;
@@ -318,6 +418,17 @@ public class Parser {
         }
     }
 
+    /**
+     * Encodes the value of a str field. Values may be given as a String or as
+     * UTF-8 bytes that were already encoded, e.g. by a cache.
+     */
+    private byte[] encodeString(Object value) {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return ((String) value).getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Represents a field type in a data format.
      */
@@ -351,11 +462,14 @@ public class Parser {
         private final String name;
         private final String request;
         private final String response;
+        // Whether executing a request again gives the same effect, so replies need no history
+        private final boolean idempotent;
 
-        public ServiceInfo(String name, String request, String response) {
+        public ServiceInfo(String name, String request, String response, boolean idempotent) {
             this.name = name;
             this.request = request;
             this.response = response;
+            this.idempotent = idempotent;
         }
     }
 
@@ -0,0 +1,66 @@
+package com.example;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RegisterCallback (service 4): registers the sender to be notified of changes
+ * to a facility for a monitoring period. Registering again replaces the
+ * earlier registration.
+ */
+public class RegisterCallbackHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegisterCallbackHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 4;
+    }
+
+    @Override
+    public String getName() {
+        return "REGISTER_CALLBACK";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("REGISTER_CALLBACK | Facility: {} | MonitoringPeriod: {}min", request.get("facilityName"),
+                request.get("monitoringPeriodInMinutes"));
+
+        BookingService bookingService = request.getBookingService();
+        MulticastChannel multicastChannel = request.getContext().getMulticastChannel();
+        String facilityName = request.resolveFacilityName();
+        if (facilityName == null) {
+            request.replyError(ErrorCode.FACILITY_NOT_FOUND, "Error: Facility ID is not found");
+            return;
+        }
+        // Clients that asked for multicast get unicast deltas if it is disabled
+        boolean multicast = request.getFlag("multicast") && multicastChannel != null;
+        boolean registerSuccess = bookingService.registerClient(facilityName,
+                request.getInt("monitoringPeriodInMinutes"), request.getSenderPort(), request.getSenderAddress(),
+                request.getFlag("deltaUpdates"), multicast);
+
+        if (registerSuccess) {
+            Map<String, Object> registerCallbackResp = new HashMap<>();
+            registerCallbackResp.put("success", true);
+            if (multicast) {
+                InetSocketAddress group = multicastChannel.groupOf(bookingService.getFacility(facilityName));
+                registerCallbackResp.put("multicastGroup", group.getAddress().getHostAddress());
+                registerCallbackResp.put("multicastPort", group.getPort());
+            }
+            request.reply(registerCallbackResp);
+        } else {
+            request.replyError(ErrorCode.FACILITY_NOT_FOUND, "Failed to register Callback");
+        }
+        LOGGER.info("RESPONSE | REGISTER_CALLBACK | Client: {} | Success: {}", request.getClientInfo(),
+                registerSuccess);
+    }
+}
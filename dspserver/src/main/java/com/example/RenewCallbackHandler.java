@@ -0,0 +1,53 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RenewCallback (service 11): extends the sender's registration for a facility
+ * in place, restarting its monitoring period from now.
+ */
+public class RenewCallbackHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenewCallbackHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 11;
+    }
+
+    @Override
+    public String getName() {
+        return "RENEW_CALLBACK";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        LOGGER.info("RENEW_CALLBACK | Facility: {} | MonitoringPeriod: {}min", request.get("facilityName"),
+                request.get("monitoringPeriodInMinutes"));
+
+        String facilityName = request.resolveFacilityName();
+        if (facilityName == null) {
+            request.replyError(ErrorCode.FACILITY_NOT_FOUND, "Error: Facility ID is not found");
+            return;
+        }
+        boolean renewSuccess = request.getBookingService().renewClient(facilityName,
+                request.getInt("monitoringPeriodInMinutes"), request.getSenderPort(), request.getSenderAddress());
+
+        if (renewSuccess) {
+            Map<String, Object> renewCallbackResp = new HashMap<>();
+            renewCallbackResp.put("success", true);
+            request.reply(renewCallbackResp);
+        } else {
+            request.replyError(ErrorCode.NOT_REGISTERED, "Error: No active callback registration to renew");
+        }
+        LOGGER.info("RESPONSE | RENEW_CALLBACK | Client: {} | Success: {}", request.getClientInfo(), renewSuccess);
+    }
+}
@@ -0,0 +1,343 @@
+package com.example;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the outcomes of recently handled mutating requests, keyed by
+ * client and request ID. It lets the server answer a retransmitted request
+ * without executing it again when the socket does not filter duplicates.
+ * <p>
+ * Only a compact reference to the outcome is kept: the reply type, the error
+ * code of a failure, a success flag and the confirmation IDs, new time slot or
+ * multicast group the reply carried, in binary form. The reply is rebuilt from
+ * these when a duplicate arrives, so error messages and suggested alternatives
+ * are replaced by the error code's default message. An outcome takes well under
+ * 100 bytes, plus 16 bytes per confirmation ID of a batch. The oldest entries are
+ * dropped once the cache is full or they are older than the retention period.
+ */
+public class RequestDedupeCache {
+    static final int DEFAULT_CAPACITY = 4096;
+    static final long DEFAULT_RETENTION_MS = 60_000;
+
+    private final int capacity;
+    private final long retentionNanos;
+    private final LinkedHashMap<RequestKey, Outcome> outcomes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Creates a cache with the default capacity and retention period.
+     */
+    public RequestDedupeCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_RETENTION_MS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity the maximum number of outcomes kept
+     * @param retentionMillis how long an outcome is kept at most
+     * @throws IllegalArgumentException if capacity is not positive or retention is negative
+     */
+    public RequestDedupeCache(int capacity, long retentionMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (retentionMillis < 0) {
+            throw new IllegalArgumentException("retentionMillis must not be negative");
+        }
+        this.capacity = capacity;
+        this.retentionNanos = TimeUnit.MILLISECONDS.toNanos(retentionMillis);
+        // Insertion order, so the eldest entry is also the oldest outcome
+        this.outcomes = new LinkedHashMap<>();
+    }
+
+    /**
+     * Gets the outcome of a request that was already handled.
+     *
+     * @param address the client's address
+     * @param port the client's port
+     * @param requestId the request ID
+     * @return the outcome, or null if the request was not seen recently
+     */
+    public synchronized Outcome get(InetAddress address, int port, UUID requestId) {
+        expire(System.nanoTime());
+        Outcome outcome = outcomes.get(new RequestKey(address, port, requestId));
+        if (outcome != null) {
+            hits.increment();
+        }
+        return outcome;
+    }
+
+    /**
+     * Records the outcome of a request from the reply sent for it.
+     *
+     * @param address the client's address
+     * @param port the client's port
+     * @param requestId the request ID
+     * @param replyType the reply type
+     * @param replyFields the reply fields
+     * @return false if the reply has fields an outcome cannot hold, in which case nothing is recorded
+     */
+    public synchronized boolean put(InetAddress address, int port, UUID requestId, RequestType replyType,
+            Map<String, Object> replyFields) {
+        long now = System.nanoTime();
+        expire(now);
+        Outcome outcome = Outcome.of(replyType, replyFields, now);
+        if (outcome == null) {
+            return false;
+        }
+        outcomes.put(new RequestKey(address, port, requestId), outcome);
+        stored.increment();
+        while (outcomes.size() > capacity) {
+            RequestKey eldest = outcomes.keySet().iterator().next();
+            outcomes.remove(eldest);
+            evicted.increment();
+        }
+        return true;
+    }
+
+    private void expire(long now) {
+        Iterator<Outcome> iterator = outcomes.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().storedAt > retentionNanos) {
+            iterator.remove();
+            evicted.increment();
+        }
+    }
+
+    /**
+     * Gets the number of duplicate requests answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of outcomes recorded.
+     *
+     * @return the stored count
+     */
+    public long getStored() {
+        return stored.sum();
+    }
+
+    /**
+     * Gets the number of outcomes dropped because the cache was full or they expired.
+     *
+     * @return the eviction count
+     */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    /**
+     * Gets the number of outcomes currently kept.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return outcomes.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestDedupeCache{hits=" + getHits() + ", stored=" + getStored() + ", evicted=" + getEvicted()
+                + ", size=" + size() + '}';
+    }
+
+    /**
+     * Compact reference to the outcome of a request, from which its reply is rebuilt.
+     */
+    public static class Outcome {
+        // Every reply field an outcome can hold
+        private static final Set<String> FIELDS = Set.of("errorCode", "errorMessage", "alternatives", "success",
+                "message", "confirmationID", "confirmationIDs", "timeSlot", "multicastGroup", "multicastPort");
+        private static final int MINUTES_PER_DAY = 24 * 60;
+
+        private final RequestType replyType;
+        // Set for ERROR replies
+        private final ErrorCode errorCode;
+        // Name of the reply's flag field ("success" or "message"), or null if it has none
+        private final String flagField;
+        private final boolean flag;
+        // A UUID, the confirmation IDs as pairs of longs, a packed time slot, a multicast group, or null
+        private final Object reference;
+        private final long storedAt;
+
+        private Outcome(RequestType replyType, ErrorCode errorCode, String flagField, boolean flag, Object reference,
+                long storedAt) {
+            this.replyType = replyType;
+            this.errorCode = errorCode;
+            this.flagField = flagField;
+            this.flag = flag;
+            this.reference = reference;
+            this.storedAt = storedAt;
+        }
+
+        /**
+         * Reduces a reply to its outcome.
+         *
+         * @return the outcome, or null if the reply has a field an outcome cannot hold
+         */
+        static Outcome of(RequestType replyType, Map<String, Object> replyFields, long storedAt) {
+            if (!FIELDS.containsAll(replyFields.keySet())) {
+                return null;
+            }
+            if (replyType == RequestType.ERROR) {
+                Object code = replyFields.get("errorCode");
+                return new Outcome(replyType,
+                        code instanceof Integer ? ErrorCode.fromCode((Integer) code) : ErrorCode.UNSPECIFIED,
+                        null, false, null, storedAt);
+            }
+
+            String flagField = null;
+            if (replyFields.get("success") instanceof Boolean) {
+                flagField = "success";
+            } else if (replyFields.get("message") instanceof Boolean) {
+                flagField = "message";
+            }
+            boolean flag = flagField != null && (Boolean) replyFields.get(flagField);
+
+            Object reference = null;
+            try {
+                if (replyFields.get("confirmationID") instanceof String) {
+                    reference = UUID.fromString((String) replyFields.get("confirmationID"));
+                } else if (replyFields.get("confirmationIDs") instanceof String) {
+                    reference = packIds((String) replyFields.get("confirmationIDs"));
+                } else if (replyFields.get("timeSlot") instanceof String) {
+                    reference = packTimeSlot((String) replyFields.get("timeSlot"));
+                } else if (replyFields.get("multicastGroup") instanceof String
+                        && replyFields.get("multicastPort") instanceof Integer) {
+                    reference = new InetSocketAddress(InetAddress.getByName((String) replyFields.get("multicastGroup")),
+                            (Integer) replyFields.get("multicastPort"));
+                }
+            } catch (IllegalArgumentException | UnknownHostException e) {
+                // Not in the form the server sends, so it cannot be rebuilt
+                return null;
+            }
+            return new Outcome(replyType, null, flagField, flag, reference, storedAt);
+        }
+
+        public RequestType getReplyType() {
+            return replyType;
+        }
+
+        /**
+         * Rebuilds the reply of the request. An ERROR reply carries the error
+         * code's default message.
+         *
+         * @return the reply fields
+         */
+        public Map<String, Object> toReplyFields() {
+            Map<String, Object> replyFields = new HashMap<>();
+            if (errorCode != null) {
+                replyFields.put("errorCode", errorCode.getCode());
+                replyFields.put("errorMessage", errorCode.getDefaultMessage());
+                return replyFields;
+            }
+            if (flagField != null) {
+                replyFields.put(flagField, flag);
+            }
+            if (reference instanceof UUID) {
+                replyFields.put("confirmationID", reference.toString());
+            } else if (reference instanceof long[]) {
+                replyFields.put("confirmationIDs", unpackIds((long[]) reference));
+            } else if (reference instanceof Integer) {
+                replyFields.put("timeSlot", unpackTimeSlot((Integer) reference));
+            } else if (reference instanceof InetSocketAddress) {
+                InetSocketAddress group = (InetSocketAddress) reference;
+                replyFields.put("multicastGroup", group.getAddress().getHostAddress());
+                replyFields.put("multicastPort", group.getPort());
+            }
+            return replyFields;
+        }
+
+        private static long[] packIds(String confirmationIds) {
+            String[] ids = confirmationIds.split(":");
+            long[] packed = new long[2 * ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                UUID id = UUID.fromString(ids[i]);
+                packed[2 * i] = id.getMostSignificantBits();
+                packed[2 * i + 1] = id.getLeastSignificantBits();
+            }
+            return packed;
+        }
+
+        private static String unpackIds(long[] packed) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < packed.length; i += 2) {
+                if (i > 0) {
+                    builder.append(':');
+                }
+                builder.append(new UUID(packed[i], packed[i + 1]));
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Packs a time slot into its start and end minute of the week.
+         */
+        private static int packTimeSlot(String timeSlot) {
+            TimeSlotDecoder slot = new TimeSlotDecoder(timeSlot);
+            int start = TimeSlotDecoder.DAY_TO_INDEX.get(slot.getStartDay()) * MINUTES_PER_DAY
+                    + slot.getStartHour() * 60 + slot.getStartMin();
+            int end = TimeSlotDecoder.DAY_TO_INDEX.get(slot.getEndDay()) * MINUTES_PER_DAY
+                    + slot.getEndHour() * 60 + slot.getEndMin();
+            return start << 16 | end;
+        }
+
+        private static String unpackTimeSlot(int packed) {
+            int start = packed >>> 16;
+            int end = packed & 0xFFFF;
+            return String.format("%s,%d,%d - %s,%d,%d",
+                    TimeSlotDecoder.INDEX_TO_DAY.get(start / MINUTES_PER_DAY), start % MINUTES_PER_DAY / 60, start % 60,
+                    TimeSlotDecoder.INDEX_TO_DAY.get(end / MINUTES_PER_DAY), end % MINUTES_PER_DAY / 60, end % 60);
+        }
+    }
+
+    /**
+     * Identifies a request by its sender and request ID.
+     */
+    private static final class RequestKey {
+        private final InetAddress address;
+        private final int port;
+        private final UUID requestId;
+
+        RequestKey(InetAddress address, int port, UUID requestId) {
+            this.address = address;
+            this.port = port;
+            this.requestId = requestId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) o;
+            return port == other.port && requestId.equals(other.requestId) && address.equals(other.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(address, port, requestId);
+        }
+    }
+}
@@ -4,7 +4,9 @@ public enum RequestType {
     REQUEST(0),
     RESPONSE(1),
     ERROR(2),
-    ACK(3);
+    ACK(3),
+    // Reply to a conditional request whose result has not changed; header only
+    NOT_MODIFIED(4);
 
     private final int code;
 
@@ -0,0 +1,140 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Outcome of a booking operation: either a value or an {@link ErrorCode} with
+ * optional text. Expected failures such as booking conflicts are returned as
+ * results rather than thrown, so they cost no stack trace and need no message
+ * scanning.
+ *
+ * @param <T> the type of the value of a successful result
+ */
+public final class Result<T> {
+    private final T value;
+    private final ErrorCode errorCode;
+    private final String message;
+    private final List<String> alternatives;
+
+    private Result(T value, ErrorCode errorCode, String message) {
+        this(value, errorCode, message, List.of());
+    }
+
+    private Result(T value, ErrorCode errorCode, String message, List<String> alternatives) {
+        this.value = value;
+        this.errorCode = errorCode;
+        this.message = message;
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * Creates a successful result.
+     *
+     * @param value the value
+     * @return the result
+     */
+    public static <T> Result<T> ok(T value) {
+        return new Result<>(value, null, null);
+    }
+
+    /**
+     * Creates a failed result with the error code's default message.
+     *
+     * @param errorCode why the operation failed
+     * @return the result
+     */
+    public static <T> Result<T> error(ErrorCode errorCode) {
+        return new Result<>(null, errorCode, null);
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param errorCode why the operation failed
+     * @param message human-readable detail, or null for the default message
+     * @return the result
+     */
+    public static <T> Result<T> error(ErrorCode errorCode, String message) {
+        return new Result<>(null, errorCode, message);
+    }
+
+    /**
+     * Checks whether the operation succeeded.
+     *
+     * @return true if the result has a value
+     */
+    public boolean isOk() {
+        return errorCode == null;
+    }
+
+    /**
+     * Gets the value of a successful result.
+     *
+     * @return the value, or null if the operation failed
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Gets why the operation failed.
+     *
+     * @return the error code, or null if the operation succeeded
+     */
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Gets the human-readable description of a failure.
+     *
+     * @return the message, the error code's default message, or null if the operation succeeded
+     */
+    public String getMessage() {
+        if (errorCode == null) {
+            return null;
+        }
+        return message != null ? message : errorCode.getDefaultMessage();
+    }
+
+    /**
+     * Gets the time slots suggested instead of the one that was rejected.
+     *
+     * @return the alternatives, empty if there are none
+     */
+    public List<String> getAlternatives() {
+        return alternatives;
+    }
+
+    /**
+     * Attaches suggested time slots to a failed result.
+     *
+     * @param alternatives the time slots to suggest, nearest first
+     * @return a failed result with the same error code and message and the given alternatives
+     * @throws IllegalStateException if the operation succeeded
+     */
+    public Result<T> withAlternatives(List<String> alternatives) {
+        if (errorCode == null) {
+            throw new IllegalStateException("Result is not an error");
+        }
+        return new Result<>(null, errorCode, message, List.copyOf(alternatives));
+    }
+
+    /**
+     * Converts a failed result to a result of another value type.
+     *
+     * @return a failed result with the same error code, message and alternatives
+     * @throws IllegalStateException if the operation succeeded
+     */
+    public <U> Result<U> asError() {
+        if (errorCode == null) {
+            throw new IllegalStateException("Result is not an error");
+        }
+        return new Result<>(null, errorCode, message, alternatives);
+    }
+
+    @Override
+    public String toString() {
+        return isOk() ? "Result{ok, " + value + '}' : "Result{" + errorCode + ", " + getMessage() + '}';
+    }
+}
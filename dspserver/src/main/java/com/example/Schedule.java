@@ -0,0 +1,340 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the bookings held by one facility.
+ * Bookings are grouped by day and sorted by start time within each day. Every
+ * change produces a new Schedule that copies only the day it touches and shares
+ * the arrays of all other days with the previous snapshot, so a snapshot can be
+ * handed to any number of readers without locking or copying.
+ * Bookings may overlap, up to the facility's capacity. How many bookings cover
+ * each minute is kept in an {@link OccupancyTree} that changes along with the
+ * days, so the peak occupancy of any interval is found in O(log n).
+ * Each change also bumps the version, so a version number identifies the state
+ * of a facility's bookings.
+ */
+public final class Schedule {
+    static final int DAYS_PER_WEEK = 7;
+    static final Schedule EMPTY = new Schedule(emptyDays(), OccupancyTree.EMPTY, 0L);
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final Entry[][] days;
+    private final OccupancyTree occupancy;
+    private final long version;
+
+    private Schedule(Entry[][] days, OccupancyTree occupancy, long version) {
+        this.days = days;
+        this.occupancy = occupancy;
+        this.version = version;
+    }
+
+    /**
+     * Gets the version of this snapshot. It increases by one with every change.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks that no booking in this snapshot overlaps the given interval.
+     *
+     * @param day the day index (0 = Mon)
+     * @param start the start of the interval in minutes since midnight
+     * @param end the end of the interval in minutes since midnight, exclusive
+     * @return true if the interval is free
+     */
+    public boolean isFree(int day, int start, int end) {
+        return peakOccupancy(day, start, end) == 0;
+    }
+
+    /**
+     * Gets the largest number of bookings in this snapshot that overlap any
+     * one minute of the given interval.
+     *
+     * @param day the day index (0 = Mon)
+     * @param start the start of the interval in minutes since midnight
+     * @param end the end of the interval in minutes since midnight, exclusive
+     * @return the peak occupancy of the interval
+     */
+    public int peakOccupancy(int day, int start, int end) {
+        return occupancy.max(day * MINUTES_PER_DAY + start, day * MINUTES_PER_DAY + end);
+    }
+
+    /**
+     * Gets the peak occupancy of an interval as if one entry were not part of
+     * this snapshot. This lets a booking be checked against its own new interval
+     * without building a snapshot that leaves it out.
+     *
+     * @param day the day index (0 = Mon)
+     * @param start the start of the interval in minutes since midnight
+     * @param end the end of the interval in minutes since midnight, exclusive
+     * @param ignored an entry of this snapshot to leave out, or null
+     * @return the peak occupancy of the interval apart from the ignored entry
+     */
+    int peakOccupancyExcept(int day, int start, int end, Entry ignored) {
+        if (ignored == null) {
+            return peakOccupancy(day, start, end);
+        }
+        return remove(occupancy, ignored).max(day * MINUTES_PER_DAY + start, day * MINUTES_PER_DAY + end);
+    }
+
+    /**
+     * Gets the intervals of a day, within the given hours, that are covered by
+     * fewer than capacity bookings. With a capacity of one these are the gaps
+     * between bookings. The day's starts are already sorted, so one merge with
+     * its sorted ends sweeps the day in start order.
+     *
+     * @param day the day index (0 = Mon)
+     * @param open the start of the hours in minutes since midnight
+     * @param close the end of the hours in minutes since midnight, exclusive
+     * @param capacity the number of bookings that fill a minute
+     * @return the free intervals as consecutive start and end minutes
+     */
+    public int[] freeIntervals(int day, int open, int close, int capacity) {
+        Entry[] entries = days[day];
+        int[] ends = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            ends[i] = entries[i].end;
+        }
+        Arrays.sort(ends);
+
+        int[] gaps = new int[2 * (2 * entries.length + 1)];
+        int count = 0;
+        int nextStart = 0;
+        int nextEnd = 0;
+        int covering = 0;
+        int position = open;
+        int freeFrom = -1;
+        while (true) {
+            // The occupancy is constant from position up to the next start or end
+            int next = Math.min(nextStart < entries.length ? entries[nextStart].start : Integer.MAX_VALUE,
+                    nextEnd < ends.length ? ends[nextEnd] : Integer.MAX_VALUE);
+            if (Math.min(next, close) > position) {
+                if (covering < capacity && freeFrom < 0) {
+                    freeFrom = position;
+                } else if (covering >= capacity && freeFrom >= 0) {
+                    gaps[count++] = freeFrom;
+                    gaps[count++] = position;
+                    freeFrom = -1;
+                }
+            }
+            if (next >= close) {
+                break;
+            }
+            position = Math.max(position, next);
+            while (nextEnd < ends.length && ends[nextEnd] == next) {
+                covering--;
+                nextEnd++;
+            }
+            while (nextStart < entries.length && entries[nextStart].start == next) {
+                covering++;
+                nextStart++;
+            }
+        }
+        if (freeFrom >= 0) {
+            gaps[count++] = freeFrom;
+            gaps[count++] = close;
+        }
+        return count == gaps.length ? gaps : Arrays.copyOf(gaps, count);
+    }
+
+    /**
+     * Checks whether a day is unchanged between two snapshots. Days a change did
+     * not touch share their arrays, so this is an identity check.
+     *
+     * @param other another snapshot of the same facility
+     * @param day the day index (0 = Mon)
+     * @return true if the day holds the same bookings in both snapshots
+     */
+    public boolean sameDay(Schedule other, int day) {
+        return days[day] == other.days[day];
+    }
+
+    /**
+     * Gets the bookings in this snapshot, ordered by day and start time.
+     *
+     * @return an unmodifiable list of bookings
+     */
+    public List<Booking> getBookings() {
+        List<Booking> bookings = new ArrayList<>(size());
+        for (Entry[] entries : days) {
+            for (Entry entry : entries) {
+                bookings.add(entry.booking);
+            }
+        }
+        return Collections.unmodifiableList(bookings);
+    }
+
+    /**
+     * Gets the number of bookings in this snapshot.
+     *
+     * @return the number of bookings
+     */
+    public int size() {
+        int size = 0;
+        for (Entry[] entries : days) {
+            size += entries.length;
+        }
+        return size;
+    }
+
+    /**
+     * Finds the entry of a booking in this snapshot by its confirmation ID, so
+     * that a booking from an older snapshot finds its current entry even if it
+     * has been rescheduled since.
+     *
+     * @param booking the booking to look for
+     * @return the entry, or null if the booking is not part of this snapshot
+     */
+    Entry find(Booking booking) {
+        for (Entry[] entries : days) {
+            for (Entry entry : entries) {
+                if (entry.booking.getConfirmationUUID().equals(booking.getConfirmationUUID())) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a snapshot with one more entry. The caller is responsible for
+     * checking that the entry fits the facility's capacity.
+     *
+     * @param entry the entry to add
+     * @return the new snapshot
+     */
+    Schedule with(Entry entry) {
+        Entry[] entries = days[entry.day];
+        int index = firstStartingAtOrAfter(entries, entry.start);
+
+        Entry[] updated = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, updated, 0, index);
+        updated[index] = entry;
+        System.arraycopy(entries, index, updated, index + 1, entries.length - index);
+        return replaceDay(entry.day, updated, add(occupancy, entry));
+    }
+
+    /**
+     * Returns a snapshot in which one entry is replaced by another, as a single change.
+     *
+     * @param entry an entry of this snapshot
+     * @param replacement the entry to put in its place
+     * @return the new snapshot
+     */
+    Schedule replace(Entry entry, Entry replacement) {
+        Entry[][] updated = days.clone();
+        if (entry.day == replacement.day) {
+            // Moving within a day: one copy of the day with the entry taken out and put back in
+            Entry[] entries = days[entry.day];
+            Entry[] moved = new Entry[entries.length];
+            int target = 0;
+            boolean placed = false;
+            for (Entry current : entries) {
+                if (current == entry) {
+                    continue;
+                }
+                if (!placed && current.start >= replacement.start) {
+                    moved[target++] = replacement;
+                    placed = true;
+                }
+                moved[target++] = current;
+            }
+            if (!placed) {
+                moved[target] = replacement;
+            }
+            updated[entry.day] = moved;
+        } else {
+            updated[entry.day] = without(entry).days[entry.day];
+            updated[replacement.day] = with(replacement).days[replacement.day];
+        }
+        return new Schedule(updated, add(remove(occupancy, entry), replacement), version + 1);
+    }
+
+    /**
+     * Returns a snapshot without the given entry.
+     *
+     * @param entry an entry of this snapshot
+     * @return the new snapshot, or this snapshot if it does not hold the entry
+     */
+    Schedule without(Entry entry) {
+        Entry[] entries = days[entry.day];
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                Entry[] updated = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, updated, 0, i);
+                System.arraycopy(entries, i + 1, updated, i, entries.length - i - 1);
+                return replaceDay(entry.day, updated, remove(occupancy, entry));
+            }
+        }
+        return this;
+    }
+
+    private Schedule replaceDay(int day, Entry[] entries, OccupancyTree updatedOccupancy) {
+        // Shallow copy: the arrays of untouched days are shared with this snapshot
+        Entry[][] updated = days.clone();
+        updated[day] = entries;
+        return new Schedule(updated, updatedOccupancy, version + 1);
+    }
+
+    private static OccupancyTree add(OccupancyTree occupancy, Entry entry) {
+        int dayStart = entry.day * MINUTES_PER_DAY;
+        return occupancy.add(dayStart + entry.start, dayStart + entry.end, 1);
+    }
+
+    private static OccupancyTree remove(OccupancyTree occupancy, Entry entry) {
+        int dayStart = entry.day * MINUTES_PER_DAY;
+        return occupancy.add(dayStart + entry.start, dayStart + entry.end, -1);
+    }
+
+    private static int firstStartingAtOrAfter(Entry[] entries, int minute) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].start < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Entry[][] emptyDays() {
+        Entry[][] days = new Entry[DAYS_PER_WEEK][];
+        for (int day = 0; day < DAYS_PER_WEEK; day++) {
+            days[day] = new Entry[0];
+        }
+        return days;
+    }
+
+    /**
+     * A booking together with the interval it occupies, decoded once when the
+     * entry is created. Bookings in a snapshot are never changed; rescheduling
+     * replaces the entry with one holding a new booking.
+     */
+    static final class Entry {
+        final Booking booking;
+        final int day;
+        final int start;
+        final int end;
+
+        Entry(Booking booking) {
+            this(booking, booking.getTimeSlotDecoder());
+        }
+
+        Entry(Booking booking, TimeSlotDecoder slot) {
+            this.booking = booking;
+            this.day = TimeSlotDecoder.DAY_TO_INDEX.get(slot.getStartDay());
+            this.start = slot.getStartHour() * 60 + slot.getStartMin();
+            this.end = start + slot.getDurationMinutes();
+        }
+    }
+}
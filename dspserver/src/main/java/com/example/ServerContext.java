@@ -0,0 +1,107 @@
+package com.example;
+
+/**
+ * State shared by the server's service handlers: the booking service, the
+ * notification dispatcher and the socket requests arrive on. The socket can be
+ * replaced while the server runs, so handlers look it up for every reply.
+ */
+public class ServerContext {
+    private final int portNumber;
+    private final BookingService bookingService;
+    private final NotificationDispatcher dispatcher;
+    private final MulticastChannel multicastChannel;
+    private volatile CustomSocket socket;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a server context.
+     *
+     * @param portNumber the port the server listens on
+     * @param socket the server socket
+     * @param bookingService the booking service
+     * @param dispatcher the notification dispatcher
+     * @param multicastChannel the channel for multicast notifications, or null if disabled
+     */
+    public ServerContext(int portNumber, CustomSocket socket, BookingService bookingService,
+            NotificationDispatcher dispatcher, MulticastChannel multicastChannel) {
+        this.portNumber = portNumber;
+        this.socket = socket;
+        this.bookingService = bookingService;
+        this.dispatcher = dispatcher;
+        this.multicastChannel = multicastChannel;
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port number
+     */
+    public int getPortNumber() {
+        return portNumber;
+    }
+
+    /**
+     * Gets the current server socket.
+     *
+     * @return the socket
+     */
+    public CustomSocket getSocket() {
+        return socket;
+    }
+
+    /**
+     * Replaces the server socket, e.g. to switch delivery semantics. Notifications
+     * are sent on the new socket from now on.
+     *
+     * @param socket the new socket, already created
+     */
+    public void setSocket(CustomSocket socket) {
+        this.socket = socket;
+        if (dispatcher != null) {
+            dispatcher.setSocket(socket);
+        }
+    }
+
+    /**
+     * Gets the booking service.
+     *
+     * @return the booking service
+     */
+    public BookingService getBookingService() {
+        return bookingService;
+    }
+
+    /**
+     * Gets the notification dispatcher.
+     *
+     * @return the dispatcher
+     */
+    public NotificationDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Gets the channel for multicast notifications.
+     *
+     * @return the channel, or null if multicast is disabled
+     */
+    public MulticastChannel getMulticastChannel() {
+        return multicastChannel;
+    }
+
+    /**
+     * Checks whether the server should keep receiving requests.
+     *
+     * @return false once the server is shutting down
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops the server after the current request.
+     */
+    public void stop() {
+        running = false;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example;
+
+/**
+ * Handles the requests of one service. Handlers are registered in a
+ * {@link ServiceRegistry} under their service ID and describe themselves with
+ * metadata the registry uses to treat requests differently, e.g. which requests
+ * change state. Whether a service is idempotent is not part of this metadata:
+ * it is read from services.json, which the sockets use as well.
+ */
+public interface ServiceHandler {
+
+    /**
+     * Relative importance of a service's requests, highest first.
+     */
+    enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    /**
+     * Gets the service ID this handler serves, as defined in services.json.
+     *
+     * @return the service ID
+     */
+    int getServiceId();
+
+    /**
+     * Gets the name the service is logged under.
+     *
+     * @return the service name
+     */
+    String getName();
+
+    /**
+     * Handles one request and sends its reply, if the service has one.
+     *
+     * @param request the request
+     * @throws Exception if the request could not be handled
+     */
+    void handle(ServiceRequest request) throws Exception;
+
+    /**
+     * Checks whether the service changes bookings or registrations.
+     *
+     * @return true if requests change server state
+     */
+    default boolean isMutating() {
+        return false;
+    }
+
+    /**
+     * Gets the priority of the service's requests.
+     *
+     * @return the priority
+     */
+    default Priority getPriority() {
+        return Priority.NORMAL;
+    }
+
+    /**
+     * Checks whether a request can change a facility's availability, in which
+     * case the registry notifies the facility's monitoring clients afterwards.
+     *
+     * @return true if the service triggers callback notifications
+     */
+    default boolean triggersFanout() {
+        return false;
+    }
+}
@@ -0,0 +1,251 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Table of service handlers indexed by service ID. Dispatching a request is an
+ * array lookup; the registry times every handler, notifies monitoring clients
+ * after requests to services that trigger fanout, and keeps per-service
+ * request, error and latency counts. Retransmitted requests to mutating
+ * services that services.json does not mark idempotent are answered from a
+ * {@link RequestDedupeCache} instead of being executed again.
+ */
+public class ServiceRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceRegistry.class);
+
+    // Service IDs are small, so the table covers every valid ID
+    static final int MAX_SERVICE_ID = 63;
+
+    private final ServiceHandler[] handlers = new ServiceHandler[MAX_SERVICE_ID + 1];
+    private final HandlerStats[] stats = new HandlerStats[MAX_SERVICE_ID + 1];
+    private final RequestDedupeCache dedupeCache;
+
+    /**
+     * Creates an empty registry with a default-sized dedupe cache.
+     */
+    public ServiceRegistry() {
+        this(new RequestDedupeCache());
+    }
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param dedupeCache the cache of outcomes of mutating requests, or null to execute duplicates again
+     */
+    public ServiceRegistry(RequestDedupeCache dedupeCache) {
+        this.dedupeCache = dedupeCache;
+    }
+
+    /**
+     * Registers a handler under its service ID.
+     *
+     * @param handler the handler
+     * @return this registry
+     * @throws IllegalArgumentException if the ID is out of range or already taken
+     */
+    public ServiceRegistry register(ServiceHandler handler) {
+        int serviceId = handler.getServiceId();
+        if (serviceId < 0 || serviceId > MAX_SERVICE_ID) {
+            throw new IllegalArgumentException("Service ID out of range: " + serviceId);
+        }
+        if (handlers[serviceId] != null) {
+            throw new IllegalArgumentException("Service ID already registered: " + serviceId);
+        }
+        handlers[serviceId] = handler;
+        stats[serviceId] = new HandlerStats();
+        return this;
+    }
+
+    /**
+     * Gets the handler of a service.
+     *
+     * @param serviceId the service ID
+     * @return the handler, or null if the service is unknown
+     */
+    public ServiceHandler get(int serviceId) {
+        return serviceId >= 0 && serviceId <= MAX_SERVICE_ID ? handlers[serviceId] : null;
+    }
+
+    /**
+     * Gets the name a service is logged under.
+     *
+     * @param serviceId the service ID
+     * @return the handler's name, or UNKNOWN(id)
+     */
+    public String getName(int serviceId) {
+        ServiceHandler handler = get(serviceId);
+        return handler != null ? handler.getName() : "UNKNOWN(" + serviceId + ")";
+    }
+
+    /**
+     * Handles a request with the handler registered for its service. A handler
+     * that fails is logged and counted; it does not stop the server.
+     *
+     * @param request the request
+     * @return false if no handler is registered for the service
+     */
+    public boolean dispatch(ServiceRequest request) {
+        int serviceId = request.getServiceId();
+        ServiceHandler handler = get(serviceId);
+        if (handler == null) {
+            LOGGER.error("UNKNOWN_SERVICE | ID: {} | Client: {}", serviceId, request.getClientInfo());
+            return false;
+        }
+
+        boolean deduplicated = dedupeCache != null && handler.isMutating()
+                && !request.getContext().getSocket().isIdempotent(serviceId);
+        if (deduplicated && replayOutcome(handler, request)) {
+            return true;
+        }
+
+        HandlerStats handlerStats = stats[serviceId];
+        long start = System.nanoTime();
+        boolean handled = false;
+        try {
+            handler.handle(request);
+            handled = true;
+        } catch (Exception e) {
+            handlerStats.errors.increment();
+            LOGGER.error("{} | Client: {} | Failed: {}", handler.getName(), request.getClientInfo(), e.getMessage());
+        } finally {
+            handlerStats.record(System.nanoTime() - start);
+        }
+
+        // A socket that filters duplicates keeps the whole reply already
+        if (deduplicated && handled && request.getReplyType() != null
+                && !request.getContext().getSocket().filtersDuplicates()) {
+            dedupeCache.put(request.getSenderAddress(), request.getSenderPort(), request.getRequestId(),
+                    request.getReplyType(), request.getReplyFields());
+        }
+
+        if (handler.triggersFanout()) {
+            for (String facilityName : request.getChangedFacilities()) {
+                request.getContext().getDispatcher().submit(facilityName);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Answers a retransmitted request with the reply recorded for it, if any.
+     */
+    private boolean replayOutcome(ServiceHandler handler, ServiceRequest request) {
+        RequestDedupeCache.Outcome outcome = dedupeCache.get(request.getSenderAddress(), request.getSenderPort(),
+                request.getRequestId());
+        if (outcome == null) {
+            return false;
+        }
+        LOGGER.info("{} | Client: {} | Duplicate of handled request, replaying {}", handler.getName(),
+                request.getClientInfo(), outcome.getReplyType());
+        try {
+            request.send(outcome.toReplyFields(), outcome.getReplyType());
+        } catch (Exception e) {
+            LOGGER.error("{} | Client: {} | Failed to replay: {}", handler.getName(), request.getClientInfo(),
+                    e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Gets the cache of outcomes of mutating requests.
+     *
+     * @return the cache, or null if duplicates are executed again
+     */
+    public RequestDedupeCache getDedupeCache() {
+        return dedupeCache;
+    }
+
+    /**
+     * Gets the number of requests handled by a service.
+     *
+     * @param serviceId the service ID
+     * @return the request count, 0 for unknown services
+     */
+    public long getRequests(int serviceId) {
+        HandlerStats handlerStats = statsOf(serviceId);
+        return handlerStats == null ? 0 : handlerStats.requests.sum();
+    }
+
+    /**
+     * Gets the number of requests a service failed to handle.
+     *
+     * @param serviceId the service ID
+     * @return the error count, 0 for unknown services
+     */
+    public long getErrors(int serviceId) {
+        HandlerStats handlerStats = statsOf(serviceId);
+        return handlerStats == null ? 0 : handlerStats.errors.sum();
+    }
+
+    /**
+     * Gets the average time a service takes to handle a request, including its reply.
+     *
+     * @param serviceId the service ID
+     * @return the average latency in microseconds
+     */
+    public long getAverageLatencyMicros(int serviceId) {
+        HandlerStats handlerStats = statsOf(serviceId);
+        if (handlerStats == null) {
+            return 0;
+        }
+        long requests = handlerStats.requests.sum();
+        return requests == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(handlerStats.totalNanos.sum() / requests);
+    }
+
+    /**
+     * Gets the longest time a service took to handle a request.
+     *
+     * @param serviceId the service ID
+     * @return the maximum latency in microseconds
+     */
+    public long getMaxLatencyMicros(int serviceId) {
+        HandlerStats handlerStats = statsOf(serviceId);
+        return handlerStats == null ? 0 : TimeUnit.NANOSECONDS.toMicros(handlerStats.maxNanos.get());
+    }
+
+    private HandlerStats statsOf(int serviceId) {
+        return serviceId >= 0 && serviceId <= MAX_SERVICE_ID ? stats[serviceId] : null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ServiceRegistry{");
+        boolean first = true;
+        for (int serviceId = 0; serviceId <= MAX_SERVICE_ID; serviceId++) {
+            if (handlers[serviceId] == null || stats[serviceId].requests.sum() == 0) {
+                continue;
+            }
+            if (!first) {
+                builder.append(", ");
+            }
+            first = false;
+            builder.append(handlers[serviceId].getName())
+                    .append("={requests=").append(getRequests(serviceId))
+                    .append(", errors=").append(getErrors(serviceId))
+                    .append(", avgUs=").append(getAverageLatencyMicros(serviceId))
+                    .append(", maxUs=").append(getMaxLatencyMicros(serviceId)).append('}');
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Request counts and latencies of one service.
+     */
+    private static class HandlerStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            requests.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * One request received by the server, with helpers for reading its fields and
+ * replying to its sender on the server's current socket.
+ */
+public class ServiceRequest {
+    private final SenderResult sender;
+    private final Map<String, Object> fields;
+    private final ServerContext context;
+    private final Set<String> changedFacilities = new LinkedHashSet<>();
+    private RequestType replyType;
+    private Map<String, Object> replyFields;
+
+    /**
+     * Wraps a received message.
+     *
+     * @param sender the message and its sender
+     * @param context the server context
+     */
+    public ServiceRequest(SenderResult sender, ServerContext context) {
+        this.sender = sender;
+        this.fields = sender.getResult();
+        this.context = context;
+    }
+
+    public ServerContext getContext() {
+        return context;
+    }
+
+    public BookingService getBookingService() {
+        return context.getBookingService();
+    }
+
+    public UUID getRequestId() {
+        return (UUID) fields.get("request_id");
+    }
+
+    public int getServiceId() {
+        return (int) fields.get("service_id");
+    }
+
+    public RequestType getRequestType() {
+        return (RequestType) fields.get("request_type");
+    }
+
+    public InetAddress getSenderAddress() {
+        return sender.getSenderIpAddress();
+    }
+
+    public int getSenderPort() {
+        return sender.getSenderPort();
+    }
+
+    /**
+     * Gets the sender as "address:port" for logging.
+     *
+     * @return the client info
+     */
+    public String getClientInfo() {
+        return sender.getSenderIpAddress() + ":" + sender.getSenderPort();
+    }
+
+    /**
+     * Gets a field of the request.
+     *
+     * @param name the field name
+     * @return the value, or null if the request does not carry the field
+     */
+    public Object get(String name) {
+        return fields.get(name);
+    }
+
+    public String getString(String name) {
+        return (String) fields.get(name);
+    }
+
+    public int getInt(String name) {
+        return (int) fields.get(name);
+    }
+
+    /**
+     * Gets an optional boolean field.
+     *
+     * @param name the field name
+     * @return true only if the request carries the field and it is set
+     */
+    public boolean getFlag(String name) {
+        return Boolean.TRUE.equals(fields.get(name));
+    }
+
+    /**
+     * Looks up the facility the request refers to. The optional facilityId field
+     * takes precedence over facilityName when the client sends it.
+     *
+     * @return The facility, or null if not found
+     */
+    public Facility resolveFacility() {
+        // A negative facilityId lets clients send later optional fields without it
+        Object facilityId = fields.get("facilityId");
+        if (facilityId != null && (int) facilityId >= 0) {
+            return getBookingService().getFacility((int) facilityId);
+        }
+        return getBookingService().getFacility((String) fields.get("facilityName"));
+    }
+
+    /**
+     * Gets the facility name the request refers to, resolving facilityId if present.
+     * Without a facilityId the raw facilityName is returned, so that lookups of
+     * unknown names still produce the usual error message. A facilityId that
+     * matches no facility never falls back to the name.
+     *
+     * @return the facility name, or null if facilityId matches no facility
+     */
+    public String resolveFacilityName() {
+        Object facilityId = fields.get("facilityId");
+        if (facilityId != null && (int) facilityId >= 0) {
+            Facility facility = getBookingService().getFacility((int) facilityId);
+            return facility != null ? facility.getFacilityName() : null;
+        }
+        return (String) fields.get("facilityName");
+    }
+
+    /**
+     * Sends a successful response.
+     *
+     * @param response the response fields
+     * @throws IOException if sending fails
+     */
+    public void reply(Map<String, Object> response) throws IOException {
+        send(response, RequestType.RESPONSE);
+    }
+
+    /**
+     * Sends an error response.
+     *
+     * @param errorCode why the request failed
+     * @param errorMessage human-readable detail, or null to send the code only
+     * @throws IOException if sending fails
+     */
+    public void replyError(ErrorCode errorCode, String errorMessage) throws IOException {
+        replyError(errorCode, errorMessage, List.of());
+    }
+
+    /**
+     * Sends the error response for a failed result, with any alternatives it suggests.
+     *
+     * @param result the failed result
+     * @throws IOException if sending fails
+     */
+    public void replyError(Result<?> result) throws IOException {
+        replyError(result.getErrorCode(), result.getMessage(), result.getAlternatives());
+    }
+
+    private void replyError(ErrorCode errorCode, String errorMessage, List<String> alternatives) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("errorCode", errorCode.getCode());
+        if (errorMessage != null) {
+            response.put("errorMessage", errorMessage);
+        }
+        if (!alternatives.isEmpty()) {
+            // Time slots never contain ":", so they are joined like ListAvailability's slots
+            response.put("alternatives", String.join(":", alternatives));
+        }
+        send(response, RequestType.ERROR);
+    }
+
+    /**
+     * Sends a reply of any type to the request's sender.
+     *
+     * @param response the reply fields
+     * @param requestType the reply type
+     * @throws IOException if sending fails
+     */
+    public void send(Map<String, Object> response, RequestType requestType) throws IOException {
+        context.getSocket().send(response, getRequestId(), getServiceId(), requestType,
+                sender.getSenderIpAddress(), sender.getSenderPort());
+        this.replyType = requestType;
+        this.replyFields = response;
+    }
+
+    /**
+     * Gets the type of the last reply sent for the request.
+     *
+     * @return the reply type, or null if nothing was sent
+     */
+    public RequestType getReplyType() {
+        return replyType;
+    }
+
+    /**
+     * Gets the fields of the last reply sent for the request.
+     *
+     * @return the reply fields, or null if nothing was sent
+     */
+    public Map<String, Object> getReplyFields() {
+        return replyFields;
+    }
+
+    /**
+     * Records that the request changed a facility, so that its monitoring
+     * clients are notified once the request has been handled. A facility
+     * changed several times by one request is notified once.
+     *
+     * @param facilityName the facility that changed
+     */
+    public void facilityChanged(String facilityName) {
+        changedFacilities.add(facilityName);
+    }
+
+    /**
+     * Gets the facilities the request changed, in the order they were recorded.
+     *
+     * @return the facility names, empty if nothing changed
+     */
+    public Set<String> getChangedFacilities() {
+        return changedFacilities;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shutdown (service 9): stops notifications, closes the server's sockets and
+ * ends the receive loop. Not part of services.json and not answered.
+ */
+public class ShutdownHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShutdownHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 9;
+    }
+
+    @Override
+    public String getName() {
+        return "SHUTDOWN";
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.LOW;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) {
+        LOGGER.warn("SHUTDOWN | Client: {}", request.getClientInfo());
+        ServerContext context = request.getContext();
+        LOGGER.info("NOTIFICATION | {}", context.getDispatcher());
+        context.getDispatcher().close();
+        if (context.getMulticastChannel() != null) {
+            context.getMulticastChannel().close();
+        }
+        context.getSocket().close();
+        LOGGER.info("Server socket closed");
+        context.stop();
+    }
+}
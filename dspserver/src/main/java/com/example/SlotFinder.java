@@ -0,0 +1,159 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Searches the free intervals of several facilities for slots of a given
+ * length. The facilities are split between fork-join tasks on the common pool;
+ * each facility's scan stops after its own first limit matches, and partial
+ * results are merged so that only the overall first limit matches by start
+ * time remain. Every facility is read from one snapshot, so the search never
+ * blocks bookings.
+ */
+public final class SlotFinder {
+    // A task scans this many facilities itself instead of forking
+    private static final int SEQUENTIAL_THRESHOLD = 1;
+
+    /**
+     * Orders matches by day, then start time, then facility ID
+     */
+    static final Comparator<Match> START_ORDER = Comparator.comparingInt(Match::getDay)
+            .thenComparingInt(Match::getStart)
+            .thenComparingInt(match -> match.getFacility().getRegistryId());
+
+    private SlotFinder() {
+    }
+
+    /**
+     * Finds the first matches, by start time, across the given facilities.
+     *
+     * @param facilities the facilities to search
+     * @param firstDay the first day index of the range (0 = Mon)
+     * @param lastDay the last day index of the range, inclusive
+     * @param durationMinutes the length of the slot to find
+     * @param limit the largest number of matches to return
+     * @return up to limit matches in start order
+     */
+    public static List<Match> find(List<Facility> facilities, int firstDay, int lastDay, int durationMinutes,
+            int limit) {
+        if (facilities.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return ForkJoinPool.commonPool()
+                .invoke(new SearchTask(facilities, firstDay, lastDay, durationMinutes, limit));
+    }
+
+    /**
+     * Merges two lists of matches that are each in start order, keeping the first limit.
+     */
+    static List<Match> merge(List<Match> left, List<Match> right, int limit) {
+        List<Match> merged = new ArrayList<>(Math.min(limit, left.size() + right.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < left.size() || j < right.size())) {
+            if (j == right.size() || i < left.size() && START_ORDER.compare(left.get(i), right.get(j)) <= 0) {
+                merged.add(left.get(i++));
+            } else {
+                merged.add(right.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private static final class SearchTask extends RecursiveTask<List<Match>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Facility> facilities;
+        private final int firstDay;
+        private final int lastDay;
+        private final int durationMinutes;
+        private final int limit;
+
+        SearchTask(List<Facility> facilities, int firstDay, int lastDay, int durationMinutes, int limit) {
+            this.facilities = facilities;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.durationMinutes = durationMinutes;
+            this.limit = limit;
+        }
+
+        @Override
+        protected List<Match> compute() {
+            if (facilities.size() <= SEQUENTIAL_THRESHOLD) {
+                List<Match> matches = List.of();
+                for (Facility facility : facilities) {
+                    matches = merge(matches, facility.findFreeSlots(facility.getSchedule(), firstDay, lastDay,
+                            durationMinutes, limit), limit);
+                }
+                return matches;
+            }
+
+            int middle = facilities.size() / 2;
+            SearchTask left = new SearchTask(facilities.subList(0, middle), firstDay, lastDay, durationMinutes, limit);
+            SearchTask right = new SearchTask(facilities.subList(middle, facilities.size()), firstDay, lastDay,
+                    durationMinutes, limit);
+            left.fork();
+            List<Match> rightMatches = right.compute();
+            return merge(left.join(), rightMatches, limit);
+        }
+    }
+
+    /**
+     * A free slot at one facility
+     */
+    public static final class Match {
+        private final Facility facility;
+        private final int day;
+        private final int start;
+        private final int end;
+
+        Match(Facility facility, int day, int start, int end) {
+            this.facility = facility;
+            this.day = day;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Facility getFacility() {
+            return facility;
+        }
+
+        public int getDay() {
+            return day;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * Gets the slot in the format used by BookFacility.
+         *
+         * @return the time slot, e.g. "Tue,9,30 - Tue,11,0"
+         */
+        public String getTimeSlot() {
+            String dayName = TimeSlotDecoder.INDEX_TO_DAY.get(day);
+            return String.format("%s,%d,%d - %s,%d,%d",
+                    dayName, start / 60, start % 60,
+                    dayName, end / 60, end % 60);
+        }
+
+        /**
+         * Formats the match as a BatchBook entry.
+         *
+         * @return the facility name and time slot, e.g. "Gym|Tue,9,30 - Tue,11,0"
+         */
+        @Override
+        public String toString() {
+            return facility.getFacilityName() + "|" + getTimeSlot();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SocketSwitching (service 8): replaces the server socket with one of the
+ * requested delivery semantics, "AtLeastOnceSocket" or "AtMostOnceSocket".
+ */
+public class SocketSwitchingHandler implements ServiceHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SocketSwitchingHandler.class);
+
+    @Override
+    public int getServiceId() {
+        return 8;
+    }
+
+    @Override
+    public String getName() {
+        return "SWITCH_SOCKET";
+    }
+
+    @Override
+    public boolean isMutating() {
+        return true;
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.LOW;
+    }
+
+    @Override
+    public void handle(ServiceRequest request) throws Exception {
+        String socketType = request.getString("switch");
+        LOGGER.info("SWITCH_SOCKET | Type: {}", socketType);
+
+        if (socketType == null) {
+            LOGGER.error("SWITCH_SOCKET | socketType is null in the request");
+            request.replyError(ErrorCode.INVALID_ARGUMENT, "Missing socket type in request");
+            return;
+        }
+
+        ServerContext context = request.getContext();
+        // Store current socket type for logging
+        String currentSocketType = context.getSocket().getClass().getSimpleName();
+        LOGGER.info("SWITCH_SOCKET | Current socket: {}, Target socket: {}", currentSocketType, socketType);
+
+        Map<String, Object> socketResp = new HashMap<>();
+
+        // If this is an AtMostOnceSocket and we're switching to AtLeastOnceSocket
+        if (currentSocketType.equals("AtMostOnceSocket") && socketType.equals("AtLeastOnceSocket")) {
+            // First send response to the switch request
+            LOGGER.info("SWITCH_SOCKET | Sending response to switch request");
+            socketResp.put("message", true);
+            request.reply(socketResp);
+
+            // Now wait specifically for an ACK before switching
+            LOGGER.info("SWITCH_SOCKET | Waiting for client ACK before switching...");
+            try {
+                // Set a timeout to ensure we don't wait forever
+                context.getSocket().setTimeout(5000);
+
+                // Instead of trying to receive the ACK (which might be processed internally),
+                // just add a small delay to give the socket time to process the ACK
+                LOGGER.info("SWITCH_SOCKET | Adding delay to allow ACK processing");
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                // Now close the socket and create the new one
+                LOGGER.info("SWITCH_SOCKET | Closing {} after ACK processing delay", currentSocketType);
+                context.getSocket().close();
+                openSocket(context, new AtLeastOnceSocket(context.getPortNumber()));
+            } catch (Exception e) {
+                LOGGER.error("SWITCH_SOCKET | Error during ACK wait or socket creation: {}", e.getMessage());
+                recover(context);
+            }
+            return;
+        }
+
+        // For other socket type combinations or same socket type
+        try {
+            // Close the current socket
+            LOGGER.info("SWITCH_SOCKET | Closing current socket: {}", currentSocketType);
+            context.getSocket().close();
+
+            // Create new socket based on request
+            boolean switchSuccess;
+            if (socketType.equals("AtLeastOnceSocket")) {
+                openSocket(context, new AtLeastOnceSocket(context.getPortNumber()));
+                switchSuccess = true;
+            } else if (socketType.equals("AtMostOnceSocket")) {
+                openSocket(context, new AtMostOnceSocket(context.getPortNumber()));
+                switchSuccess = true;
+            } else {
+                LOGGER.error("Unknown socket type: {}", socketType);
+                socketResp.put("errorCode", ErrorCode.UNSUPPORTED.getCode());
+                socketResp.put("errorMessage", "Unknown socket type: " + socketType);
+                switchSuccess = false;
+            }
+
+            // Send response based on success
+            if (switchSuccess) {
+                socketResp.put("message", true);
+                request.reply(socketResp);
+                LOGGER.info("RESPONSE | SWITCH_SOCKET | Client: {} | Switched to: {}", request.getClientInfo(),
+                        socketType);
+            } else {
+                socketResp.put("message", false);
+                request.send(socketResp, RequestType.ERROR);
+                LOGGER.info("RESPONSE | SWITCH_SOCKET | Client: {} | Failed to switch", request.getClientInfo());
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to switch socket: {}", e.getMessage());
+            recover(context);
+            request.replyError(ErrorCode.UNSPECIFIED, "Failed to switch socket: " + e.getMessage());
+        }
+    }
+
+    private static void openSocket(ServerContext context, CustomSocket socket) throws Exception {
+        String socketType = socket.getClass().getSimpleName();
+        LOGGER.info("Creating {} on port {}", socketType, context.getPortNumber());
+        socket.createServer();
+        context.setSocket(socket);
+        LOGGER.info("{} server started successfully", socketType);
+    }
+
+    /**
+     * Falls back to an at-least-once socket after a failed switch. If even that
+     * fails the server cannot receive requests any more, so it is stopped.
+     */
+    private static void recover(ServerContext context) throws Exception {
+        try {
+            openSocket(context, new AtLeastOnceSocket(context.getPortNumber()));
+            LOGGER.info("Recovered with AtLeastOnceSocket");
+        } catch (Exception recoveryEx) {
+            LOGGER.error("Failed to recover: {}", recoveryEx.getMessage());
+            context.stop();
+            throw recoveryEx;
+        }
+    }
+}
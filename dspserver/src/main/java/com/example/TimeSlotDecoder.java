@@ -18,6 +18,9 @@ public class TimeSlotDecoder {
             "Sat", 5,
             "Sun", 6);
 
+    public static final List<String> INDEX_TO_DAY = List.of(
+            "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun");
+
     private static final Map<String, DayOfWeek> DAY_TO_ENUM = Map.of(
             "Mon", DayOfWeek.MONDAY,
             "Tue", DayOfWeek.TUESDAY,
@@ -51,6 +54,45 @@ public class TimeSlotDecoder {
         this.durationMinutes = calculateDuration(start, end);
     }
 
+    /**
+     * Normalises a comma-separated list of days into a bit mask, bit 0 being Monday.
+     * Whitespace, order and repetition of days do not affect the result.
+     *
+     * @param days the days, e.g. "Tue, Mon"
+     * @return the day mask
+     * @throws IllegalArgumentException if a day is not a three-letter abbreviation
+     */
+    public static int toDayMask(String days) {
+        int mask = 0;
+        for (String day : days.split(",")) {
+            Integer index = DAY_TO_INDEX.get(day.trim());
+            if (index == null) {
+                throw new IllegalArgumentException("Invalid day: " + day.trim());
+            }
+            mask |= 1 << index;
+        }
+        return mask;
+    }
+
+    /**
+     * Formats a day mask as a comma-separated list of days in week order.
+     *
+     * @param dayMask the day mask, bit 0 being Monday
+     * @return the days, e.g. "Mon,Tue"
+     */
+    public static String fromDayMask(int dayMask) {
+        StringBuilder days = new StringBuilder();
+        for (int index = 0; index < INDEX_TO_DAY.size(); index++) {
+            if ((dayMask & (1 << index)) != 0) {
+                if (days.length() > 0) {
+                    days.append(',');
+                }
+                days.append(INDEX_TO_DAY.get(index));
+            }
+        }
+        return days.toString();
+    }
+
     public boolean endAfterStart() {
         return startDay.getValue() < endDay.getValue() ||
                 (startDay.getValue() == endDay.getValue() && startHour < endHour) ||
@@ -0,0 +1,107 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class AtMostOnceSocketTest {
+    private static final InetAddress CLIENT = InetAddress.getLoopbackAddress();
+    private static final int CLIENT_PORT = 7000;
+
+    @Test
+    public void testDuplicateOfMutatingRequestGetsStoredReply() throws Exception {
+        ScriptedSocket socket = new ScriptedSocket();
+        UUID requestId = UUID.randomUUID();
+        Map<String, Object> reply = new HashMap<>();
+        reply.put("confirmationID", "abc");
+        socket.send(reply, requestId, 2, RequestType.RESPONSE, CLIENT, CLIENT_PORT);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("facilityName", "Gym");
+        request.put("timeSlot", "Mon,8,0 - Mon,9,0");
+        socket.deliver(request, requestId, 2);
+        UUID nextId = UUID.randomUUID();
+        socket.deliver(request, nextId, 2);
+
+        // The duplicate is answered from history and never reaches the caller
+        assertEquals(nextId, socket.receive().getResult().get("request_id"));
+        assertEquals(2, socket.sent.size());
+    }
+
+    @Test
+    public void testIdempotentReplyIsNotKept() throws Exception {
+        ScriptedSocket socket = new ScriptedSocket();
+        UUID requestId = UUID.randomUUID();
+        Map<String, Object> reply = new HashMap<>();
+        reply.put("availabilities", "");
+        socket.send(reply, requestId, 1, RequestType.RESPONSE, CLIENT, CLIENT_PORT);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("facilityName", "Gym");
+        request.put("days", "Mon");
+        socket.deliver(request, requestId, 1);
+
+        // The duplicate is executed again, so nothing is resent here
+        assertEquals(requestId, socket.receive().getResult().get("request_id"));
+        assertEquals(1, socket.sent.size());
+    }
+
+    @Test
+    public void testNotificationRepliesAreNotAcknowledged() throws Exception {
+        ScriptedSocket socket = new ScriptedSocket();
+        Map<String, Object> reply = new HashMap<>();
+        reply.put("success", true);
+        for (int serviceId : new int[] { 5, 10 }) {
+            UUID requestId = UUID.randomUUID();
+            socket.deliver(reply, requestId, serviceId, RequestType.RESPONSE);
+
+            // The server keeps nothing for a subscriber's reply, so no ACK is sent back
+            assertEquals(requestId, socket.receive().getResult().get("request_id"));
+            assertTrue(socket.isIdempotent(serviceId));
+        }
+        assertTrue(socket.sent.isEmpty());
+    }
+
+    /**
+     * Socket that receives scripted packets and records what it sends
+     */
+    private static class ScriptedSocket extends AtMostOnceSocket {
+        final List<byte[]> sent = new ArrayList<>();
+        final Queue<byte[]> incoming = new ArrayDeque<>();
+
+        ScriptedSocket() {
+            super(0);
+        }
+
+        void deliver(Map<String, Object> message, UUID requestId, int serviceId) throws Exception {
+            deliver(message, requestId, serviceId, RequestType.REQUEST);
+        }
+
+        void deliver(Map<String, Object> message, UUID requestId, int serviceId, RequestType requestType)
+                throws Exception {
+            incoming.add(parser.marshall(createMessage(message, serviceId, requestId, requestType)));
+        }
+
+        @Override
+        protected void sendDatagram(byte[] data, InetAddress address, int port) throws IOException {
+            sent.add(data);
+        }
+
+        @Override
+        protected DatagramPacket receiveDatagram() throws IOException {
+            byte[] data = incoming.remove();
+            return new DatagramPacket(data, data.length, CLIENT, CLIENT_PORT);
+        }
+    }
+}
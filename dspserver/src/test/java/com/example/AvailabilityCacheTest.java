@@ -0,0 +1,98 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class AvailabilityCacheTest {
+
+    @Test
+    public void testCachedUntilScheduleChanges() {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        AvailabilityCache cache = bookingService.getAvailabilityCache();
+
+        Availability first = bookingService.getAvailability("Gym", "Tue, Mon");
+        Availability second = bookingService.getAvailability("Gym", "Mon,Tue,Mon");
+        assertSame(first, second, "Equivalent day lists should share one cache entry");
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertTrue(first.getPayload().startsWith("Mon,8,0 - Mon,9,0"));
+
+        bookingService.bookFacility("Gym", "Mon,8,0 - Mon,9,0");
+        Availability afterBooking = bookingService.getAvailability("Gym", "Mon,Tue");
+        assertNotSame(first, afterBooking);
+        assertEquals(1, cache.getInvalidations());
+        assertTrue(afterBooking.getVersion() > first.getVersion());
+        assertFalse(afterBooking.getSlots().contains("Mon,8,0 - Mon,9,0"));
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+
+        Availability result = bookingService.getAvailability("Gym", "Mon,Funday");
+        assertTrue(result.isError());
+        assertEquals("Error: Invalid day format. Use three-letter abbreviations (Mon, Tue, etc.)",
+                result.getPayload());
+        assertEquals(0, bookingService.getAvailabilityCache().getMisses());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneComputation() throws Exception {
+        Facility facility = new Facility("Gym");
+        AvailabilityCache cache = new AvailabilityCache();
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Availability>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(facility, 1, snapshot -> {
+                computations.incrementAndGet();
+                computing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Availability(List.of("Mon,8,0 - Mon,9,0"), snapshot.getVersion());
+            })));
+            assertTrue(computing.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get(facility, 1, snapshot -> {
+                    computations.incrementAndGet();
+                    return new Availability(List.of(), snapshot.getVersion());
+                })));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getJoined() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Availability first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Availability> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, computations.get());
+        assertEquals(1, cache.getFlights());
+        assertEquals(3, cache.getJoined());
+        assertEquals(3, cache.getMaxJoined());
+        assertEquals(1, cache.getMisses());
+    }
+}
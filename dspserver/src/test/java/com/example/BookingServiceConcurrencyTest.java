@@ -0,0 +1,245 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+public class BookingServiceConcurrencyTest {
+    private static final String[] FACILITIES = { "Gym", "Pool" };
+    private static final String[] DAYS = { "Mon", "Tue" };
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2000;
+
+    @Test
+    public void testConcurrentBookEditExtendCancel() throws Exception {
+        BookingService bookingService = new BookingService();
+        for (String name : FACILITIES) {
+            bookingService.addFacility(new Facility(name));
+        }
+
+        List<String> booked = new CopyOnWriteArrayList<>();
+        Set<String> cancelled = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int operation = random.nextInt(10);
+                    if (operation < 4 || booked.isEmpty()) {
+                        String facilityName = FACILITIES[random.nextInt(FACILITIES.length)];
+                        String result = bookingService.bookFacility(facilityName, randomSlot(random));
+                        if (!result.startsWith("Error:")) {
+                            booked.add(result);
+                        }
+                        continue;
+                    }
+
+                    String confirmationId = booked.get(random.nextInt(booked.size()));
+                    try {
+                        if (operation < 6) {
+                            bookingService.editBooking(confirmationId, (random.nextInt(9) - 4) * 15);
+                        } else if (operation < 8) {
+                            bookingService.extendBooking(confirmationId, 15 * (1 + random.nextInt(2)));
+                        } else if (operation < 9) {
+                            cancelled.add(confirmationId);
+                            bookingService.cancelBooking(confirmationId);
+                        } else {
+                            String facilityName = FACILITIES[random.nextInt(FACILITIES.length)];
+                            List<String> slots = bookingService.listAvailability(facilityName, "Mon,Tue");
+                            assertFalse(slots.isEmpty());
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        // Conflicts and already-cancelled bookings are expected under contention
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // No facility may hold two overlapping bookings
+        for (Facility facility : bookingService.getAllFacilities()) {
+            List<Booking> bookings = facility.getBookings();
+            for (int i = 0; i < bookings.size(); i++) {
+                for (int j = i + 1; j < bookings.size(); j++) {
+                    assertFalse(overlaps(bookings.get(i), bookings.get(j)),
+                            "Overlapping bookings " + bookings.get(i) + " and " + bookings.get(j));
+                }
+            }
+        }
+
+        // Every booking that was not cancelled is still held by its facility and indexed,
+        // and no failed edit or extend has dropped or duplicated a booking
+        List<Booking> allBookings = bookingService.getAllBookings();
+        long expected = booked.stream().filter(id -> !cancelled.contains(id)).count();
+        assertEquals(expected, allBookings.size());
+        for (String confirmationId : booked) {
+            Facility facility = bookingService.findFacilityByConfirmationId(confirmationId);
+            if (cancelled.contains(confirmationId)) {
+                assertNull(facility, "Cancelled booking still indexed: " + confirmationId);
+            } else {
+                assertNotNull(facility, "Booking lost: " + confirmationId);
+                assertTrue(facility.getBookings().stream()
+                        .anyMatch(b -> b.getConfirmationID().equals(confirmationId)));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentBundlesInOppositeOrderNeitherDeadlockNorSplit() throws Exception {
+        BookingService bookingService = new BookingService();
+        for (String name : FACILITIES) {
+            bookingService.addFacility(new Facility(name));
+        }
+        List<String> forward = List.of(FACILITIES[0], FACILITIES[1]);
+        List<String> backward = List.of(FACILITIES[1], FACILITIES[0]);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<String> bundle = t % 2 == 0 ? forward : backward;
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    Result<List<String>> result = bookingService.bookBundle(bundle, randomSlot(random));
+                    if (result.isOk() && random.nextBoolean()) {
+                        for (String confirmationId : result.getValue()) {
+                            bookingService.cancelBooking(confirmationId);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Every bundle was booked at both facilities or at neither
+        List<String> gymSlots = new ArrayList<>();
+        for (Booking booking : bookingService.getFacility(FACILITIES[0]).getBookings()) {
+            gymSlots.add(booking.getTimeSlot());
+        }
+        List<String> poolSlots = new ArrayList<>();
+        for (Booking booking : bookingService.getFacility(FACILITIES[1]).getBookings()) {
+            poolSlots.add(booking.getTimeSlot());
+        }
+        assertEquals(gymSlots, poolSlots);
+    }
+
+    /**
+     * Measures bundle bookings per second when bundles share no facility, when
+     * they pick random pairs out of eight facilities, and when every bundle
+     * includes the same facility. Each booked bundle is cancelled again so the
+     * schedules do not fill up.
+     * Run with: mvn test -Dtest=BookingServiceConcurrencyTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkBundleContention() throws Exception {
+        int facilityCount = 8;
+        int bundlesPerThread = 50_000;
+        // The first round only warms up the JIT
+        for (String mode : new String[] { "warm-up", "disjoint", "random pairs", "shared hot facility" }) {
+            BookingService bookingService = new BookingService();
+            for (int f = 0; f < facilityCount; f++) {
+                bookingService.addFacility(new Facility("Facility" + f));
+            }
+
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int booked = 0;
+                    for (int i = 0; i < bundlesPerThread; i++) {
+                        int first;
+                        int second;
+                        if (mode.equals("disjoint")) {
+                            first = (2 * thread) % facilityCount;
+                            second = first + 1;
+                        } else if (!mode.equals("shared hot facility")) {
+                            first = random.nextInt(facilityCount);
+                            second = (first + 1 + random.nextInt(facilityCount - 1)) % facilityCount;
+                        } else {
+                            first = 0;
+                            second = 1 + random.nextInt(facilityCount - 1);
+                        }
+                        Result<List<String>> result = bookingService.bookBundle(
+                                List.of("Facility" + first, "Facility" + second), randomSlot(random));
+                        if (result.isOk()) {
+                            booked++;
+                            for (String confirmationId : result.getValue()) {
+                                bookingService.cancelBooking(confirmationId);
+                            }
+                        }
+                    }
+                    return booked;
+                }));
+            }
+
+            long startNanos = System.nanoTime();
+            start.countDown();
+            int booked = 0;
+            for (Future<Integer> future : futures) {
+                booked += future.get(120, TimeUnit.SECONDS);
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            executor.shutdown();
+
+            if (mode.equals("warm-up")) {
+                continue;
+            }
+            System.out.printf("%-20s | %d threads | %,d bundles/s | %,d booked%n", mode, THREADS,
+                    (long) (THREADS * bundlesPerThread / (elapsedNanos / 1e9)), booked);
+        }
+    }
+
+    private static String randomSlot(ThreadLocalRandom random) {
+        String day = DAYS[random.nextInt(DAYS.length)];
+        int start = 8 * 60 + 15 * random.nextInt(44);
+        int end = Math.min(start + 15 * (1 + random.nextInt(4)), 20 * 60);
+        return String.format("%s,%d,%d - %s,%d,%d", day, start / 60, start % 60, day, end / 60, end % 60);
+    }
+
+    private static boolean overlaps(Booking a, Booking b) {
+        return minuteOfWeek(a) < minuteOfWeek(b) + b.getTimeSlotDecoder().getDurationMinutes()
+                && minuteOfWeek(b) < minuteOfWeek(a) + a.getTimeSlotDecoder().getDurationMinutes();
+    }
+
+    private static int minuteOfWeek(Booking booking) {
+        TimeSlotDecoder slot = booking.getTimeSlotDecoder();
+        return TimeSlotDecoder.DAY_TO_INDEX.get(slot.getStartDay()) * 24 * 60
+                + slot.getStartHour() * 60 + slot.getStartMin();
+    }
+}
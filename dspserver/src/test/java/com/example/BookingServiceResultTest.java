@@ -0,0 +1,214 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class BookingServiceResultTest {
+
+    @Test
+    public void testConflictsAreReportedWithCodes() {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+
+        Result<String> booked = bookingService.book("Gym", "Mon,9,0 - Mon,10,0");
+        assertTrue(booked.isOk());
+        assertEquals(ErrorCode.SLOT_UNAVAILABLE, bookingService.book("Gym", "Mon,9,30 - Mon,10,30").getErrorCode());
+        assertEquals(ErrorCode.FACILITY_NOT_FOUND, bookingService.book("Sauna", "Mon,9,0 - Mon,10,0").getErrorCode());
+        assertEquals(ErrorCode.INVALID_TIME_SLOT, bookingService.book("Gym", "Mon,9 - Mon,10").getErrorCode());
+        assertEquals("Error: Facility is not available during the requested time slot",
+                bookingService.bookFacility("Gym", "Mon,9,0 - Mon,10,0"));
+
+        String other = bookingService.book("Gym", "Mon,11,0 - Mon,12,0").getValue();
+        Result<String> moved = bookingService.editBooking(other, -90);
+        assertEquals(ErrorCode.SLOT_UNAVAILABLE, moved.getErrorCode());
+        assertEquals("New time slot is not available", moved.getMessage());
+
+        Result<String> extended = bookingService.extendBooking(other, 9 * 60);
+        assertEquals(ErrorCode.OUTSIDE_OPENING_HOURS, extended.getErrorCode());
+        assertEquals(ErrorCode.BOOKING_NOT_FOUND, bookingService.editBooking("missing", 30).getErrorCode());
+
+        // Rejected changes leave the booking where it was
+        assertEquals("Mon,11,0 - Mon,12,0", bookingService.editBooking(other, 0).getValue());
+        assertEquals("Mon,12,0 - Mon,13,0", bookingService.editBooking(other, 60).getValue());
+    }
+
+    @Test
+    public void testRejectedMoveLeavesScheduleUntouched() {
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym");
+        bookingService.addFacility(gym);
+
+        String first = bookingService.book("Gym", "Mon,9,0 - Mon,10,0").getValue();
+        bookingService.book("Gym", "Mon,11,0 - Mon,12,0");
+        long version = gym.getVersion();
+
+        // Overlapping only its own old interval is fine; overlapping a neighbour is not
+        assertEquals("Mon,9,30 - Mon,10,30", bookingService.editBooking(first, 30).getValue());
+        assertEquals(version + 1, gym.getVersion());
+        assertFalse(bookingService.extendBooking(first, 60).isOk());
+        assertEquals(version + 1, gym.getVersion());
+        assertEquals("Mon,9,30 - Mon,10,30", gym.getBookings().get(0).getTimeSlot());
+
+        // Moving past the other booking keeps the day ordered
+        assertEquals("Mon,12,30 - Mon,13,30", bookingService.editBooking(first, 180).getValue());
+        assertEquals("Mon,11,0 - Mon,12,0", gym.getBookings().get(0).getTimeSlot());
+        assertTrue(gym.checkAvailability("Mon,9,0 - Mon,11,0"));
+        assertFalse(gym.checkAvailability("Mon,13,0 - Mon,14,0"));
+
+        // Moving to another day
+        assertEquals("Tue,12,30 - Tue,13,30", bookingService.editBooking(first, 24 * 60).getValue());
+        assertTrue(gym.checkAvailability("Mon,12,0 - Mon,20,0"));
+        assertEquals("Tue,12,30 - Tue,14,0", bookingService.extendBooking(first, 30).getValue());
+        assertEquals(2, gym.getBookings().size());
+    }
+
+    @Test
+    public void testBatchBookingIsAllOrNothing() {
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym");
+        Facility pool = new Facility("Pool");
+        bookingService.addFacility(gym);
+        bookingService.addFacility(pool);
+        bookingService.book("Pool", "Wed,9,0 - Wed,10,0");
+
+        // The last slot is taken, so none of the others are booked either
+        Result<List<String>> rejected = bookingService.bookAll(List.of(
+                new BookingService.SlotRequest("Gym", "Mon,9,0 - Mon,10,0"),
+                new BookingService.SlotRequest("Gym", "Tue,9,0 - Tue,10,0"),
+                new BookingService.SlotRequest("Pool", "Wed,9,30 - Wed,10,30")));
+        assertEquals(ErrorCode.SLOT_UNAVAILABLE, rejected.getErrorCode());
+        assertTrue(gym.getBookings().isEmpty());
+        assertEquals(1, pool.getBookings().size());
+
+        // Slots of one batch must not overlap each other
+        Result<List<String>> overlapping = bookingService.bookAll(List.of(
+                new BookingService.SlotRequest("Gym", "Mon,9,0 - Mon,10,0"),
+                new BookingService.SlotRequest("Gym", "Mon,9,30 - Mon,10,30")));
+        assertEquals(ErrorCode.SLOT_UNAVAILABLE, overlapping.getErrorCode());
+        assertTrue(gym.getBookings().isEmpty());
+
+        assertEquals(ErrorCode.FACILITY_NOT_FOUND, bookingService.bookAll(List.of(
+                new BookingService.SlotRequest("Sauna", "Mon,9,0 - Mon,10,0"))).getErrorCode());
+        assertEquals(ErrorCode.INVALID_ARGUMENT, bookingService.bookAll(List.of()).getErrorCode());
+
+        Result<List<String>> booked = bookingService.bookAll(List.of(
+                new BookingService.SlotRequest("Gym", "Mon,9,0 - Mon,10,0"),
+                new BookingService.SlotRequest("Pool", "Wed,10,0 - Wed,11,0"),
+                new BookingService.SlotRequest("Gym", "Tue,9,0 - Tue,10,0")));
+        assertTrue(booked.isOk());
+        assertEquals(3, booked.getValue().size());
+        assertEquals(2, gym.getBookings().size());
+        assertEquals(2, pool.getBookings().size());
+
+        // Each confirmation ID can be used like one from a single booking
+        assertEquals("Tue,10,0 - Tue,11,0", bookingService.editBooking(booked.getValue().get(2), 60).getValue());
+        assertTrue(bookingService.cancelBooking(booked.getValue().get(1)));
+        assertEquals(1, pool.getBookings().size());
+
+        // A bundle books one slot at every facility it names
+        assertEquals(ErrorCode.INVALID_ARGUMENT,
+                bookingService.bookBundle(List.of("Gym", "Gym"), "Thu,9,0 - Thu,10,0").getErrorCode());
+        assertEquals(2, bookingService.bookBundle(List.of("Pool", "Gym"), "Thu,9,0 - Thu,10,0").getValue().size());
+        assertFalse(bookingService.bookBundle(List.of("Gym", "Pool"), "Thu,9,30 - Thu,10,30").isOk());
+    }
+
+    @Test
+    public void testConflictSuggestsNearestFreeSlots() {
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym");
+        bookingService.addFacility(gym);
+        bookingService.book("Gym", "Mon,8,0 - Mon,9,30");
+        bookingService.book("Gym", "Mon,10,0 - Mon,11,0");
+
+        // 9:30-10:00 is too short for an hour, so the nearest starts are 11:00 and then the next mornings
+        Result<String> conflict = bookingService.book("Gym", "Mon,9,0 - Mon,10,0");
+        assertEquals(ErrorCode.SLOT_UNAVAILABLE, conflict.getErrorCode());
+        assertEquals(List.of("Mon,11,0 - Mon,12,0", "Tue,8,0 - Tue,9,0", "Wed,8,0 - Wed,9,0"),
+                conflict.getAlternatives());
+
+        // The same suggestions come from the check made under the write lock
+        Result<String> locked = gym.tryAddBooking(new Booking("Gym", "Mon,9,0 - Mon,10,0"), 1);
+        assertEquals(List.of("Mon,11,0 - Mon,12,0"), locked.getAlternatives());
+        assertTrue(gym.tryAddBooking(new Booking("Gym", "Mon,11,0 - Mon,12,0"), 1).isOk());
+        assertTrue(bookingService.book("Gym", "Tue,9,0 - Tue,10,0").getAlternatives().isEmpty());
+    }
+
+    @Test
+    public void testIndexFollowsEveryScheduleChange() {
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym");
+        Booking existing = new Booking("Gym", "Mon,8,0 - Mon,9,0");
+        gym.addBooking(existing);
+        bookingService.addFacility(gym);
+
+        // Bookings held before registration are indexed too
+        assertSame(gym, bookingService.findFacilityByConfirmationId(existing.getConfirmationID()));
+
+        // Changes made on the facility itself reach the index under the same lock
+        Booking direct = new Booking("Gym", "Mon,10,0 - Mon,11,0");
+        assertTrue(gym.tryAddBooking(direct));
+        assertSame(gym, bookingService.findFacilityByConfirmationId(direct.getConfirmationID()));
+        assertTrue(gym.cancelBooking(existing.getConfirmationID()));
+        assertNull(bookingService.findFacilityByConfirmationId(existing.getConfirmationID()));
+
+        String booked = bookingService.book("Gym", "Tue,9,0 - Tue,10,0").getValue();
+        assertTrue(bookingService.cancelBooking(booked));
+        assertNull(bookingService.findFacilityByConfirmationId(booked));
+        assertEquals(ErrorCode.BOOKING_NOT_FOUND, bookingService.editBooking(booked, 30).getErrorCode());
+    }
+
+    @Test
+    public void testRescheduleLeavesOlderSnapshotsUnchanged() {
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym");
+        bookingService.addFacility(gym);
+        String confirmationId = bookingService.book("Gym", "Mon,9,0 - Mon,10,0").getValue();
+        Schedule before = gym.getSchedule();
+        Booking original = before.getBookings().get(0);
+
+        assertEquals("Mon,10,0 - Mon,11,0", bookingService.editBooking(confirmationId, 60).getValue());
+        assertEquals("Mon,10,0 - Mon,11,30", bookingService.extendBooking(confirmationId, 30).getValue());
+
+        // The old snapshot still shows the booking where it was
+        assertEquals("Mon,9,0 - Mon,10,0", before.getBookings().get(0).getTimeSlot());
+        assertSame(original, before.getBookings().get(0));
+        Booking current = gym.getBookings().get(0);
+        assertNotSame(original, current);
+        assertEquals(confirmationId, current.getConfirmationID());
+        assertEquals("Mon,10,0 - Mon,11,30", current.getTimeSlot());
+
+        // A stale booking object still refers to the booking by its confirmation ID
+        assertEquals("Mon,11,0 - Mon,12,30", gym.tryMove(original, 60).getValue());
+        assertTrue(gym.cancelBooking(original));
+        assertTrue(gym.getBookings().isEmpty());
+        assertNull(bookingService.findFacilityByConfirmationId(confirmationId));
+    }
+
+    @Test
+    public void testInvalidTimeSlotsAreNotReportedAsConflicts() {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+
+        assertInvalid(bookingService, "Mon,6,0 - Mon,7,0", ErrorCode.OUTSIDE_OPENING_HOURS);
+        assertInvalid(bookingService, "Mon,7,30 - Mon,8,30", ErrorCode.OUTSIDE_OPENING_HOURS);
+        assertInvalid(bookingService, "Mon,19,30 - Mon,20,30", ErrorCode.OUTSIDE_OPENING_HOURS);
+        assertInvalid(bookingService, "Mon,19,0 - Tue,9,0", ErrorCode.SPANS_MULTIPLE_DAYS);
+        assertInvalid(bookingService, "Mon,10,0 - Mon,9,0", ErrorCode.INVALID_TIME_SLOT);
+        assertInvalid(bookingService, "Mon,9,0 - Mon,9,0", ErrorCode.INVALID_TIME_SLOT);
+
+        // Batches validate every slot the same way
+        assertEquals(ErrorCode.OUTSIDE_OPENING_HOURS, bookingService.bookAll(List.of(
+                new BookingService.SlotRequest("Gym", "Tue,9,0 - Tue,10,0"),
+                new BookingService.SlotRequest("Gym", "Tue,6,0 - Tue,7,0"))).getErrorCode());
+        assertTrue(bookingService.getFacility("Gym").getBookings().isEmpty());
+    }
+
+    private static void assertInvalid(BookingService bookingService, String timeSlot, ErrorCode expected) {
+        Result<String> result = bookingService.book("Gym", timeSlot);
+        assertEquals(expected, result.getErrorCode(), timeSlot);
+        assertTrue(result.getAlternatives().isEmpty(), timeSlot);
+    }
+}
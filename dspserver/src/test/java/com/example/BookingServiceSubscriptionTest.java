@@ -0,0 +1,85 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookingServiceSubscriptionTest {
+    private BookingService bookingService;
+    private InetAddress localhost;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        bookingService.addFacility(new Facility("Pool"));
+        localhost = InetAddress.getLoopbackAddress();
+    }
+
+    @Test
+    public void testSubscribersAreIndexedByFacility() {
+        assertTrue(bookingService.registerClient("Gym", 10, 5000, localhost));
+        assertTrue(bookingService.registerClient("Gym", 10, 5001, localhost));
+        assertTrue(bookingService.registerClient("Pool", 10, 5002, localhost));
+        assertFalse(bookingService.registerClient("Sauna", 10, 5003, localhost));
+
+        assertEquals(2, bookingService.getSubscribers("Gym").size());
+        assertEquals(1, bookingService.getSubscribers("Pool").size());
+        assertTrue(bookingService.getSubscribers("Spa").isEmpty());
+        assertEquals(3, bookingService.getAllClients().size());
+    }
+
+    @Test
+    public void testExpiredClientsAreRemoved() throws Exception {
+        bookingService.registerClient("Pool", 10, 5001, localhost);
+        bookingService.registerClient("Gym", 0, 5000, localhost);
+        Thread.sleep(5);
+
+        assertEquals(1, bookingService.removeExpiredClients());
+        assertTrue(bookingService.getSubscribers("Gym").isEmpty());
+        assertEquals(1, bookingService.getSubscribers("Pool").size());
+    }
+
+    @Test
+    public void testReRegistrationOutlivesEarlierExpiry() throws Exception {
+        bookingService.registerClient("Gym", 0, 5000, localhost);
+        bookingService.registerClient("Gym", 10, 5000, localhost);
+        Thread.sleep(5);
+
+        assertEquals(0, bookingService.removeExpiredClients());
+        assertEquals(1, bookingService.getSubscribers("Gym").size());
+        assertEquals(10, bookingService.getSubscribers("Gym").get(0).getExpirationTime());
+    }
+
+    @Test
+    public void testRenewExtendsRegistrationInPlace() throws Exception {
+        bookingService.registerClient("Gym", 1, 5000, localhost);
+        MonitoringClient registration = bookingService.getSubscribers("Gym").get(0);
+        long firstExpiry = registration.getExpiryTime();
+
+        assertTrue(bookingService.renewClient("Gym", 10, 5000, localhost));
+        assertFalse(bookingService.renewClient("Pool", 10, 5000, localhost));
+
+        assertSame(registration, bookingService.getSubscribers("Gym").get(0));
+        assertEquals(10, registration.getExpirationTime());
+        assertTrue(registration.getExpiryTime() >= firstExpiry + 9 * 60_000L);
+        assertEquals(1, bookingService.getAllClients().size());
+    }
+
+    @Test
+    public void testDeregisterMatchesEqualAddresses() throws Exception {
+        bookingService.registerClient("Gym", 10, 5000, localhost);
+        bookingService.registerClient("Pool", 10, 5000, localhost);
+        // A separately resolved address is equal but not the same instance
+        InetAddress sameHost = InetAddress.getByAddress(localhost.getAddress());
+
+        assertTrue(bookingService.deregisterClient("Gym", sameHost, 5000));
+        assertFalse(bookingService.deregisterClient("Gym", sameHost, 5000));
+        assertEquals(1, bookingService.getAllClients().size());
+        assertTrue(bookingService.deregisterClient(sameHost, 5000));
+        assertTrue(bookingService.getAllClients().isEmpty());
+    }
+}
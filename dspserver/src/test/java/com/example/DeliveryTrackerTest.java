@@ -0,0 +1,72 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class DeliveryTrackerTest {
+    private static final InetSocketAddress SUBSCRIBER = new InetSocketAddress(InetAddress.getLoopbackAddress(), 6000);
+
+    @Test
+    public void testRetransmitsWithBackoffUntilAcknowledged() {
+        DeliveryTracker tracker = new DeliveryTracker(4, 100, 5, 3, null);
+        RecordingSocket socket = new RecordingSocket();
+        UUID requestId = UUID.randomUUID();
+        tracker.track(SUBSCRIBER, requestId, "Gym", 5, Map.of("availabilities", "Mon,8,0 - Mon,9,0"), 0);
+
+        assertEquals(0, tracker.retransmitDue(socket, 50));
+        assertEquals(1, tracker.retransmitDue(socket, 100));
+        // The second timeout is twice the first
+        assertEquals(0, tracker.retransmitDue(socket, 250));
+        assertEquals(1, tracker.retransmitDue(socket, 300));
+        assertEquals(List.of(requestId, requestId), socket.sentRequestIds());
+
+        assertTrue(tracker.acknowledge(SUBSCRIBER, requestId));
+        assertFalse(tracker.acknowledge(SUBSCRIBER, requestId));
+        assertEquals(0, tracker.retransmitDue(socket, 10_000));
+        assertEquals(List.of(requestId), socket.discarded);
+        assertEquals(0, tracker.getInFlight(SUBSCRIBER));
+    }
+
+    @Test
+    public void testFullWindowThrottlesAndDeadSubscriberIsEvicted() {
+        List<InetSocketAddress> evicted = new ArrayList<>();
+        DeliveryTracker tracker = new DeliveryTracker(2, 100, 1, 2, evicted::add);
+        RecordingSocket socket = new RecordingSocket();
+        tracker.track(SUBSCRIBER, UUID.randomUUID(), "Gym", 10, Map.of("seq", 1), 0);
+        tracker.track(SUBSCRIBER, UUID.randomUUID(), "Gym", 10, Map.of("seq", 2), 0);
+
+        assertFalse(tracker.hasCapacity(SUBSCRIBER));
+        assertEquals(1, tracker.getThrottled());
+
+        // Both deltas run out of attempts, which reaches the eviction threshold
+        assertEquals(0, tracker.retransmitDue(socket, 100));
+        assertEquals(2, tracker.getExpired());
+        assertEquals(List.of(SUBSCRIBER), evicted);
+        assertEquals(2, socket.discarded.size());
+        assertTrue(tracker.hasCapacity(SUBSCRIBER));
+    }
+
+    @Test
+    public void testNewerSnapshotSupersedesUnansweredOne() {
+        DeliveryTracker tracker = new DeliveryTracker(4, 100, 5, 3, null);
+        RecordingSocket socket = new RecordingSocket();
+        UUID older = UUID.randomUUID();
+        UUID newer = UUID.randomUUID();
+        tracker.track(SUBSCRIBER, older, "Gym", 5, Map.of("availabilities", "a"), 0);
+        tracker.track(SUBSCRIBER, UUID.randomUUID(), "Pool", 5, Map.of("availabilities", "b"), 0);
+        tracker.track(SUBSCRIBER, newer, "Gym", 5, Map.of("availabilities", "c"), 0);
+
+        assertEquals(2, tracker.getInFlight(SUBSCRIBER));
+        assertEquals(1, tracker.getSuperseded());
+        assertFalse(tracker.acknowledge(SUBSCRIBER, older));
+        assertTrue(tracker.acknowledge(SUBSCRIBER, newer));
+    }
+}
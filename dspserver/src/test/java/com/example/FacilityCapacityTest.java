@@ -0,0 +1,90 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FacilityCapacityTest {
+
+    @Test
+    public void testOccupancyTreeMatchesCountingEveryMinute() {
+        Random random = new Random(42);
+        int[] counts = new int[OccupancyTree.MINUTES_PER_WEEK];
+        OccupancyTree tree = OccupancyTree.EMPTY;
+        OccupancyTree empty = tree;
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(OccupancyTree.MINUTES_PER_WEEK);
+            int to = Math.min(OccupancyTree.MINUTES_PER_WEEK, from + 1 + random.nextInt(300));
+            tree = tree.add(from, to, 1);
+            for (int minute = from; minute < to; minute++) {
+                counts[minute]++;
+            }
+
+            int queryFrom = random.nextInt(OccupancyTree.MINUTES_PER_WEEK);
+            int queryTo = Math.min(OccupancyTree.MINUTES_PER_WEEK, queryFrom + 1 + random.nextInt(2000));
+            int expected = 0;
+            for (int minute = queryFrom; minute < queryTo; minute++) {
+                expected = Math.max(expected, counts[minute]);
+            }
+            assertEquals(expected, tree.max(queryFrom, queryTo));
+        }
+
+        // Earlier trees are not affected by later updates
+        assertEquals(0, empty.max(0, OccupancyTree.MINUTES_PER_WEEK));
+    }
+
+    @Test
+    public void testBookingsOverlapUpToCapacity() {
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym", 3);
+        bookingService.addFacility(gym);
+
+        assertTrue(bookingService.book("Gym", "Mon,9,0 - Mon,10,0").isOk());
+        String second = bookingService.book("Gym", "Mon,9,30 - Mon,10,30").getValue();
+        assertTrue(bookingService.book("Gym", "Mon,9,45 - Mon,11,0").isOk());
+
+        // 9:45-10:00 holds three bookings, so nothing more fits there
+        assertFalse(gym.checkAvailability("Mon,9,0 - Mon,10,0"));
+        assertTrue(gym.checkAvailability("Mon,10,30 - Mon,11,30"));
+        assertEquals(ErrorCode.SLOT_UNAVAILABLE, bookingService.book("Gym", "Mon,9,50 - Mon,9,55").getErrorCode());
+
+        // Remaining capacity of the default hourly slots
+        Map<String, Integer> capacities = gym.getAvailableSlotCapacities("Mon", gym.getSchedule());
+        assertNull(capacities.get("Mon,9,0 - Mon,10,0"));
+        assertEquals(1, capacities.get("Mon,10,0 - Mon,11,0"));
+        assertEquals(3, capacities.get("Mon,11,0 - Mon,12,0"));
+        assertEquals("Mon,10,0 - Mon,11,0;1", bookingService.listAvailability("Gym", "Mon").get(1));
+
+        // A booking may be moved to where it overlaps only itself and others within capacity
+        assertEquals("Mon,10,0 - Mon,11,0", bookingService.editBooking(second, 30).getValue());
+        assertTrue(gym.checkAvailability("Mon,9,0 - Mon,9,45"));
+        assertTrue(bookingService.cancelBooking(second));
+        assertEquals(2, gym.getAvailableSlotCapacities("Mon", gym.getSchedule()).get("Mon,10,0 - Mon,11,0"));
+    }
+
+    @Test
+    public void testFreeIntervalsLeaveOutFullMinutes() {
+        Facility pool = new Facility("Pool", 2);
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(pool);
+        bookingService.book("Pool", "Tue,9,0 - Tue,11,0");
+        bookingService.book("Pool", "Tue,10,0 - Tue,12,0");
+        bookingService.book("Pool", "Tue,14,0 - Tue,15,0");
+
+        // Only 10:00-11:00 holds two bookings
+        assertArrayEquals(new int[] { 8 * 60, 10 * 60, 11 * 60, 20 * 60 },
+                pool.getSchedule().freeIntervals(1, 8 * 60, 20 * 60, 2));
+        assertArrayEquals(new int[] { 8 * 60, 9 * 60, 12 * 60, 14 * 60, 15 * 60, 20 * 60 },
+                pool.getSchedule().freeIntervals(1, 8 * 60, 20 * 60, 1));
+
+        List<SlotFinder.Match> found = bookingService.findSlots(90, "Tue", "Tue", List.of(), 2).getValue();
+        assertEquals("Pool|Tue,8,0 - Tue,9,30", found.get(0).toString());
+        assertEquals("Pool|Tue,11,0 - Tue,12,30", found.get(1).toString());
+        assertThrows(IllegalArgumentException.class, () -> new Facility("Sauna", 0));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+public class FanoutTest {
+
+    @Test
+    public void testFanoutPatchesOnlyRequestId() throws Exception {
+        RecordingSocket socket = new RecordingSocket();
+        Map<String, Object> message = new HashMap<>();
+        message.put("availabilities", "Mon,8,0 - Mon,9,0:Mon,9,0 - Mon,10,0");
+
+        UUID[] requestIds = socket.fanout(message, 5, RequestType.REQUEST, destinations(3));
+        assertEquals(3, socket.packets.size());
+
+        for (int i = 0; i < requestIds.length; i++) {
+            Parser.Message received = socket.parser.unmarshall(socket.packetData().get(i));
+            assertEquals(requestIds[i], received.getRequestId());
+            assertEquals(5, received.getServiceId());
+            assertEquals(RequestType.REQUEST, received.getRequestType());
+            assertEquals(message, received.getData());
+        }
+        assertNotEquals(requestIds[0], requestIds[1]);
+
+        // Same bytes as marshalling the message separately for each destination
+        byte[] expected = socket.parser.marshall(socket.createMessage(message, 5, requestIds[2], RequestType.REQUEST));
+        assertArrayEquals(expected, socket.packetData().get(2));
+    }
+
+    /**
+     * Compares sending one NotifyCallback per subscriber through send() with
+     * fanout(). Sends are recorded instead of hitting the network, and cleared
+     * after every round, so this measures the per-subscriber cost of building packets.
+     * Run with: mvn test -Dtest=FanoutTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkFanout() throws Exception {
+        RecordingSocket socket = new RecordingSocket();
+        Map<String, Object> message = new HashMap<>();
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        message.put("availabilities",
+                bookingService.getAvailability("Gym", "Mon,Tue,Wed,Thu,Fri,Sat,Sun").getPayload());
+
+        for (int subscribers : new int[] { 1_000, 10_000 }) {
+            List<InetSocketAddress> destinations = destinations(subscribers);
+            for (int warmup = 0; warmup < 5; warmup++) {
+                sendEach(socket, message, destinations);
+                socket.fanout(message, 5, RequestType.REQUEST, destinations);
+                socket.clear();
+            }
+
+            int rounds = 10;
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                sendEach(socket, message, destinations);
+                socket.clear();
+            }
+            long sendEachNanos = (System.nanoTime() - start) / rounds;
+
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                socket.fanout(message, 5, RequestType.REQUEST, destinations);
+                socket.clear();
+            }
+            long fanoutNanos = (System.nanoTime() - start) / rounds;
+
+            System.out.printf("%,d subscribers | send() per subscriber: %,d us | fanout(): %,d us | %.1fx%n",
+                    subscribers, sendEachNanos / 1000, fanoutNanos / 1000, (double) sendEachNanos / fanoutNanos);
+        }
+    }
+
+    private static void sendEach(CustomSocket socket, Map<String, Object> message,
+            List<InetSocketAddress> destinations) throws IOException {
+        for (InetSocketAddress destination : destinations) {
+            socket.send(message, UUID.randomUUID(), 5, RequestType.REQUEST,
+                    destination.getAddress(), destination.getPort());
+        }
+    }
+
+    private static List<InetSocketAddress> destinations(int count) {
+        List<InetSocketAddress> destinations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            destinations.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), 20000 + i));
+        }
+        return destinations;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+
+import org.junit.jupiter.api.Test;
+
+public class MulticastChannelTest {
+
+    @Test
+    public void testGroupPerFacility() throws Exception {
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym");
+        Facility pool = new Facility("Pool");
+        bookingService.addFacility(gym);
+        bookingService.addFacility(pool);
+
+        Parser parser = new RecordingSocket().getParser();
+        try (MulticastChannel channel = new MulticastChannel(parser, InetAddress.getByName("239.255.40.0"), 12100,
+                null)) {
+            assertEquals(new InetSocketAddress("239.255.40.0", 12100), channel.groupOf(gym));
+            assertEquals(new InetSocketAddress("239.255.40.1", 12100), channel.groupOf(pool));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new MulticastChannel(parser, InetAddress.getLoopbackAddress(), 12100, null));
+    }
+
+    @Test
+    public void testDeltasArePublishedOnceToTheGroup() throws Exception {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        BookingService bookingService = new BookingService();
+        Facility gym = new Facility("Gym");
+        bookingService.addFacility(gym);
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        bookingService.registerClient("Gym", 10, 6000, localhost, false, true);
+        bookingService.registerClient("Gym", 10, 6001, localhost, false, true);
+
+        try (MulticastSocket receiver = new MulticastSocket(0);
+                RecordingSocket unicast = new RecordingSocket()) {
+            MulticastChannel channel = new MulticastChannel(unicast.getParser(),
+                    InetAddress.getByName("239.255.41.0"), receiver.getLocalPort(), loopback);
+            InetSocketAddress group = channel.groupOf(gym);
+            receiver.joinGroup(group, loopback);
+            receiver.setSoTimeout(2000);
+
+            try (channel;
+                    NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, unicast, 2, 4, 0)) {
+                dispatcher.setMulticastChannel(channel);
+                bookingService.bookFacility("Gym", "Thu,9,0 - Thu,10,0");
+                dispatcher.submit("Gym");
+
+                byte[] buffer = new byte[4096];
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                receiver.receive(packet);
+                byte[] data = new byte[packet.getLength()];
+                System.arraycopy(buffer, 0, data, 0, data.length);
+                Parser.Message message = unicast.getParser().unmarshall(data);
+                long deadline = System.currentTimeMillis() + 5000;
+                while (dispatcher.getCompleted() < 1 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(5);
+                }
+
+                assertEquals(NotificationDispatcher.NOTIFY_DELTA_SERVICE_ID, message.getServiceId());
+                assertEquals(0, message.getData().get("prevSeq"));
+                assertEquals(1, message.getData().get("seq"));
+                assertEquals("Thu,9,0 - Thu,10,0", message.getData().get("removed"));
+                // One packet for both subscribers, and none sent to them directly
+                assertEquals(1, dispatcher.getPublished());
+                assertEquals(2, dispatcher.getNotified());
+                assertTrue(unicast.sends.isEmpty());
+                assertTrue(unicast.packets.isEmpty());
+            }
+        }
+    }
+}
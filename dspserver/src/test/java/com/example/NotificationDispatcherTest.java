@@ -0,0 +1,165 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+public class NotificationDispatcherTest {
+    private static final int FAILING_PORT = 6001;
+
+    @Test
+    public void testFailingSubscriberDoesNotAffectOthers() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        bookingService.registerClient("Gym", 10, 6000, localhost);
+        bookingService.registerClient("Gym", 10, FAILING_PORT, localhost);
+        bookingService.registerClient("Gym", 10, 6002, localhost);
+
+        RecordingSocket socket = new RecordingSocket().failOn(FAILING_PORT);
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 2, 4)) {
+            bookingService.bookFacility("Gym", "Mon,8,0 - Mon,9,0");
+            assertTrue(dispatcher.submit("Gym"));
+            awaitCompleted(dispatcher, 1);
+
+            assertEquals(1, dispatcher.getCompleted());
+            assertEquals(2, dispatcher.getNotified());
+            assertEquals(1, dispatcher.getFailed());
+            assertEquals(List.of(6000, 6002), socket.packetPorts().stream().sorted().toList());
+        }
+    }
+
+    @Test
+    public void testDeltaSubscribersGetChangedSlotsOnly() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        bookingService.registerClient("Gym", 10, 6000, localhost, true);
+        bookingService.registerClient("Gym", 10, 6002, localhost, false);
+
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 2, 4)) {
+            String first = bookingService.bookFacility("Gym", "Tue,10,0 - Tue,11,30");
+            dispatcher.submit("Gym");
+            awaitCompleted(dispatcher, 1);
+            bookingService.cancelBooking(first);
+            dispatcher.submit("Gym");
+            awaitCompleted(dispatcher, 2);
+
+            assertEquals(2, dispatcher.getDeltas());
+            List<Map<String, Object>> deltas = socket.messagesTo(6000);
+            assertEquals(2, deltas.size());
+            assertEquals(0, deltas.get(0).get("prevSeq"));
+            assertEquals(1, deltas.get(0).get("seq"));
+            assertEquals("", deltas.get(0).get("added"));
+            assertEquals("Tue,10,0 - Tue,11,0:Tue,11,0 - Tue,12,0", deltas.get(0).get("removed"));
+            assertEquals(1, deltas.get(1).get("prevSeq"));
+            assertEquals(2, deltas.get(1).get("seq"));
+            assertEquals("Tue,10,0 - Tue,11,0:Tue,11,0 - Tue,12,0", deltas.get(1).get("added"));
+
+            // Snapshot subscribers still get the whole week
+            assertTrue(socket.messagesTo(6002).get(0).containsKey("availabilities"));
+        }
+    }
+
+    @Test
+    public void testDeltasCarryRemainingCapacity() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Pool", 2));
+        bookingService.registerClient("Pool", 10, 6000, InetAddress.getLoopbackAddress(), true);
+
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 2, 4)) {
+            String first = bookingService.bookFacility("Pool", "Mon,8,0 - Mon,9,0");
+            dispatcher.submit("Pool");
+            awaitCompleted(dispatcher, 1);
+            bookingService.bookFacility("Pool", "Mon,8,0 - Mon,9,0");
+            dispatcher.submit("Pool");
+            awaitCompleted(dispatcher, 2);
+            bookingService.cancelBooking(first);
+            dispatcher.submit("Pool");
+            awaitCompleted(dispatcher, 3);
+
+            List<Map<String, Object>> deltas = socket.messagesTo(6000);
+            assertEquals(3, deltas.size());
+            // A booking that leaves the slot free still reports its new capacity
+            assertEquals("Mon,8,0 - Mon,9,0;1", deltas.get(0).get("added"));
+            assertEquals("", deltas.get(0).get("removed"));
+            assertEquals("", deltas.get(1).get("added"));
+            assertEquals("Mon,8,0 - Mon,9,0", deltas.get(1).get("removed"));
+            assertEquals("Mon,8,0 - Mon,9,0;1", deltas.get(2).get("added"));
+            assertEquals("", deltas.get(2).get("removed"));
+        }
+    }
+
+    @Test
+    public void testBurstIsCoalescedIntoOneFanout() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        bookingService.registerClient("Gym", 10, 6000, InetAddress.getLoopbackAddress(), true);
+
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 2, 4, 200)) {
+            for (int hour = 8; hour < 18; hour++) {
+                bookingService.bookFacility("Gym", "Wed," + hour + ",0 - Wed," + (hour + 1) + ",0");
+                assertTrue(dispatcher.submit("Gym"));
+            }
+            awaitCompleted(dispatcher, 1);
+
+            assertEquals(10, dispatcher.getSubmitted());
+            assertEquals(9, dispatcher.getCoalesced());
+            assertEquals(10.0, dispatcher.getCoalescingRatio());
+
+            // The single delta carries every change in the burst
+            List<Map<String, Object>> deltas = socket.messagesTo(6000);
+            assertEquals(1, deltas.size());
+            assertEquals(0, deltas.get(0).get("prevSeq"));
+            assertEquals(10, deltas.get(0).get("seq"));
+        }
+    }
+
+    @Test
+    public void testFanoutWithoutSubscribersLogsNoError() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        bookingService.addFacility(new Facility("Pool"));
+        bookingService.registerClient("Pool", 10, 6000, InetAddress.getLoopbackAddress());
+
+        Logger logger = (Logger) LoggerFactory.getLogger(NotificationDispatcher.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, new RecordingSocket(),
+                2, 4, 0)) {
+            // Gym has never had a subscriber, so its subscriber list is the shared empty one
+            bookingService.bookFacility("Gym", "Mon,8,0 - Mon,9,0");
+            assertTrue(dispatcher.submit("Gym"));
+            awaitCompleted(dispatcher, 1);
+
+            assertEquals(0, dispatcher.getNotified());
+            assertEquals(0, dispatcher.getFailed());
+            assertTrue(appender.list.stream().noneMatch(event -> event.getLevel().isGreaterOrEqual(Level.ERROR)),
+                    () -> "Unexpected errors: " + appender.list);
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+
+    private static void awaitCompleted(NotificationDispatcher dispatcher, long fanouts) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getCompleted() < fanouts && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(fanouts, dispatcher.getCompleted());
+    }
+}
@@ -82,23 +82,73 @@ public class ParserTest {
         mockSocket.close();
     }
 
+    @Test
+    public void testOptionalTrailingField() {
+        MockSocket mockSocket = new MockSocket(0);
+        try {
+            Map<String, Object> message = new HashMap<String, Object>();
+            message.put("facilityName", "");
+            message.put("days", "b");
+            message.put("facilityId", 3);
+            UUID requestId = new UUID(0L, 0L);
+            Parser.Message parsedMessage = mockSocket.createMessage(message, 1, requestId, RequestType.REQUEST);
+            byte[] withId = mockSocket.parser.marshall(parsedMessage);
+            assertEquals(16 + 2 + 1 + 2 + 3 + 4, withId.length, "facilityId should be appended");
+            assertEquals(message, mockSocket.parser.unmarshall(withId).getData(), "Maps do not match");
+
+            message.remove("facilityId");
+            parsedMessage = mockSocket.createMessage(message, 1, requestId, RequestType.REQUEST);
+            byte[] withoutId = mockSocket.parser.marshall(parsedMessage);
+            assertEquals(16 + 2 + 1 + 2 + 3, withoutId.length, "facilityId should be omitted");
+            assertFalse(mockSocket.parser.unmarshall(withoutId).getData().containsKey("facilityId"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Test failed due to exception: " + e.getMessage());
+        }
+        mockSocket.close();
+    }
+
+    @Test
+    public void testNotModified() {
+        MockSocket mockSocket = new MockSocket(0);
+        try {
+            UUID requestId = UUID.randomUUID();
+            Parser.Message parsedMessage = mockSocket.createMessage(new HashMap<String, Object>(), 1, requestId,
+                    RequestType.NOT_MODIFIED);
+            byte[] actual = mockSocket.parser.marshall(parsedMessage);
+            assertEquals(16 + 2 + 1, actual.length, "NOT_MODIFIED should be header only");
+
+            Parser.Message unmarshalled = mockSocket.parser.unmarshall(actual);
+            assertEquals(requestId, unmarshalled.getRequestId());
+            assertEquals(1, unmarshalled.getServiceId());
+            assertEquals(RequestType.NOT_MODIFIED, unmarshalled.getRequestType());
+            assertTrue(unmarshalled.getData().isEmpty());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Test failed due to exception: " + e.getMessage());
+        }
+        mockSocket.close();
+    }
+
     @Test
     public void testMarshalError() {
         MockSocket mockSocket = new MockSocket(0);
         try {
-            String errorMessage = "Error: Fuck You";
+            String errorMessage = "Error: Slot taken";
             Map<String, Object> message = new HashMap<String, Object>();
+            message.put("errorCode", ErrorCode.SLOT_UNAVAILABLE.getCode());
             message.put("errorMessage", errorMessage);
             UUID requestId = new UUID(0L, 0L);
             Parser.Message parsedMessage = mockSocket.createMessage(message, 1, requestId, RequestType.ERROR);
             byte[] actual = mockSocket.parser.marshall(parsedMessage);
 
-            ByteBuffer buffer = ByteBuffer.allocate(16 + 2 + 1 + 15); // UUID (16 bytes) + service ID (2 bytes) +
-                                                                      // is_request
-            // flag (1 byte)
+            ByteBuffer buffer = ByteBuffer.allocate(16 + 2 + 1 + 2 + 2 + 17); // UUID (16 bytes) + service ID (2 bytes) +
+                                                                              // is_request flag (1 byte) + error code
             buffer.position(16); // Skip UUID
             buffer.putShort((short) 1); // Service ID
             buffer.put((byte) 2); // Request flag
+            buffer.putShort((short) 4); // Error code
+            buffer.putShort((short) 17); // String length
             buffer.put(errorMessage.getBytes(StandardCharsets.UTF_8)); // String
 
             byte[] expected = buffer.array();
@@ -121,6 +171,37 @@ public class ParserTest {
         mockSocket.close();
     }
 
+    @Test
+    public void testErrorMessageIsOptional() throws Exception {
+        MockSocket mockSocket = new MockSocket(0);
+        Map<String, Object> message = new HashMap<String, Object>();
+        message.put("errorCode", ErrorCode.BOOKING_NOT_FOUND.getCode());
+        Parser.Message parsedMessage = mockSocket.createMessage(message, 3, UUID.randomUUID(), RequestType.ERROR);
+        byte[] bytes = mockSocket.parser.marshall(parsedMessage);
+        assertEquals(16 + 2 + 1 + 2, bytes.length);
+
+        Parser.Message unmarshalled = mockSocket.parser.unmarshall(bytes);
+        assertEquals(RequestType.ERROR, unmarshalled.getRequestType());
+        assertEquals(Map.of("errorCode", 3), unmarshalled.getData());
+        mockSocket.close();
+    }
+
+    @Test
+    public void testErrorAlternativesFollowTheMessage() throws Exception {
+        MockSocket mockSocket = new MockSocket(0);
+        Map<String, Object> message = new HashMap<String, Object>();
+        message.put("errorCode", ErrorCode.SLOT_UNAVAILABLE.getCode());
+        message.put("alternatives", "Mon,10,0 - Mon,11,0:Mon,8,0 - Mon,9,0");
+        Parser.Message parsedMessage = mockSocket.createMessage(message, 2, UUID.randomUUID(), RequestType.ERROR);
+        byte[] bytes = mockSocket.parser.marshall(parsedMessage);
+
+        // An empty message is written in front of the alternatives
+        Parser.Message unmarshalled = mockSocket.parser.unmarshall(bytes);
+        assertEquals(Map.of("errorCode", 4, "errorMessage", "", "alternatives", "Mon,10,0 - Mon,11,0:Mon,8,0 - Mon,9,0"),
+                unmarshalled.getData());
+        mockSocket.close();
+    }
+
     @Test
     public void testMarshalACK(){
         MockSocket mockSocket = new MockSocket(0);
@@ -0,0 +1,165 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Socket that records what is sent through it instead of sending it. Calls to
+ * send() are marshalled like a real socket would and kept as sends; packets
+ * that reach the network layer, e.g. through fanout(), are kept as packets; and
+ * request IDs passed to discardPending() are kept as discarded. Sending to a
+ * port marked with {@link #failOn(int)} throws instead.
+ */
+public class RecordingSocket extends CustomSocket {
+    // Queues keep adding cheap when a fanout reaches thousands of destinations
+    final Queue<Send> sends = new ConcurrentLinkedQueue<>();
+    final Queue<Packet> packets = new ConcurrentLinkedQueue<>();
+    final List<UUID> discarded = new CopyOnWriteArrayList<>();
+    private final Set<Integer> failingPorts = ConcurrentHashMap.newKeySet();
+
+    public RecordingSocket() {
+        super(0);
+    }
+
+    /**
+     * Makes every send to a port fail with an IOException.
+     *
+     * @param port the port
+     * @return this socket
+     */
+    public RecordingSocket failOn(int port) {
+        failingPorts.add(port);
+        return this;
+    }
+
+    @Override
+    public void send(Map<String, Object> message, UUID requestId, int serviceId, RequestType requestType,
+            InetAddress destinationAddress, int destinationPort) throws IOException {
+        checkReachable(destinationPort);
+        try {
+            parser.marshall(createMessage(message, serviceId, requestId, requestType));
+        } catch (Exception e) {
+            throw new IOException("Failed to send message", e);
+        }
+        sends.add(new Send(destinationPort, requestId, requestType, message));
+    }
+
+    @Override
+    protected void sendDatagram(byte[] data, InetAddress address, int port) throws IOException {
+        checkReachable(port);
+        // Fanout reuses the packet buffer for the next destination, so keep a copy
+        packets.add(new Packet(port, data.clone()));
+    }
+
+    @Override
+    public void discardPending(UUID requestId) {
+        discarded.add(requestId);
+    }
+
+    @Override
+    public SenderResult receive() throws IOException {
+        throw new UnsupportedOperationException("Recording socket only sends");
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void clear() {
+        sends.clear();
+        packets.clear();
+        discarded.clear();
+    }
+
+    /**
+     * Gets the request IDs passed to send(), in order.
+     */
+    List<UUID> sentRequestIds() {
+        return sends.stream().map(send -> send.requestId).toList();
+    }
+
+    /**
+     * Gets the messages passed to send(), in order.
+     */
+    List<Map<String, Object>> sentMessages() {
+        return sends.stream().map(send -> send.message).toList();
+    }
+
+    /**
+     * Gets the request types passed to send(), in order.
+     */
+    List<RequestType> sentTypes() {
+        return sends.stream().map(send -> send.requestType).toList();
+    }
+
+    /**
+     * Gets the destination ports of the packets sent, in order.
+     */
+    List<Integer> packetPorts() {
+        return packets.stream().map(packet -> packet.port).toList();
+    }
+
+    /**
+     * Gets the bytes of the packets sent, in order.
+     */
+    List<byte[]> packetData() {
+        return packets.stream().map(packet -> packet.data).toList();
+    }
+
+    /**
+     * Gets the payloads of the packets sent to a port, in order.
+     */
+    List<Map<String, Object>> messagesTo(int port) {
+        List<Map<String, Object>> messages = new ArrayList<>();
+        for (Packet packet : packets) {
+            if (packet.port == port) {
+                messages.add(parser.unmarshall(packet.data).getData());
+            }
+        }
+        return messages;
+    }
+
+    private void checkReachable(int port) throws IOException {
+        if (failingPorts.contains(port)) {
+            throw new IOException("Unreachable");
+        }
+    }
+
+    /**
+     * One call to send().
+     */
+    static final class Send {
+        final int port;
+        final UUID requestId;
+        final RequestType requestType;
+        final Map<String, Object> message;
+
+        Send(int port, UUID requestId, RequestType requestType, Map<String, Object> message) {
+            this.port = port;
+            this.requestId = requestId;
+            this.requestType = requestType;
+            this.message = message;
+        }
+    }
+
+    /**
+     * One packet that reached the network layer.
+     */
+    static final class Packet {
+        final int port;
+        final byte[] data;
+
+        Packet(int port, byte[] data) {
+            this.port = port;
+            this.data = data;
+        }
+    }
+}
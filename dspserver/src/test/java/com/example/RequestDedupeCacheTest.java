@@ -0,0 +1,58 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class RequestDedupeCacheTest {
+    private static final InetAddress CLIENT = InetAddress.getLoopbackAddress();
+
+    @Test
+    public void testRepliesAreRebuiltFromCompactOutcomes() {
+        RequestDedupeCache cache = new RequestDedupeCache();
+
+        assertRoundTrip(cache, RequestType.RESPONSE, Map.of("confirmationID", UUID.randomUUID().toString()));
+        assertRoundTrip(cache, RequestType.RESPONSE, Map.of("confirmationIDs",
+                UUID.randomUUID() + ":" + UUID.randomUUID() + ":" + UUID.randomUUID()));
+        assertRoundTrip(cache, RequestType.RESPONSE, Map.of("success", true, "timeSlot", "Sun,19,15 - Sun,20,0"));
+        assertRoundTrip(cache, RequestType.RESPONSE, Map.of("success", false));
+        assertRoundTrip(cache, RequestType.RESPONSE,
+                Map.of("success", true, "multicastGroup", "239.255.40.3", "multicastPort", 12100));
+        assertRoundTrip(cache, RequestType.RESPONSE, Map.of("message", true));
+        assertEquals(6, cache.size());
+    }
+
+    @Test
+    public void testErrorsKeepOnlyTheirCode() {
+        RequestDedupeCache cache = new RequestDedupeCache();
+        UUID requestId = UUID.randomUUID();
+        Map<String, Object> error = new HashMap<>();
+        error.put("errorCode", ErrorCode.SLOT_UNAVAILABLE.getCode());
+        error.put("errorMessage", "Error: Facility is not available (Gym Mon,9,0 - Mon,10,0)");
+        error.put("alternatives", "Mon,11,0 - Mon,12,0:Tue,8,0 - Tue,9,0");
+        assertTrue(cache.put(CLIENT, 7000, requestId, RequestType.ERROR, error));
+
+        RequestDedupeCache.Outcome outcome = cache.get(CLIENT, 7000, requestId);
+        assertEquals(RequestType.ERROR, outcome.getReplyType());
+        assertEquals(Map.of("errorCode", ErrorCode.SLOT_UNAVAILABLE.getCode(),
+                "errorMessage", ErrorCode.SLOT_UNAVAILABLE.getDefaultMessage()), outcome.toReplyFields());
+
+        // A reply with a field the outcome cannot hold is not recorded, so the duplicate runs again
+        assertFalse(cache.put(CLIENT, 7000, UUID.randomUUID(), RequestType.RESPONSE,
+                Map.of("availabilities", "Mon,8,0 - Mon,9,0")));
+        assertEquals(1, cache.size());
+    }
+
+    private static void assertRoundTrip(RequestDedupeCache cache, RequestType replyType, Map<String, Object> reply) {
+        UUID requestId = UUID.randomUUID();
+        assertTrue(cache.put(CLIENT, 7000, requestId, replyType, reply));
+        RequestDedupeCache.Outcome outcome = cache.get(CLIENT, 7000, requestId);
+        assertEquals(replyType, outcome.getReplyType());
+        assertEquals(reply, outcome.toReplyFields());
+    }
+}
@@ -0,0 +1,210 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class ServiceRegistryTest {
+
+    @Test
+    public void testDispatchRepliesAndTriggersFanout() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 1, 4, 0)) {
+            ServerContext context = new ServerContext(0, socket, bookingService, dispatcher, null);
+            ServiceRegistry registry = new ServiceRegistry().register(new BookFacilityHandler());
+
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("facilityName", "Gym");
+            fields.put("timeSlot", "Mon,8,0 - Mon,9,0");
+            assertTrue(registry.dispatch(request(context, 2, fields)));
+
+            assertEquals(List.of(RequestType.RESPONSE), socket.sentTypes());
+            assertTrue(((String) socket.sentMessages().get(0).get("confirmationID")).length() > 0);
+            assertEquals(1, dispatcher.getSubmitted());
+            assertEquals(1, registry.getRequests(2));
+            assertEquals(0, registry.getErrors(2));
+
+            // A rejected booking changes nothing, so no fanout follows
+            assertTrue(registry.dispatch(request(context, 2, fields)));
+            assertEquals(RequestType.ERROR, socket.sentTypes().get(1));
+            assertEquals(1, dispatcher.getSubmitted());
+            assertEquals(2, registry.getRequests(2));
+        }
+    }
+
+    @Test
+    public void testUnknownServiceAndFailingHandler() throws Exception {
+        BookingService bookingService = new BookingService();
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 1, 4, 0)) {
+            ServerContext context = new ServerContext(0, socket, bookingService, dispatcher, null);
+            ServiceRegistry registry = new ServiceRegistry().register(new ServiceHandler() {
+                @Override
+                public int getServiceId() {
+                    return 40;
+                }
+
+                @Override
+                public String getName() {
+                    return "FAILING";
+                }
+
+                @Override
+                public void handle(ServiceRequest request) throws Exception {
+                    throw new IOException("Unreachable");
+                }
+            });
+
+            assertFalse(registry.dispatch(request(context, 41, new HashMap<>())));
+            assertEquals("UNKNOWN(41)", registry.getName(41));
+            assertTrue(registry.dispatch(request(context, 40, new HashMap<>())));
+            assertEquals(1, registry.getErrors(40));
+            assertTrue(context.isRunning());
+            assertThrows(IllegalArgumentException.class, () -> registry.register(new ShutdownHandler() {
+                @Override
+                public int getServiceId() {
+                    return 40;
+                }
+            }));
+        }
+    }
+
+    @Test
+    public void testRetransmittedBookingIsNotExecutedAgain() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 1, 4, 0)) {
+            ServerContext context = new ServerContext(0, socket, bookingService, dispatcher, null);
+            RequestDedupeCache dedupeCache = new RequestDedupeCache(1, 60_000);
+            ServiceRegistry registry = new ServiceRegistry(dedupeCache).register(new BookFacilityHandler());
+
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("facilityName", "Gym");
+            fields.put("timeSlot", "Mon,8,0 - Mon,9,0");
+            UUID requestId = UUID.randomUUID();
+            registry.dispatch(request(context, 2, fields, requestId));
+            registry.dispatch(request(context, 2, fields, requestId));
+
+            assertEquals(List.of(RequestType.RESPONSE, RequestType.RESPONSE), socket.sentTypes());
+            assertEquals(socket.sentMessages().get(0).get("confirmationID"),
+                    socket.sentMessages().get(1).get("confirmationID"));
+            assertEquals(1, registry.getRequests(2));
+            assertEquals(1, dispatcher.getSubmitted());
+            assertEquals(1, dedupeCache.getHits());
+
+            // Once evicted by a newer request, a duplicate is executed again and rejected
+            fields.put("timeSlot", "Tue,8,0 - Tue,9,0");
+            registry.dispatch(request(context, 2, fields, UUID.randomUUID()));
+            assertEquals(1, dedupeCache.getEvicted());
+            fields.put("timeSlot", "Mon,8,0 - Mon,9,0");
+            registry.dispatch(request(context, 2, fields, requestId));
+            assertEquals(RequestType.ERROR, socket.sentTypes().get(3));
+        }
+    }
+
+    @Test
+    public void testRetransmittedDeregisterGetsTheFirstReply() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        bookingService.registerClient("Gym", 10, 7000, InetAddress.getLoopbackAddress());
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 1, 4, 0)) {
+            ServerContext context = new ServerContext(0, socket, bookingService, dispatcher, null);
+            RequestDedupeCache dedupeCache = new RequestDedupeCache();
+            ServiceRegistry registry = new ServiceRegistry(dedupeCache).register(new DeregisterCallbackHandler());
+
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("facilityName", "Gym");
+            UUID requestId = UUID.randomUUID();
+            registry.dispatch(request(context, 12, fields, requestId));
+            registry.dispatch(request(context, 12, fields, requestId));
+
+            // The duplicate is not executed again, so it does not report a missing registration
+            assertEquals(true, socket.sentMessages().get(0).get("success"));
+            assertEquals(true, socket.sentMessages().get(1).get("success"));
+            assertEquals(1, registry.getRequests(12));
+            assertEquals(1, dedupeCache.getHits());
+            assertTrue(bookingService.getSubscribers("Gym").isEmpty());
+        }
+    }
+
+    @Test
+    public void testUnknownFacilityIdIsNotFound() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        bookingService.registerClient("Gym", 10, 7000, InetAddress.getLoopbackAddress());
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 1, 4, 0)) {
+            ServerContext context = new ServerContext(0, socket, bookingService, dispatcher, null);
+            ServiceRegistry registry = new ServiceRegistry().register(new ListAvailabilityHandler())
+                    .register(new DeregisterCallbackHandler());
+
+            // The ID takes precedence, so a valid name does not rescue an unknown ID
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("facilityName", "Gym");
+            fields.put("facilityId", 99);
+            fields.put("days", "Mon");
+            registry.dispatch(request(context, 1, fields));
+
+            // An empty name with an unknown ID does not deregister from every facility
+            fields = new HashMap<>();
+            fields.put("facilityName", "");
+            fields.put("facilityId", 99);
+            registry.dispatch(request(context, 12, fields));
+
+            assertEquals(List.of(RequestType.ERROR, RequestType.ERROR), socket.sentTypes());
+            for (Map<String, Object> message : socket.sentMessages()) {
+                assertEquals(ErrorCode.FACILITY_NOT_FOUND.getCode(), message.get("errorCode"));
+            }
+            assertEquals(1, bookingService.getSubscribers("Gym").size());
+        }
+    }
+
+    @Test
+    public void testBatchBookNotifiesEachFacilityOnce() throws Exception {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        bookingService.addFacility(new Facility("Pool"));
+        RecordingSocket socket = new RecordingSocket();
+        try (NotificationDispatcher dispatcher = new NotificationDispatcher(bookingService, socket, 1, 4, 0)) {
+            ServerContext context = new ServerContext(0, socket, bookingService, dispatcher, null);
+            ServiceRegistry registry = new ServiceRegistry().register(new BatchBookHandler());
+
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("slots", "Gym|Mon,9,0 - Mon,10,0:Gym|Tue,9,0 - Tue,10,0:Pool|Mon,9,0 - Mon,10,0");
+            registry.dispatch(request(context, 13, fields));
+
+            assertEquals(List.of(RequestType.RESPONSE), socket.sentTypes());
+            assertEquals(3, ((String) socket.sentMessages().get(0).get("confirmationIDs")).split(":").length);
+            assertEquals(2, dispatcher.getSubmitted());
+
+            fields.put("slots", "Gym Mon,9,0 - Mon,10,0");
+            registry.dispatch(request(context, 13, fields));
+            assertEquals(RequestType.ERROR, socket.sentTypes().get(1));
+            assertEquals(2, dispatcher.getSubmitted());
+        }
+    }
+
+    private static ServiceRequest request(ServerContext context, int serviceId, Map<String, Object> fields) {
+        return request(context, serviceId, fields, UUID.randomUUID());
+    }
+
+    private static ServiceRequest request(ServerContext context, int serviceId, Map<String, Object> fields,
+            UUID requestId) {
+        Map<String, Object> result = new HashMap<>(fields);
+        result.put("request_id", requestId);
+        result.put("service_id", serviceId);
+        result.put("request_type", RequestType.REQUEST);
+        return new ServiceRequest(new SenderResult(InetAddress.getLoopbackAddress(), 7000, result), context);
+    }
+}
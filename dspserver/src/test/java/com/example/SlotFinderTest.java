@@ -0,0 +1,67 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class SlotFinderTest {
+
+    @Test
+    public void testFindsGapsOfAnyLengthInStartOrder() {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+        bookingService.addFacility(new Facility("Pool"));
+
+        // Gym on Tue is free 9:00-10:30 and 12:00-20:00; Pool on Tue only from 10:00
+        bookingService.book("Gym", "Tue,8,0 - Tue,9,0");
+        bookingService.book("Gym", "Tue,10,30 - Tue,12,0");
+        bookingService.book("Pool", "Tue,8,0 - Tue,10,0");
+
+        Result<List<SlotFinder.Match>> found = bookingService.findSlots(90, "Tue", "Thu", List.of(), 4);
+        assertTrue(found.isOk());
+        assertEquals(List.of("Gym|Tue,9,0 - Tue,10,30", "Pool|Tue,10,0 - Tue,11,30", "Gym|Tue,12,0 - Tue,13,30",
+                "Gym|Wed,8,0 - Wed,9,30"), names(found.getValue()));
+
+        // A gap shorter than the duration is skipped
+        found = bookingService.findSlots(120, "Tue", "Tue", List.of("Gym"), 10);
+        assertEquals(List.of("Gym|Tue,12,0 - Tue,14,0"), names(found.getValue()));
+
+        // Every match can be booked as it is
+        SlotFinder.Match first = bookingService.findSlots(90, "Tue", "Tue", List.of(), 1).getValue().get(0);
+        assertTrue(bookingService.book(first.getFacility().getFacilityName(), first.getTimeSlot()).isOk());
+    }
+
+    @Test
+    public void testRejectsInvalidSearches() {
+        BookingService bookingService = new BookingService();
+        bookingService.addFacility(new Facility("Gym"));
+
+        assertEquals(ErrorCode.INVALID_ARGUMENT, bookingService.findSlots(0, "Mon", "Tue", List.of(), 5).getErrorCode());
+        assertEquals(ErrorCode.INVALID_ARGUMENT,
+                bookingService.findSlots(13 * 60, "Mon", "Tue", List.of(), 5).getErrorCode());
+        assertEquals(ErrorCode.INVALID_ARGUMENT, bookingService.findSlots(60, "Thu", "Tue", List.of(), 5).getErrorCode());
+        assertEquals(ErrorCode.INVALID_ARGUMENT, bookingService.findSlots(60, "Mon", "Tue", List.of(), 0).getErrorCode());
+        assertEquals(ErrorCode.FACILITY_NOT_FOUND,
+                bookingService.findSlots(60, "Mon", "Tue", List.of("Sauna"), 5).getErrorCode());
+    }
+
+    @Test
+    public void testMergeKeepsTheFirstMatches() {
+        Facility gym = new Facility("Gym");
+        Facility pool = new Facility("Pool");
+        List<SlotFinder.Match> left = List.of(new SlotFinder.Match(gym, 0, 480, 540),
+                new SlotFinder.Match(gym, 1, 480, 540));
+        List<SlotFinder.Match> right = List.of(new SlotFinder.Match(pool, 0, 600, 660),
+                new SlotFinder.Match(pool, 2, 480, 540));
+
+        assertEquals(List.of("Gym|Mon,8,0 - Mon,9,0", "Pool|Mon,10,0 - Mon,11,0", "Gym|Tue,8,0 - Tue,9,0"),
+                names(SlotFinder.merge(left, right, 3)));
+    }
+
+    private static List<String> names(List<SlotFinder.Match> matches) {
+        return matches.stream().map(SlotFinder.Match::toString).collect(Collectors.toList());
+    }
+}